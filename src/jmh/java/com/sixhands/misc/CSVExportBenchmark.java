@@ -0,0 +1,192 @@
+package com.sixhands.misc;
+
+import com.sixhands.controller.dtos.ProjectDTO;
+import com.sixhands.controller.dtos.UserAndExpDTO;
+import com.sixhands.domain.Project;
+import com.sixhands.domain.User;
+import com.sixhands.domain.UserProjectExp;
+import org.apache.commons.collections4.map.LinkedMap;
+import org.apache.commons.text.StringEscapeUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Projects export through {@link CSVRowWriter} against the CSVMap/CSVProjectDTO path it replaced,
+ * which is kept below as it was. Run with {@code gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CSVExportBenchmark {
+    @Param({"1000"})
+    private int projects;
+    @Param({"5"})
+    private int membersPerProject;
+
+    private List<ProjectDTO> exported;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        exported = new ArrayList<>(projects);
+        for (int p = 0; p < projects; p++) {
+            Project project = new Project();
+            project.setUuid((long) p);
+            project.setName("Project " + p);
+            project.setDescription("Description of project " + p + ", with \"quotes\" and a comma");
+            project.setIndustry("IT");
+            project.setStart_date("2019-01-01");
+            project.setEnd_date("2020-06-30");
+            project.setLink("https://example.com/" + p);
+            UserAndExpDTO[] members = new UserAndExpDTO[membersPerProject];
+            for (int m = 0; m < membersPerProject; m++) {
+                User user = new User();
+                user.setUuid((long) (p * membersPerProject + m));
+                user.setEmail("user" + user.getUuid() + "@example.com");
+                user.setFirst_name("First" + random.nextInt(1000));
+                user.setLast_name("Last" + random.nextInt(1000));
+                user.setCity("Moscow");
+                user.setCountry("Russia");
+                user.setAbout_user("About me, line one\nline two");
+                UserProjectExp exp = new UserProjectExp();
+                exp.setProject_creator(m == 0);
+                exp.setConfirmed(random.nextBoolean());
+                exp.setPosition("Developer");
+                exp.setRole("Backend_Developer");
+                exp.setSkills("java, spring, sql");
+                exp.setTools("idea, git");
+                exp.setDuties("Everything \"else\"");
+                members[m] = new UserAndExpDTO(user, exp);
+            }
+            ProjectDTO projectDTO = new ProjectDTO();
+            projectDTO.setProject(project);
+            projectDTO.setMembers(members);
+            exported.add(projectDTO);
+        }
+    }
+
+    @Benchmark
+    public int rowWriter() throws IOException {
+        StringBuilder out = new StringBuilder();
+        out.append("sep=,\n");
+        CSVRowWriter csv = new CSVRowWriter(out);
+        for (ProjectDTO projectDTO : exported) projectDTO.writeCSV(csv);
+        return out.length();
+    }
+
+    @Benchmark
+    public int csvMap() {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < exported.size(); i++)
+            out.append(legacyCsvDto(exported.get(i)).toString(i == 0)).append(i == exported.size() - 1 ? "" : "\n");
+        return ("sep=,\n" + out).length();
+    }
+
+    //#region CSVMap path, as it was before CSVRowWriter
+    private static LegacyCSVProjectDTO legacyCsvDto(ProjectDTO projectDTO) {
+        Project project = projectDTO.getProject();
+        Map<String, String> projectMap = new LegacyCSVMap()
+                .putc("proj_id", project.getUuid())
+                .putc("proj_name", project.getName())
+                .putc("proj_desc", project.getDescription())
+                .putc("proj_confirmed", project.isConfirmed())
+                .putc("proj_industry", project.getIndustry())
+                .putc("proj_start_date", project.getStart_date())
+                .putc("proj_end_date", project.getEnd_date())
+                .putc("proj_link", project.getLink())
+                .getMap();
+        List<Map<String, String>> memberMaps = Arrays.stream(projectDTO.getMembers())
+                .filter(Objects::nonNull)
+                .map(CSVExportBenchmark::legacyMemberMap)
+                .collect(Collectors.toList());
+        return new LegacyCSVProjectDTO(projectMap, memberMaps);
+    }
+
+    private static Map<String, String> legacyMemberMap(UserAndExpDTO member) {
+        User user = member.getUser();
+        UserProjectExp exp = member.getUserExp();
+        Map<String, String> userMap = new LegacyCSVMap()
+                .putc("user_id", user.getUuid())
+                .putc("user_email", user.getEmail())
+                .putc("user_verified", user.getActivationCode() == null)
+                .putc("user_first_name", user.getFirst_name())
+                .putc("user_last_name", user.getLast_name())
+                .putc("user_sex", user.getSex())
+                .putc("user_date_of_birth", user.getDate_of_birth())
+                .putc("user_about_me", user.getAbout_user())
+                .putc("user_country", user.getCountry())
+                .putc("user_city", user.getCity())
+                .getMap();
+        Map<String, String> expMap = new LegacyCSVMap()
+                .putc("mem_creator", exp.isProject_creator())
+                .putc("mem_confirmed", exp.isConfirmed())
+                .putc("mem_position", exp.getPosition())
+                .putc("mem_role", exp.getRole())
+                .putc("mem_skills", exp.getSkills())
+                .putc("mem_tools", exp.getTools())
+                .putc("mem_duties", exp.getDuties())
+                .getMap();
+        return new LegacyCSVMap()
+                .putcAll(userMap, false)
+                .putcAll(expMap, false)
+                .getMap();
+    }
+
+    private static class LegacyCSVMap {
+        private Map<String, String> map = new LinkedMap<>();
+
+        Map<String, String> getMap() {
+            return new LinkedMap<>(map);
+        }
+
+        LegacyCSVMap putc(String k, Object v) {
+            map.put(k, v == null ? "null" : StringEscapeUtils.escapeCsv(v.toString()));
+            return this;
+        }
+
+        LegacyCSVMap putcAll(Map<String, String> map, boolean escape) {
+            Map<String, String> cloned = new LinkedMap<>(map);
+            if (escape) {
+                for (int i = 0; i < cloned.keySet().size(); i++) {
+                    Map.Entry<String, String> entry = cloned.entrySet().toArray(new Map.Entry[0])[i];
+                    cloned.put(entry.getKey(), StringEscapeUtils.escapeCsv(entry.getValue()));
+                }
+            }
+            this.map.putAll(cloned);
+            return this;
+        }
+    }
+
+    private static class LegacyCSVProjectDTO {
+        private final Map<String, String> project;
+        private final List<Map<String, String>> members;
+
+        LegacyCSVProjectDTO(Map<String, String> project, List<Map<String, String>> members) {
+            this.project = project;
+            this.members = members;
+        }
+
+        String toString(boolean addTitles) {
+            List<String> rows = new ArrayList<>();
+            String titles = String.join(",", project.keySet()) + "," + String.join(",", members.get(0).keySet());
+            String firstRow = String.join(",", project.values()) + "," + String.join(",", members.get(0).values());
+            if (addTitles) rows.add(titles);
+            rows.add(firstRow);
+            members.subList(1, members.size())
+                    .forEach((m) -> {
+                        String projSkip = project.values().stream().map((p) -> ",").collect(Collectors.joining());
+                        String memValues = String.join(",", m.values());
+                        rows.add(projSkip + memValues);
+                    });
+            return String.join("\n", rows);
+        }
+    }
+    //#endregion
+}
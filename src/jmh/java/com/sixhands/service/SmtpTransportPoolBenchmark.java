@@ -0,0 +1,93 @@
+package com.sixhands.service;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetup;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.util.ReflectionUtils;
+
+import javax.mail.MessagingException;
+import javax.mail.internet.MimeMessage;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sending a batch through {@link SmtpTransportPool} against one connection per message with
+ * {@link JavaMailSenderImpl#send}, both to an embedded GreenMail SMTP server. Scores are per message.
+ * Run with {@code gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@OperationsPerInvocation(SmtpTransportPoolBenchmark.MESSAGES)
+public class SmtpTransportPoolBenchmark {
+    static final int MESSAGES = 50;
+
+    private GreenMail greenMail;
+    private JavaMailSenderImpl mailSender;
+    private SmtpTransportPool pool;
+
+    @Setup
+    public void setup() {
+        //0 picks a free port
+        greenMail = new GreenMail(new ServerSetup(0, "127.0.0.1", ServerSetup.PROTOCOL_SMTP));
+        greenMail.start();
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(greenMail.getSmtp().getPort());
+
+        pool = new SmtpTransportPool();
+        set(pool, "mailSender", mailSender);
+        set(pool, "size", 1);
+        set(pool, "maxMessagesPerConnection", 50);
+        set(pool, "idleTimeoutMs", 60000L);
+    }
+
+    //GreenMail keeps everything it receives
+    @TearDown(Level.Iteration)
+    public void purge() throws Exception {
+        greenMail.purgeEmailFromAllMailboxes();
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.closeAll();
+        greenMail.stop();
+    }
+
+    @Benchmark
+    public List<Exception> pooled() throws Exception {
+        return pool.sendBatch(messages());
+    }
+
+    @Benchmark
+    public void connectionPerMessage() throws Exception {
+        for (MimeMessage message : messages()) mailSender.send(message);
+    }
+
+    private List<MimeMessage> messages() throws MessagingException {
+        List<MimeMessage> ret = new ArrayList<>(MESSAGES);
+        for (int i = 0; i < MESSAGES; i++) {
+            MimeMessage message = mailSender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(message, false, "UTF-8");
+            helper.setFrom("noreply@6hands.test");
+            helper.setTo("user" + i + "@6hands.test");
+            helper.setSubject("Message " + i);
+            helper.setText("Text of message " + i);
+            ret.add(message);
+        }
+        return ret;
+    }
+
+    private static void set(Object target, String name, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), name);
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+}
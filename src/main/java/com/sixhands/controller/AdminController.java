@@ -4,9 +4,12 @@ import com.sixhands.controller.dtos.ProjectDTO;
 import com.sixhands.controller.dtos.UserAndExpDTO;
 import com.sixhands.domain.Project;
 import com.sixhands.domain.User;
+import com.sixhands.misc.CSVRowWriter;
 import com.sixhands.misc.GenericUtils;
 import com.sixhands.repository.ProjectRepository;
 import com.sixhands.repository.UserRepository;
+import com.sixhands.service.AnalyticsService;
+import com.sixhands.service.NotificationCompactor;
 import com.sixhands.service.ProjectService;
 import com.sixhands.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,11 +19,16 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 
@@ -33,49 +41,69 @@ public class AdminController {
     private ProjectService projectService;
     @Autowired
     private UserRepository userRepo;
+    @Autowired
+    private AnalyticsService analyticsService;
+    @Autowired
+    private NotificationCompactor notificationCompactor;
     @GetMapping
     public String adminIndex(){
         return "admin-index";
     }
+    @GetMapping("/analytics")
+    public String analytics(@RequestParam(defaultValue = "30") int days, Model model){
+        days = Math.max(1, Math.min(days, 366));
+        model.addAttribute("days", days);
+        model.addAttribute("daily", analyticsService.getDays(days));
+        model.addAttribute("confirmations", analyticsService.getConfirmations());
+        return "admin-analytics";
+    }
+    //One-off, copies the whole notification table
+    @PostMapping("/notifications/partition")
+    public String partitionNotifications(@PathVariable String token){
+        notificationCompactor.partitionTable();
+        return "redirect:/admin/" + token + "/";
+    }
     public AdminController(){
         exportedDir.mkdir();
     }
 
-    //TODO: Refactor, too much code
-    private String getProjectsCSV(){
-        StringBuilder stringBuilder = new StringBuilder();
-        for (int i = 0; i < projectRepo.count(); i++) {
-            Project project = GenericUtils.initializeAndUnproxy( projectRepo.findAll().get(i) );
+    private void writeProjectsCSV(Writer writer) throws IOException {
+        writer.write("sep=,\n");
+        CSVRowWriter csv = new CSVRowWriter(writer);
+        for (Project project : projectRepo.findAll()) {
+            project = GenericUtils.initializeAndUnproxy(project);
             UserAndExpDTO[] userAndExpDTO = GenericUtils.initializeAndUnproxy( projectService.projectExpByProject(project) );
             ProjectDTO projectDTO = new ProjectDTO();
             projectDTO.setProject(project);
             projectDTO.setMembers(userAndExpDTO);
-            stringBuilder.append(projectDTO.toCsvDto().toString(i == 0)).append(i==projectRepo.count()-1?"":"\n");
+            projectDTO.writeCSV(csv);
         }
-        return "sep=,\n"+stringBuilder;
     }
-    private String getUsersCSV(){
-        StringBuilder stringBuilder = new StringBuilder();
-        for (int i = 0; i < userRepo.count(); i++) {
-            User user = GenericUtils.initializeAndUnproxy( userRepo.findAll().get(i) );
-            if(i==0) stringBuilder.append( String.join(",", user.toCSV().keySet()) ).append("\n");
-            stringBuilder.append( String.join(",", user.toCSV().values()) ).append(i==userRepo.count()-1?"":"\n");
+    private void writeUsersCSV(Writer writer) throws IOException {
+        writer.write("sep=,\n");
+        CSVRowWriter csv = new CSVRowWriter(writer);
+        for (User user : userRepo.findAll()) {
+            GenericUtils.initializeAndUnproxy(user).writeCSV(csv);
+            csv.endRow();
         }
-        return "sep=,\n"+stringBuilder;
     }
     private File exportedDir = new File("6hands-exported");
     //TODO: Refactor, too much code
     @GetMapping("/csv/projects")
     public ResponseEntity<Resource> serveProjects() throws IOException {
         File csvFile = new File(exportedDir.getAbsolutePath()+File.separator+"projects.csv");
-        Files.write(csvFile.toPath(),getProjectsCSV().getBytes(StandardCharsets.UTF_8));
+        try (Writer writer = Files.newBufferedWriter(csvFile.toPath(), StandardCharsets.UTF_8)) {
+            writeProjectsCSV(writer);
+        }
         Resource file = new UrlResource(csvFile.toURI());
         return ResponseEntity.ok().header(HttpHeaders.CONTENT_DISPOSITION,"attachment; filename="+file.getFilename()).contentType(MediaType.APPLICATION_OCTET_STREAM).body(file);
     }
     @GetMapping("/csv/users")
     public ResponseEntity<Resource> serveUsers() throws IOException {
         File csvFile = new File(exportedDir.getAbsolutePath()+File.separator+"users.csv");
-        Files.write(csvFile.toPath(),getUsersCSV().getBytes(StandardCharsets.UTF_8));
+        try (Writer writer = Files.newBufferedWriter(csvFile.toPath(), StandardCharsets.UTF_8)) {
+            writeUsersCSV(writer);
+        }
         Resource file = new UrlResource(csvFile.toURI());
         return ResponseEntity.ok().header(HttpHeaders.CONTENT_DISPOSITION,"attachment; filename="+file.getFilename()).contentType(MediaType.APPLICATION_OCTET_STREAM).body(file);
     }
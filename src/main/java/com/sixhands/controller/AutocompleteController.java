@@ -0,0 +1,36 @@
+package com.sixhands.controller;
+
+import com.sixhands.misc.SuggestionTrie;
+import com.sixhands.service.AutocompleteService;
+import com.sixhands.service.UserService;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class AutocompleteController {
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private AutocompleteService autocompleteService;
+
+    //Most used values of the kind (skill, tool, company, industry) starting with q
+    @GetMapping(value = "/autocomplete", produces = MediaType.APPLICATION_JSON_VALUE)
+    public String autocomplete(@RequestParam String kind,
+                               @RequestParam(defaultValue = "") String q,
+                               @RequestParam(defaultValue = "10") int size) {
+        userService.getCurUserOrThrow();
+        AutocompleteService.Kind parsedKind = AutocompleteService.parseKind(kind);
+        JSONArray ret = new JSONArray();
+        for (SuggestionTrie.Suggestion suggestion : autocompleteService.suggest(parsedKind, q,
+                Math.max(1, Math.min(size, AutocompleteService.MAX_SIZE))))
+            ret.put(new JSONObject()
+                    .put("value", suggestion.getLabel())
+                    .put("count", suggestion.getCount()));
+        return ret.toString();
+    }
+}
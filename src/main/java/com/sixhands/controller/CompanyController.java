@@ -0,0 +1,48 @@
+package com.sixhands.controller;
+
+import com.sixhands.domain.CompanyStats;
+import com.sixhands.service.CompanyDirectoryService;
+import com.sixhands.service.UserService;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/companies")
+public class CompanyController {
+    private static final int MAX_SIZE = 100;
+
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private CompanyDirectoryService companyDirectoryService;
+
+    //Companies with the most members first
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public String getCompanies(@RequestParam(defaultValue = "0") int page, @RequestParam(defaultValue = "20") int size) {
+        userService.getCurUserOrThrow();
+        JSONArray ret = new JSONArray();
+        for (CompanyStats company : companyDirectoryService.getCompanies(Math.max(0, page), Math.max(1, Math.min(size, MAX_SIZE))))
+            ret.put(toJSON(company));
+        return ret.toString();
+    }
+
+    //Company by name, case and whitespace don't matter
+    @GetMapping(value = "/{name}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public String getCompany(@PathVariable String name) {
+        userService.getCurUserOrThrow();
+        return toJSON(companyDirectoryService.getCompany(name)).toString();
+    }
+
+    private static JSONObject toJSON(CompanyStats company) {
+        return new JSONObject()
+                .put("name", company.getLabel())
+                .put("members", company.getMemberCount())
+                .put("projects", company.getProjectCount())
+                .put("topRoles", company.topRolesJSON())
+                .put("topSkills", company.topSkillsJSON())
+                .put("updated", company.getUpdated().getTime());
+    }
+}
@@ -0,0 +1,39 @@
+package com.sixhands.controller;
+
+import com.sixhands.service.FeedService;
+import com.sixhands.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Date;
+import java.util.Locale;
+
+@RestController
+@RequestMapping("/feed")
+public class FeedController {
+    private static final int MAX_PAGE_SIZE = 100;
+
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private FeedService feedService;
+
+    /**
+     * @param before   timestamp of the previous page's "next" cursor
+     * @param beforeId uuid of the previous page's "next" cursor
+     */
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public String getFeed(@RequestParam(required = false) Long before,
+                          @RequestParam(required = false) Long beforeId,
+                          @RequestParam(defaultValue = "20") int size,
+                          Locale locale) {
+        size = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        return feedService.getFeed(userService.getCurUserOrThrow(), before == null ? null : new Date(before), beforeId, size, locale)
+                .toJSON()
+                .toString();
+    }
+}
@@ -0,0 +1,26 @@
+package com.sixhands.controller;
+
+import com.sixhands.service.ColleagueGraphService;
+import com.sixhands.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/graph")
+public class GraphController {
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ColleagueGraphService colleagueGraphService;
+
+    //Shortest chain of colleagues between two users, from defaults to the current user
+    @GetMapping(value = "/path", produces = MediaType.APPLICATION_JSON_VALUE)
+    public String getPath(@RequestParam(required = false) Long from, @RequestParam Long to) {
+        if (from == null) from = userService.getCurUserOrThrow().getUuid();
+        return colleagueGraphService.getPathDTO(from, to).toJSON().toString();
+    }
+}
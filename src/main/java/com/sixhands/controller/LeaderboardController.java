@@ -0,0 +1,64 @@
+package com.sixhands.controller;
+
+import com.sixhands.domain.User;
+import com.sixhands.repository.UserRepository;
+import com.sixhands.service.LeaderboardService;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.*;
+
+@RestController
+@RequestMapping("/leaderboard")
+public class LeaderboardController {
+    private static final int MAX_PAGE_SIZE = 100;
+
+    @Autowired
+    private LeaderboardService leaderboardService;
+    @Autowired
+    private UserRepository userRepo;
+
+    //Page of the global board, or of the industry board with ?industry=
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public String getTop(@RequestParam(required = false) String industry,
+                         @RequestParam(defaultValue = "0") int offset,
+                         @RequestParam(defaultValue = "20") int size) {
+        List<LeaderboardService.Entry> entries = leaderboardService.getTop(industry, Math.max(0, offset),
+                Math.max(1, Math.min(size, MAX_PAGE_SIZE)));
+        List<Long> ids = new ArrayList<>(entries.size());
+        for (LeaderboardService.Entry entry : entries) ids.add(entry.getUserUUID());
+        Map<Long, User> users = new HashMap<>();
+        for (User user : userRepo.findAllById(ids)) users.put(user.getUuid(), user);
+
+        JSONArray array = new JSONArray();
+        for (LeaderboardService.Entry entry : entries) {
+            User user = users.get(entry.getUserUUID());
+            array.put(toJSON(entry).put("name", user == null ? JSONObject.NULL : user.getFirst_name() + " " + user.getLast_name()));
+        }
+        return new JSONObject()
+                .put("total", leaderboardService.getSize(industry))
+                .put("entries", array)
+                .toString();
+    }
+
+    @GetMapping(value = "/rank/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public String getRank(@PathVariable Long id, @RequestParam(required = false) String industry) {
+        LeaderboardService.Entry entry = leaderboardService.getRank(industry, id);
+        if (entry == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User " + id + " is not on the leaderboard");
+        return toJSON(entry)
+                .put("total", leaderboardService.getSize(industry))
+                .toString();
+    }
+
+    private static JSONObject toJSON(LeaderboardService.Entry entry) {
+        return new JSONObject()
+                .put("rank", entry.getRank())
+                .put("uuid", entry.getUserUUID())
+                .put("rating", entry.getRating());
+    }
+}
@@ -0,0 +1,31 @@
+package com.sixhands.controller;
+
+import com.sixhands.domain.User;
+import com.sixhands.service.NotificationService;
+import com.sixhands.service.NotificationStreamRegistry;
+import com.sixhands.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Locale;
+
+@RestController
+@RequestMapping("/notifications")
+public class NotificationController {
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private NotificationService notificationService;
+    @Autowired
+    private NotificationStreamRegistry streamRegistry;
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(Locale locale) {
+        User curUser = userService.getCurUserOrThrow();
+        return streamRegistry.register(curUser.getUuid(), locale, notificationService.getUserNotifications(curUser.getUuid()));
+    }
+}
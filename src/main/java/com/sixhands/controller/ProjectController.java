@@ -1,5 +1,6 @@
 package com.sixhands.controller;
 
+import com.sixhands.controller.dtos.ImportIssueDTO;
 import com.sixhands.controller.dtos.ProjectDTO;
 import com.sixhands.controller.dtos.UserAndExpDTO;
 import com.sixhands.domain.Project;
@@ -13,21 +14,34 @@ import com.sixhands.service.SheetService;
 import com.sixhands.service.UserService;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.parameters.P;
 import org.springframework.stereotype.Controller;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.ui.Model;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.server.ResponseStatusException;
 
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 import javax.servlet.http.HttpServletRequest;
-import java.io.IOException;
-import java.io.InputStream;
+import java.io.*;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.function.Consumer;
 
 @Controller
 @RequestMapping("/project")
@@ -44,8 +58,23 @@ public class ProjectController {
     private UserProjectExpRepository userProjectExpRepo;
     @Autowired
     private SheetService sheetService;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${6hands.import.chunk-size:50}")
+    private int importChunkSize;
 
     private Map<Long, ProjectDTO> editedProjects = new HashMap<>();
+    private TransactionTemplate importTemplate;
+
+    @PostConstruct
+    public void init() {
+        //Every import chunk commits on its own, so locks and after-commit events don't pile up over a big file
+        importTemplate = new TransactionTemplate(transactionManager);
+        importTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
 
 /*    private User getCurUser() {
         return userService.loadUserByUsername(UserService.getCurrentUsername()
@@ -72,10 +101,7 @@ public class ProjectController {
     @GetMapping(value = "/{id}/like")
     public String likeProject(@PathVariable int id, HttpServletRequest request) {
         User curUser = userService.getCurUserOrThrow();
-        //Get all projects that are created by current user
-        Project project = projectRepo.getOne((long) id);
-        project.likeByUser(curUser);
-        projectRepo.save(project);
+        projectService.likeProject((long) id, curUser);
         try {
             //https://stackoverflow.com/a/1525689
             URL referer = new URL(request.getHeader("Referer"));
@@ -170,32 +196,103 @@ public class ProjectController {
     }
 
     @PostMapping(value = "/save", params = {"action=persist"})
-    public String saveProject(@ModelAttribute ProjectDTO projectDTO) {
-        projectService.saveNewProject(projectDTO, userService.getCurUserOrThrow(), Locale.getDefault());
+    public String saveProject(@ModelAttribute ProjectDTO projectDTO, Locale locale) {
+        projectService.saveNewProject(projectDTO, userService.getCurUserOrThrow(), locale);
         return "redirect:/user/me";
     }
 
     //TODO: Import all fields - https://imgur.com/1zenJ1p.jpg, assign first and surname to new users
     @PostMapping("/import")
-    @Transactional
-    public String importProjects(@RequestParam("file") MultipartFile multipartFile) throws IOException {
+    public String importProjects(@RequestParam("file") MultipartFile multipartFile, Locale locale) throws IOException {
         if (multipartFile == null) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "File is null");
+        User curUser = userService.getCurUserOrThrow();
 
-        XSSFWorkbook xssfWorkbook = null;
-
-        try (InputStream input = multipartFile.getInputStream()) {
-            try {
-                xssfWorkbook = new XSSFWorkbook(input);
-            } catch (Exception e) {
-                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid file type (xlsx is required)");
+        Character delimiter = importDelimiter(multipartFile);
+        if (delimiter != null) {
+            List<ProjectDTO> chunk = new ArrayList<>(importChunkSize);
+            try (Reader reader = new InputStreamReader(multipartFile.getInputStream(), StandardCharsets.UTF_8)) {
+                sheetService.parseDelimited(reader, delimiter, (projectDTO) -> {
+                    chunk.add(projectDTO);
+                    if (chunk.size() >= importChunkSize) importChunk(chunk, curUser, locale);
+                });
             }
+            importChunk(chunk, curUser, locale);
+            return "redirect:/user/me";
         }
 
+        XSSFWorkbook xssfWorkbook = readWorkbook(multipartFile);
+
         List<ProjectDTO> imported = sheetService.parseSheet(xssfWorkbook.getSheetAt(0));
 
-        imported.forEach(this::saveProject);
+        importTemplate.executeWithoutResult(status ->
+                imported.forEach((projectDTO) -> projectService.saveNewProject(projectDTO, curUser, locale)));
         //System.out.println( new JSONArray( imported ).toString(2) );
 
         return "redirect:/user/me";
     }
+
+    /**
+     * Dry run of {@link #importProjects(MultipartFile, Locale)}, nothing is persisted.
+     * Streams back a row by row report of rejected cells, duplicate import ids and emails that would create new users.
+     *
+     * @param format csv or ndjson
+     */
+    @PostMapping("/import/validate")
+    public ResponseEntity<StreamingResponseBody> validateImport(@RequestParam("file") MultipartFile multipartFile,
+                                                                @RequestParam(defaultValue = "csv") String format) throws IOException {
+        if (multipartFile == null) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "File is null");
+        boolean ndjson = format.equalsIgnoreCase("ndjson");
+        Character delimiter = importDelimiter(multipartFile);
+        //Read xlsx before responding, so an invalid file is still reported with 400
+        XSSFWorkbook xssfWorkbook = delimiter == null ? readWorkbook(multipartFile) : null;
+
+        StreamingResponseBody body = (out) -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            if (!ndjson) writer.write(ImportIssueDTO.CSV_HEADER + "\n");
+            Consumer<ImportIssueDTO> issues = (issue) -> {
+                try {
+                    writer.write(ndjson ? issue.toNDJSONRow() : issue.toCSVRow());
+                    writer.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            };
+            if (xssfWorkbook != null) sheetService.validateSheet(xssfWorkbook.getSheetAt(0), issues);
+            else try (Reader reader = new InputStreamReader(multipartFile.getInputStream(), StandardCharsets.UTF_8)) {
+                sheetService.validateDelimited(reader, delimiter, issues);
+            }
+            writer.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(ndjson ? MediaType.parseMediaType("application/x-ndjson") : MediaType.parseMediaType("text/csv"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=import-report." + (ndjson ? "ndjson" : "csv"))
+                .body(body);
+    }
+
+    private void importChunk(List<ProjectDTO> chunk, User curUser, Locale locale) {
+        if (chunk.isEmpty()) return;
+        importTemplate.executeWithoutResult(status ->
+                chunk.forEach((projectDTO) -> projectService.saveNewProject(projectDTO, curUser, locale)));
+        chunk.clear();
+        //The request's persistence context outlives the chunk transactions, detach what they saved
+        entityManager.clear();
+    }
+
+    //Delimiter for csv/tsv files, null for xlsx
+    private Character importDelimiter(MultipartFile multipartFile) {
+        String fileName = StringUtils.isEmpty(multipartFile.getOriginalFilename()) ? "" : multipartFile.getOriginalFilename().toLowerCase();
+        if (fileName.endsWith(".tsv")) return '\t';
+        if (fileName.endsWith(".csv")) return ',';
+        return null;
+    }
+
+    private XSSFWorkbook readWorkbook(MultipartFile multipartFile) throws IOException {
+        try (InputStream input = multipartFile.getInputStream()) {
+            try {
+                return new XSSFWorkbook(input);
+            } catch (Exception e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid file type (xlsx is required)");
+            }
+        }
+    }
 }
@@ -0,0 +1,46 @@
+package com.sixhands.controller;
+
+import com.sixhands.controller.dtos.SavedSearchDTO;
+import com.sixhands.domain.SavedSearch;
+import com.sixhands.domain.User;
+import com.sixhands.service.SavedSearchService;
+import com.sixhands.service.UserService;
+import org.json.JSONArray;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/search/saved")
+public class SavedSearchController {
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private SavedSearchService savedSearchService;
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public String getSavedSearches() {
+        JSONArray ret = new JSONArray();
+        for (SavedSearch search : savedSearchService.getSearches(userService.getCurUserOrThrow()))
+            ret.put(new SavedSearchDTO(search, savedSearchService.getMatchCount(search.getUuid())).toJSON());
+        return ret.toString();
+    }
+
+    //Takes the same filters as /search, the current user is notified about new matches
+    @PostMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public String saveSearch(@RequestParam(required = false) String skill,
+                             @RequestParam(required = false) String company,
+                             @RequestParam(required = false) String industry,
+                             @RequestParam(required = false) String tool,
+                             @RequestParam(required = false) String role,
+                             @RequestParam(required = false) String name) {
+        User curUser = userService.getCurUserOrThrow();
+        SavedSearch search = savedSearchService.save(curUser, skill, company, industry, tool, role, name);
+        return new SavedSearchDTO(search, savedSearchService.getMatchCount(search.getUuid())).toJSON().toString();
+    }
+
+    @DeleteMapping("/{id}")
+    public void deleteSearch(@PathVariable Long id) {
+        savedSearchService.delete(userService.getCurUserOrThrow(), id);
+    }
+}
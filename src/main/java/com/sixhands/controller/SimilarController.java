@@ -0,0 +1,30 @@
+package com.sixhands.controller;
+
+import com.sixhands.controller.dtos.SimilarUserDTO;
+import com.sixhands.service.SimilarityService;
+import com.sixhands.service.UserService;
+import org.json.JSONArray;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/similar")
+public class SimilarController {
+    private static final int MAX_SIZE = 50;
+
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private SimilarityService similarityService;
+
+    //Users with profiles like the user's
+    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public String getSimilar(@PathVariable Long id, @RequestParam(defaultValue = "10") int size) {
+        userService.getCurUserOrThrow();
+        JSONArray ret = new JSONArray();
+        for (SimilarUserDTO similar : similarityService.findSimilar(id, Math.max(1, Math.min(size, MAX_SIZE))))
+            ret.put(similar.toJSON());
+        return ret.toString();
+    }
+}
@@ -0,0 +1,30 @@
+package com.sixhands.controller;
+
+import com.sixhands.service.TeamBuilderService;
+import com.sixhands.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/team")
+public class TeamController {
+    private static final int MAX_TEAM_SIZE = 20;
+
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private TeamBuilderService teamBuilderService;
+
+    //Smallest team found that has all the skills/tools, ?need=java&need=jira or ?need=java,jira
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public String buildTeam(@RequestParam List<String> need, @RequestParam(defaultValue = "10") int size) {
+        userService.getCurUserOrThrow();
+        return teamBuilderService.buildTeam(need, Math.max(1, Math.min(size, MAX_TEAM_SIZE))).toJSON().toString();
+    }
+}
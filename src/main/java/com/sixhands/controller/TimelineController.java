@@ -0,0 +1,81 @@
+package com.sixhands.controller;
+
+import com.sixhands.domain.User;
+import com.sixhands.repository.UserRepository;
+import com.sixhands.service.ProjectTimelineService;
+import com.sixhands.service.UserService;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.util.*;
+
+@RestController
+@RequestMapping("/timeline")
+public class TimelineController {
+    private static final int MAX_SIZE = 500;
+
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private UserRepository userRepo;
+    @Autowired
+    private ProjectTimelineService timelineService;
+
+    //Users who worked on anything during [from, to], dates as yyyy-MM-dd
+    @GetMapping(value = "/busy", produces = MediaType.APPLICATION_JSON_VALUE)
+    public String getBusy(@RequestParam String from, @RequestParam String to, @RequestParam(defaultValue = "50") int size) {
+        userService.getCurUserOrThrow();
+        LocalDate[] range = parseRange(from, to);
+        List<Long> busy = new ArrayList<>(new TreeSet<>(timelineService.findBusy(range[0], range[1])));
+        return usersJSON(busy.subList(0, Math.min(busy.size(), clamp(size))), Collections.emptyMap()).toString();
+    }
+
+    //Users with dated projects that have none during [from, to]
+    @GetMapping(value = "/free", produces = MediaType.APPLICATION_JSON_VALUE)
+    public String getFree(@RequestParam String from, @RequestParam String to, @RequestParam(defaultValue = "50") int size) {
+        userService.getCurUserOrThrow();
+        LocalDate[] range = parseRange(from, to);
+        return usersJSON(timelineService.findFree(range[0], range[1], clamp(size)), Collections.emptyMap()).toString();
+    }
+
+    //Users that were on a project together with the user at the same time
+    @GetMapping(value = "/overlaps/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public String getOverlaps(@PathVariable Long id) {
+        userService.getCurUserOrThrow();
+        Map<Long, Set<Long>> overlapping = timelineService.findOverlapping(id);
+        return usersJSON(new ArrayList<>(new TreeSet<>(overlapping.keySet())), overlapping).toString();
+    }
+
+    private JSONArray usersJSON(List<Long> ids, Map<Long, Set<Long>> projects) {
+        Map<Long, User> users = new HashMap<>();
+        for (User user : userRepo.findAllById(ids)) users.put(user.getUuid(), user);
+        JSONArray ret = new JSONArray();
+        for (Long id : ids) {
+            User user = users.get(id);
+            if (user == null) continue;
+            JSONObject json = new JSONObject()
+                    .put("uuid", id)
+                    .put("name", user.getFirst_name() + " " + user.getLast_name());
+            if (projects.containsKey(id)) json.put("projects", new JSONArray(projects.get(id)));
+            ret.put(json);
+        }
+        return ret;
+    }
+
+    private static LocalDate[] parseRange(String from, String to) {
+        LocalDate start = ProjectTimelineService.parseQueryDate(from);
+        LocalDate end = ProjectTimelineService.parseQueryDate(to);
+        if (end.isBefore(start)) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from is after to");
+        return new LocalDate[]{start, end};
+    }
+
+    private static int clamp(int size) {
+        return Math.max(1, Math.min(size, MAX_SIZE));
+    }
+}
@@ -0,0 +1,47 @@
+package com.sixhands.controller;
+
+import com.sixhands.domain.Project;
+import com.sixhands.repository.ProjectRepository;
+import com.sixhands.service.TrendingService;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.*;
+
+@RestController
+@RequestMapping("/trending")
+public class TrendingController {
+    private static final int MAX_SIZE = 100;
+
+    @Autowired
+    private TrendingService trendingService;
+    @Autowired
+    private ProjectRepository projectRepo;
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public String getTrending(@RequestParam(defaultValue = "10") int size) {
+        List<TrendingService.Trend> trends = trendingService.getTrending(Math.max(1, Math.min(size, MAX_SIZE)));
+        List<Long> ids = new ArrayList<>(trends.size());
+        for (TrendingService.Trend trend : trends) ids.add(trend.getProjectUUID());
+        Map<Long, Project> projects = new HashMap<>();
+        for (Project project : projectRepo.findAllById(ids)) projects.put(project.getUuid(), project);
+
+        JSONArray ret = new JSONArray();
+        for (TrendingService.Trend trend : trends) {
+            Project project = projects.get(trend.getProjectUUID());
+            //Deleted since it was liked
+            if (project == null) continue;
+            ret.put(new JSONObject()
+                    .put("uuid", project.getUuid())
+                    .put("name", project.getName())
+                    .put("score", trend.getScore()));
+        }
+        return ret.toString();
+    }
+}
@@ -6,6 +6,8 @@ import com.sixhands.domain.User;
 import com.sixhands.repository.ProjectRepository;
 import com.sixhands.repository.UserRepository;
 import com.sixhands.service.ProjectService;
+import com.sixhands.service.ProfileViewService;
+import com.sixhands.service.RecommendationService;
 import com.sixhands.service.SocialAuthService;
 import com.sixhands.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,6 +18,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.security.Principal;
+import java.util.Collections;
 import java.util.Locale;
 
 @Controller
@@ -31,6 +34,10 @@ public class UserController {
     private ProjectRepository projectRepo;
     @Autowired
     private SocialAuthService authService;
+    @Autowired
+    private RecommendationService recommendationService;
+    @Autowired
+    private ProfileViewService profileViewService;
     private Long userId = 0L;
 
     @GetMapping("/me")
@@ -56,6 +63,7 @@ public class UserController {
         } catch (Exception ignored) {
         }
         User finalCurUser = curUser;
+        if (finalCurUser != null) profileViewService.recordView(user.getUuid(), finalCurUser.getUuid());
 
         String currentUserImgPath = finalCurUser.getUser_img();
         if (currentUserImgPath == null || currentUserImgPath.equals("")) {
@@ -77,6 +85,8 @@ public class UserController {
         model.addAttribute("userData", userService.getProfileDtoForUser(user));
         model.addAttribute("canEdit", canEdit);
         model.addAttribute("projects", projectAndExps);
+        model.addAttribute("recommendations", canEdit ? recommendationService.getRecommendations(user) : Collections.emptyList());
+        if (canEdit) model.addAttribute("weeklyViews", profileViewService.getWeeklyViewers(user.getUuid()));
         return edit == 1 ? "edit-user-profile" : "project-not-aproved";
     }
 
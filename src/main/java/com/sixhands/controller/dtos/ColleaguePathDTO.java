@@ -0,0 +1,45 @@
+package com.sixhands.controller.dtos;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.List;
+
+public class ColleaguePathDTO {
+    public ColleaguePathDTO(){}
+    public ColleaguePathDTO(List<JSONObject> users, List<JSONObject> projects) {
+        this.users = users;
+        this.projects = projects;
+    }
+
+    //{uuid, name} of the users along the chain, empty if there is no chain
+    private List<JSONObject> users;
+    //{uuid, name} of the project connecting users[i] and users[i + 1]
+    private List<JSONObject> projects;
+
+    public JSONObject toJSON() {
+        return new JSONObject()
+                .put("found", !users.isEmpty())
+                .put("hops", projects.size())
+                .put("users", new JSONArray(users))
+                .put("projects", new JSONArray(projects));
+    }
+
+    //#region getters/setters
+    public List<JSONObject> getUsers() {
+        return users;
+    }
+
+    public void setUsers(List<JSONObject> users) {
+        this.users = users;
+    }
+
+    public List<JSONObject> getProjects() {
+        return projects;
+    }
+
+    public void setProjects(List<JSONObject> projects) {
+        this.projects = projects;
+    }
+    //#endregion
+}
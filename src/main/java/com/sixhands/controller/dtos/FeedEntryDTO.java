@@ -0,0 +1,98 @@
+package com.sixhands.controller.dtos;
+
+import com.sixhands.event.ProjectActivityEvent;
+import org.json.JSONObject;
+
+import java.util.Date;
+
+public class FeedEntryDTO {
+    public FeedEntryDTO(){}
+    public FeedEntryDTO(ProjectActivityEvent.Type type, Long actorUUID, String actorName, Long projectUUID, String projectName, String message, Date timestamp) {
+        this.type = type;
+        this.actorUUID = actorUUID;
+        this.actorName = actorName;
+        this.projectUUID = projectUUID;
+        this.projectName = projectName;
+        this.message = message;
+        this.timestamp = timestamp;
+    }
+
+    private ProjectActivityEvent.Type type;
+    private Long actorUUID;
+    private String actorName;
+    private Long projectUUID;
+    private String projectName;
+    //Rendered in the reader's locale
+    private String message;
+    private Date timestamp;
+
+    public JSONObject toJSON() {
+        return new JSONObject()
+                .put("type", type.name())
+                .put("actorUUID", actorUUID)
+                .put("actorName", actorName)
+                .put("projectUUID", projectUUID)
+                .put("projectName", projectName == null ? JSONObject.NULL : projectName)
+                .put("message", message)
+                .put("urlPath", "/user/" + actorUUID)
+                .put("timestamp", timestamp.getTime());
+    }
+
+    //#region getters/setters
+    public ProjectActivityEvent.Type getType() {
+        return type;
+    }
+
+    public void setType(ProjectActivityEvent.Type type) {
+        this.type = type;
+    }
+
+    public Long getActorUUID() {
+        return actorUUID;
+    }
+
+    public void setActorUUID(Long actorUUID) {
+        this.actorUUID = actorUUID;
+    }
+
+    public String getActorName() {
+        return actorName;
+    }
+
+    public void setActorName(String actorName) {
+        this.actorName = actorName;
+    }
+
+    public Long getProjectUUID() {
+        return projectUUID;
+    }
+
+    public void setProjectUUID(Long projectUUID) {
+        this.projectUUID = projectUUID;
+    }
+
+    public String getProjectName() {
+        return projectName;
+    }
+
+    public void setProjectName(String projectName) {
+        this.projectName = projectName;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public Date getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Date timestamp) {
+        this.timestamp = timestamp;
+    }
+    //#endregion
+}
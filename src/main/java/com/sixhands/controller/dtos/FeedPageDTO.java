@@ -0,0 +1,56 @@
+package com.sixhands.controller.dtos;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.List;
+
+public class FeedPageDTO {
+    public FeedPageDTO(){}
+    public FeedPageDTO(List<FeedEntryDTO> entries, Long nextBefore, Long nextBeforeId) {
+        this.entries = entries;
+        this.nextBefore = nextBefore;
+        this.nextBeforeId = nextBeforeId;
+    }
+
+    private List<FeedEntryDTO> entries;
+    //Cursor of the next page (timestamp and uuid of the last entry), null on the last page
+    private Long nextBefore;
+    private Long nextBeforeId;
+
+    public JSONObject toJSON() {
+        JSONArray array = new JSONArray();
+        for (FeedEntryDTO entry : entries) array.put(entry.toJSON());
+        return new JSONObject()
+                .put("entries", array)
+                .put("next", nextBefore == null ? JSONObject.NULL : new JSONObject()
+                        .put("before", nextBefore)
+                        .put("beforeId", nextBeforeId));
+    }
+
+    //#region getters/setters
+    public List<FeedEntryDTO> getEntries() {
+        return entries;
+    }
+
+    public void setEntries(List<FeedEntryDTO> entries) {
+        this.entries = entries;
+    }
+
+    public Long getNextBefore() {
+        return nextBefore;
+    }
+
+    public void setNextBefore(Long nextBefore) {
+        this.nextBefore = nextBefore;
+    }
+
+    public Long getNextBeforeId() {
+        return nextBeforeId;
+    }
+
+    public void setNextBeforeId(Long nextBeforeId) {
+        this.nextBeforeId = nextBeforeId;
+    }
+    //#endregion
+}
@@ -0,0 +1,82 @@
+package com.sixhands.controller.dtos;
+
+import org.apache.commons.text.StringEscapeUtils;
+import org.json.JSONObject;
+
+public class ImportIssueDTO {
+    public static final String CSV_HEADER = "row,column,value,issue";
+
+    public enum Issue {
+        invalid_date,
+        invalid_sex,
+        unknown_role,
+        member_without_email,
+        duplicate_import_id,
+        existing_import_id,
+        new_user
+    }
+
+    public ImportIssueDTO(){}
+    public ImportIssueDTO(int row, String column, String value, Issue issue) {
+        this.row = row;
+        this.column = column;
+        this.value = value;
+        this.issue = issue;
+    }
+
+    //1-based, as displayed by spreadsheet editors
+    private int row;
+    private String column;
+    private String value;
+    private Issue issue;
+
+    public String toCSVRow() {
+        return row + "," +
+                StringEscapeUtils.escapeCsv(column) + "," +
+                StringEscapeUtils.escapeCsv(value == null ? "" : value) + "," +
+                issue;
+    }
+
+    public String toNDJSONRow() {
+        return new JSONObject()
+                .put("row", row)
+                .put("column", column)
+                .put("value", value == null ? JSONObject.NULL : value)
+                .put("issue", issue.name())
+                .toString();
+    }
+
+    //#region getters/setters
+    public int getRow() {
+        return row;
+    }
+
+    public void setRow(int row) {
+        this.row = row;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public void setColumn(String column) {
+        this.column = column;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public void setValue(String value) {
+        this.value = value;
+    }
+
+    public Issue getIssue() {
+        return issue;
+    }
+
+    public void setIssue(Issue issue) {
+        this.issue = issue;
+    }
+    //#endregion
+}
@@ -0,0 +1,74 @@
+package com.sixhands.controller.dtos;
+
+import org.json.JSONObject;
+
+import java.util.Date;
+
+//Notification rendered in the reader's locale
+public class NotificationDTO {
+    public NotificationDTO(){}
+    public NotificationDTO(Long uuid, String message, String urlPath, Date timestamp, int count) {
+        this.uuid = uuid;
+        this.message = message;
+        this.urlPath = urlPath;
+        this.timestamp = timestamp;
+        this.count = count;
+    }
+
+    private Long uuid;
+    private String message;
+    private String urlPath;
+    private Date timestamp;
+    private int count;
+
+    public JSONObject toJSON() {
+        return new JSONObject()
+                .put("uuid", uuid)
+                .put("message", message == null ? "" : message)
+                .put("urlPath", urlPath == null ? "#" : urlPath)
+                .put("timestamp", timestamp.getTime())
+                .put("count", count);
+    }
+
+    //#region getters/setters
+    public Long getUuid() {
+        return uuid;
+    }
+
+    public void setUuid(Long uuid) {
+        this.uuid = uuid;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public String getUrlPath() {
+        return urlPath;
+    }
+
+    public void setUrlPath(String urlPath) {
+        this.urlPath = urlPath;
+    }
+
+    public Date getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Date timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+    //#endregion
+}
@@ -3,26 +3,40 @@ package com.sixhands.controller.dtos;
 import com.sixhands.domain.Project;
 import com.sixhands.domain.User;
 import com.sixhands.domain.UserProjectExp;
+import com.sixhands.misc.CSVRowWriter;
 import org.springframework.util.StringUtils;
 
+import java.io.IOException;
 import java.util.*;
-import java.util.stream.Collectors;
 
 public class ProjectDTO {
     private Project project = new Project();
     private UserAndExpDTO member = new UserAndExpDTO();
     private UserAndExpDTO[] members = new UserAndExpDTO[10];
 
-    public CSVProjectDTO toCsvDto(){
-        Map<String, String> projectMap = project.toCSV();
-        List<UserAndExpDTO> membersList = new ArrayList<>(Arrays.asList( members ));
-        if(member!=null&&!StringUtils.isEmpty(member.getUser().getEmail())) membersList.add(member);
-        List<Map<String, String>> memberMaps = membersList.stream()
-                .filter(Objects::nonNull)
-                .map(UserAndExpDTO::toCSV)
-                .collect(Collectors.toList());
-
-        return new CSVProjectDTO(projectMap,memberMaps);
+    //First row holds the project and its first member, following rows - only the remaining members
+    public void writeCSV(CSVRowWriter row) throws IOException {
+        project.writeCSV(row);
+        int projectColumns = row.getColumn();
+        boolean firstRow = true;
+        for (UserAndExpDTO m : members) {
+            if (m == null) continue;
+            if (!firstRow) row.skip(projectColumns);
+            m.writeCSV(row);
+            row.endRow();
+            firstRow = false;
+        }
+        if (member != null && !StringUtils.isEmpty(member.getUser().getEmail())) {
+            if (!firstRow) row.skip(projectColumns);
+            member.writeCSV(row);
+            row.endRow();
+            firstRow = false;
+        }
+        //Keep member columns in the header even if the project has no members, but leave their cells empty
+        if (firstRow) {
+            row.skip(new UserAndExpDTO());
+            row.endRow();
+        }
     }
 
     public void addNewMember(){
@@ -61,41 +75,4 @@ public class ProjectDTO {
         this.member = projectExp;
     }
     //#endregion
-
-    public static class CSVProjectDTO{
-        public CSVProjectDTO(Map<String, String> project, List<Map<String, String>> members) {
-            this.project = project;
-            this.members = members;
-        }
-
-        private Map<String, String> project;
-        private List<Map<String, String>> members;
-
-        public Map<String, String> getProject() {
-            return project;
-        }
-
-        public List<Map<String, String>> getMembers() {
-            return members;
-        }
-
-        @Override
-        public String toString(){
-            return toString(true);
-        }
-        public String toString(boolean addTitles) {
-            List<String> rows = new ArrayList<>();
-            String titles = String.join(",", project.keySet())+","+String.join(",",members.get(0).keySet());
-            String firstRow = String.join(",", project.values())+","+String.join(",",members.get(0).values());
-            if(addTitles) rows.add(titles);
-            rows.add(firstRow);
-            members.subList(1,members.size())
-                    .forEach((m)->{
-                        String projSkip = project.values().stream().map((p)->",").collect(Collectors.joining());
-                        String memValues = String.join(",", m.values() );
-                        rows.add(projSkip + memValues);
-                    });
-            return String.join("\n", rows);
-        }
-    }
 }
@@ -0,0 +1,42 @@
+package com.sixhands.controller.dtos;
+
+import com.sixhands.domain.User;
+import org.json.JSONObject;
+
+public class RecommendationDTO {
+    public RecommendationDTO(){}
+    public RecommendationDTO(User user, int mutual) {
+        this.user = user;
+        this.mutual = mutual;
+    }
+
+    private User user;
+    //Colleagues shared with the viewer
+    private int mutual;
+
+    public JSONObject toJSON() {
+        return new JSONObject()
+                .put("uuid", user.getUuid())
+                .put("name", user.getFirst_name() + " " + user.getLast_name())
+                .put("img", user.getUser_img())
+                .put("mutual", mutual);
+    }
+
+    //#region getters/setters
+    public User getUser() {
+        return user;
+    }
+
+    public void setUser(User user) {
+        this.user = user;
+    }
+
+    public int getMutual() {
+        return mutual;
+    }
+
+    public void setMutual(int mutual) {
+        this.mutual = mutual;
+    }
+    //#endregion
+}
@@ -0,0 +1,47 @@
+package com.sixhands.controller.dtos;
+
+import com.sixhands.domain.SavedSearch;
+import org.json.JSONObject;
+
+public class SavedSearchDTO {
+    public SavedSearchDTO(){}
+    public SavedSearchDTO(SavedSearch search, int matches) {
+        this.search = search;
+        this.matches = matches;
+    }
+
+    private SavedSearch search;
+    //Users matching the search now
+    private int matches;
+
+    public JSONObject toJSON() {
+        return new JSONObject()
+                .put("uuid", search.getUuid())
+                .put("skill", search.getSkill())
+                .put("company", search.getCompany())
+                .put("industry", search.getIndustry())
+                .put("tool", search.getTool())
+                .put("role", search.getRole())
+                .put("name", search.getName())
+                .put("created", search.getCreated().getTime())
+                .put("matches", matches);
+    }
+
+    //#region getters/setters
+    public SavedSearch getSearch() {
+        return search;
+    }
+
+    public void setSearch(SavedSearch search) {
+        this.search = search;
+    }
+
+    public int getMatches() {
+        return matches;
+    }
+
+    public void setMatches(int matches) {
+        this.matches = matches;
+    }
+    //#endregion
+}
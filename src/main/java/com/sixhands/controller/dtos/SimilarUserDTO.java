@@ -0,0 +1,42 @@
+package com.sixhands.controller.dtos;
+
+import com.sixhands.domain.User;
+import org.json.JSONObject;
+
+public class SimilarUserDTO {
+    public SimilarUserDTO(){}
+    public SimilarUserDTO(User user, double similarity) {
+        this.user = user;
+        this.similarity = similarity;
+    }
+
+    private User user;
+    //Estimated Jaccard similarity of the profile terms, 0..1
+    private double similarity;
+
+    public JSONObject toJSON() {
+        return new JSONObject()
+                .put("uuid", user.getUuid())
+                .put("name", user.getFirst_name() + " " + user.getLast_name())
+                .put("img", user.getUser_img())
+                .put("similarity", similarity);
+    }
+
+    //#region getters/setters
+    public User getUser() {
+        return user;
+    }
+
+    public void setUser(User user) {
+        this.user = user;
+    }
+
+    public double getSimilarity() {
+        return similarity;
+    }
+
+    public void setSimilarity(double similarity) {
+        this.similarity = similarity;
+    }
+    //#endregion
+}
@@ -0,0 +1,55 @@
+package com.sixhands.controller.dtos;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.List;
+
+public class TeamDTO {
+    public TeamDTO(){}
+    public TeamDTO(List<JSONObject> members, List<String> uncovered, boolean timedOut) {
+        this.members = members;
+        this.uncovered = uncovered;
+        this.timedOut = timedOut;
+    }
+
+    //{uuid, name, covers} in pick order, covers are the requirements the member added to the team
+    private List<JSONObject> members;
+    //Requirements nobody in the team covers
+    private List<String> uncovered;
+    //The search ran out of its time budget, the team may be bigger or less complete than it could be
+    private boolean timedOut;
+
+    public JSONObject toJSON() {
+        return new JSONObject()
+                .put("members", new JSONArray(members))
+                .put("uncovered", new JSONArray(uncovered))
+                .put("timedOut", timedOut);
+    }
+
+    //#region getters/setters
+    public List<JSONObject> getMembers() {
+        return members;
+    }
+
+    public void setMembers(List<JSONObject> members) {
+        this.members = members;
+    }
+
+    public List<String> getUncovered() {
+        return uncovered;
+    }
+
+    public void setUncovered(List<String> uncovered) {
+        this.uncovered = uncovered;
+    }
+
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    public void setTimedOut(boolean timedOut) {
+        this.timedOut = timedOut;
+    }
+    //#endregion
+}
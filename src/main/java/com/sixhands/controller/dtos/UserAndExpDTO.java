@@ -2,12 +2,8 @@ package com.sixhands.controller.dtos;
 
 import com.sixhands.domain.User;
 import com.sixhands.domain.UserProjectExp;
-import com.sixhands.misc.CSVMap;
+import com.sixhands.misc.CSVRowWriter;
 import com.sixhands.misc.CSVSerializable;
-import org.apache.commons.collections4.map.LinkedMap;
-
-import java.util.HashMap;
-import java.util.Map;
 
 public class UserAndExpDTO implements CSVSerializable {
     private boolean added = false;
@@ -20,11 +16,9 @@ public class UserAndExpDTO implements CSVSerializable {
     }
 
     @Override
-    public Map<String, String> toCSV() {
-        return new CSVMap()
-                .putcAll(user.toCSV(),false)
-                .putcAll(userExp.toCSV(),false)
-                .getMap();
+    public void writeCSV(CSVRowWriter row) {
+        user.writeCSV(row);
+        userExp.writeCSV(row);
     }
 
     //#region getters/setters
@@ -1,6 +1,7 @@
 package com.sixhands.controller.dtos;
 
 import com.sixhands.domain.Project;
+import com.sixhands.domain.Tag;
 import com.sixhands.domain.User;
 import com.sixhands.domain.UserProjectExp;
 import org.springframework.util.StringUtils;
@@ -19,9 +20,9 @@ public class UserProfileDTO {
     }
 
     private User user;
-    // ? COMMA-SEPARATED
+    //COMMA-SEPARATED, one property per tag
     private List<UserProfilePropertyDTO> skills = new ArrayList<>();
-    // ? COMMA-SEPARATED
+    //COMMA-SEPARATED, one property per tag
     private List<UserProfilePropertyDTO> tools = new ArrayList<>();
 
     private List<UserProfilePropertyDTO> companies = new ArrayList<>();
@@ -42,8 +43,8 @@ public class UserProfileDTO {
                             .count() > 1
             ).collect(Collectors.toList());
     }
-    public UserProfileDTO addSkill(String property, UserProjectExp projectExp, Project project){ return addPropertyFromString(property,projectExp,project,skills); }
-    public UserProfileDTO addTool(String property, UserProjectExp projectExp, Project project){ return addPropertyFromString(property,projectExp,project,tools); }
+    public UserProfileDTO addSkills(List<Tag> tags, UserProjectExp projectExp, Project project){ return addTags(tags,projectExp,project,skills); }
+    public UserProfileDTO addTools(List<Tag> tags, UserProjectExp projectExp, Project project){ return addTags(tags,projectExp,project,tools); }
     public UserProfileDTO addCompany(String property, UserProjectExp projectExp, Project project){ return addPropertyFromString(property,projectExp,project,companies); }
     public UserProfileDTO addIndustry(String property, UserProjectExp projectExp, Project project){ return addPropertyFromString(property,projectExp,project,industries); }
     public UserProfileDTO addRole(String property, UserProjectExp projectExp, Project project){ return addPropertyFromString(property,projectExp,project,roles); }
@@ -51,23 +52,28 @@ public class UserProfileDTO {
         if(projectExp == null && project == null) Logger.getGlobal().warning("Both projectExp and project is null");
         if(StringUtils.isEmpty(property) || (projectExp == null && project == null)) return this;
 
-        //Enables splitting properties with a comma
-        boolean splitMode = false;
-        Arrays.stream(splitMode ? property.split(",") : new String[]{property})
-                .map(String::trim)
-                .filter((s)->!StringUtils.isEmpty(s)&&s.length()>1)
-                .map((s)->s.substring(0,1).toUpperCase()+s.substring(1))
-                .forEach((s)->addProperty(
-                        projectExp == null ?
-                            new UserProfilePropertyDTO(property,project) :
-                            new UserProfilePropertyDTO(property,projectExp,project),
-                        to)
-                );
+        if(property.trim().length()<=1) return this;
+        addProperty(
+                projectExp == null ?
+                    new UserProfilePropertyDTO(property,project) :
+                    new UserProfilePropertyDTO(property,projectExp,project),
+                to);
+        return this;
+    }
+    //Skills and tools are comma-separated, TagDictionary splits and interns them so they are grouped by tag id
+    private UserProfileDTO addTags(List<Tag> tags, UserProjectExp projectExp, Project project, List<UserProfilePropertyDTO> to){
+        for (Tag tag : tags) {
+            UserProfilePropertyDTO prop = new UserProfilePropertyDTO(tag.getLabel(),projectExp,project);
+            prop.setTagId(tag.getUuid());
+            addProperty(prop,to);
+        }
         return this;
     }
     private void addProperty(UserProfilePropertyDTO prop, List<UserProfilePropertyDTO> to){
         Optional<UserProfilePropertyDTO> duplicateProp = to.stream()
-                .filter((dupProp)->dupProp.property.equalsIgnoreCase(prop.property))
+                .filter((dupProp)->prop.tagId != null ?
+                        prop.tagId.equals(dupProp.tagId) :
+                        dupProp.property.equalsIgnoreCase(prop.property))
                 .findFirst();
         if(duplicateProp.isPresent()){
             duplicateProp.get().projectExps
@@ -178,6 +184,8 @@ public class UserProfileDTO {
         }
 
         private String property;
+        //Tag of skills and tools, null for other properties
+        private Long tagId;
         //for skill, tool, industry
         private List<UserProjectExp> projectExps = new ArrayList<>();
         //for company
@@ -192,6 +200,14 @@ public class UserProfileDTO {
             this.property = property;
         }
 
+        public Long getTagId() {
+            return tagId;
+        }
+
+        public void setTagId(Long tagId) {
+            this.tagId = tagId;
+        }
+
         public List<UserProjectExp> getProjectExps() {
             return projectExps;
         }
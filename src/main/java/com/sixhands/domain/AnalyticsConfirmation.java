@@ -0,0 +1,71 @@
+package com.sixhands.domain;
+
+import javax.persistence.*;
+
+/**
+ * Project members and confirmed members of one (project industry, exp role) pair,
+ * empty strings stand for a missing industry or role
+ */
+@Entity
+@Table(name = "analytics_confirmation", uniqueConstraints = @UniqueConstraint(columnNames = {"industry", "role"}))
+public class AnalyticsConfirmation {
+    public AnalyticsConfirmation() {
+    }
+
+    //Auto increment, rows are upserted with plain SQL
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long uuid;
+
+    private String industry;
+    private String role;
+    private long members;
+    private long confirmed;
+
+    //Confirmed share of the members, 0..1
+    public double getRate() {
+        return members == 0 ? 0 : Math.min(1, (double) confirmed / members);
+    }
+
+    //#region getters/setters
+    public Long getUuid() {
+        return uuid;
+    }
+
+    public void setUuid(Long uuid) {
+        this.uuid = uuid;
+    }
+
+    public String getIndustry() {
+        return industry;
+    }
+
+    public void setIndustry(String industry) {
+        this.industry = industry;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public void setRole(String role) {
+        this.role = role;
+    }
+
+    public long getMembers() {
+        return members;
+    }
+
+    public void setMembers(long members) {
+        this.members = members;
+    }
+
+    public long getConfirmed() {
+        return confirmed;
+    }
+
+    public void setConfirmed(long confirmed) {
+        this.confirmed = confirmed;
+    }
+    //#endregion
+}
@@ -0,0 +1,66 @@
+package com.sixhands.domain;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * Count of one metric on one day, see {@link com.sixhands.service.AnalyticsService}
+ */
+@Entity
+@Table(name = "analytics_daily", uniqueConstraints = @UniqueConstraint(columnNames = {"day", "metric"}))
+public class AnalyticsDaily {
+    public enum Metric {
+        REGISTRATIONS,
+        PROJECTS,
+        CONFIRMATIONS,
+        LIKES
+    }
+
+    public AnalyticsDaily() {
+    }
+
+    //Auto increment, rows are upserted with plain SQL
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long uuid;
+
+    @Temporal(TemporalType.DATE)
+    private Date day;
+    @Enumerated(EnumType.STRING)
+    private Metric metric;
+    private long count;
+
+    //#region getters/setters
+    public Long getUuid() {
+        return uuid;
+    }
+
+    public void setUuid(Long uuid) {
+        this.uuid = uuid;
+    }
+
+    public Date getDay() {
+        return day;
+    }
+
+    public void setDay(Date day) {
+        this.day = day;
+    }
+
+    public Metric getMetric() {
+        return metric;
+    }
+
+    public void setMetric(Metric metric) {
+        this.metric = metric;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+    //#endregion
+}
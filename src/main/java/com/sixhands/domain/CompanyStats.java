@@ -0,0 +1,114 @@
+package com.sixhands.domain;
+
+import org.json.JSONArray;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * Aggregates of one company over the projects that name it, maintained by
+ * {@link com.sixhands.service.CompanyDirectoryService} so company pages read a single row
+ */
+@Entity
+@Table(name = "company_stats", indexes = @Index(columnList = "memberCount"))
+public class CompanyStats {
+    public CompanyStats() {
+    }
+
+    public CompanyStats(String name) {
+        this.name = name;
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private Long uuid;
+
+    //Normalized Project.company: lower case with collapsed whitespace
+    @Column(unique = true)
+    private String name;
+    //The most common spelling over the projects naming the company
+    private String label;
+    //Distinct users with an exp on one of the projects
+    private int memberCount;
+    private int projectCount;
+    //JSON arrays of {"value", "count"}, most frequent first
+    @Lob
+    private String topRoles;
+    @Lob
+    private String topSkills;
+    private Date updated = new Date();
+
+    public JSONArray topRolesJSON() {
+        return topRoles == null ? new JSONArray() : new JSONArray(topRoles);
+    }
+
+    public JSONArray topSkillsJSON() {
+        return topSkills == null ? new JSONArray() : new JSONArray(topSkills);
+    }
+
+    //#region getters/setters
+    public Long getUuid() {
+        return uuid;
+    }
+
+    public void setUuid(Long uuid) {
+        this.uuid = uuid;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public void setLabel(String label) {
+        this.label = label;
+    }
+
+    public int getMemberCount() {
+        return memberCount;
+    }
+
+    public void setMemberCount(int memberCount) {
+        this.memberCount = memberCount;
+    }
+
+    public int getProjectCount() {
+        return projectCount;
+    }
+
+    public void setProjectCount(int projectCount) {
+        this.projectCount = projectCount;
+    }
+
+    public String getTopRoles() {
+        return topRoles;
+    }
+
+    public void setTopRoles(String topRoles) {
+        this.topRoles = topRoles;
+    }
+
+    public String getTopSkills() {
+        return topSkills;
+    }
+
+    public void setTopSkills(String topSkills) {
+        this.topSkills = topSkills;
+    }
+
+    public Date getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(Date updated) {
+        this.updated = updated;
+    }
+    //#endregion
+}
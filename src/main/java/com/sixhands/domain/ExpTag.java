@@ -0,0 +1,72 @@
+package com.sixhands.domain;
+
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import javax.persistence.*;
+
+/**
+ * A {@link Tag} of a {@link UserProjectExp}, the exp's user is copied so users can be found by tag without a join
+ */
+@Entity
+@Table(name = "user_project_exp_tag",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"expUUID", "tagUUID"}),
+        indexes = {@Index(columnList = "tagUUID,userUUID"), @Index(columnList = "userUUID")})
+public class ExpTag {
+    public ExpTag() {
+    }
+
+    public ExpTag(Long expUUID, Long userUUID, Long tagUUID) {
+        this.expUUID = expUUID;
+        this.userUUID = userUUID;
+        this.tagUUID = tagUUID;
+    }
+
+    //Same as Notification, exps are tagged many rows at once
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO, generator = "exp_tag_ids")
+    @GenericGenerator(name = "exp_tag_ids", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator", parameters = {
+            @Parameter(name = "sequence_name", value = "hibernate_sequence"),
+            @Parameter(name = "increment_size", value = "50"),
+            @Parameter(name = "optimizer", value = "pooled-lo")
+    })
+    private Long uuid;
+
+    private Long expUUID;
+    private Long userUUID;
+    private Long tagUUID;
+
+    //#region getters/setters
+    public Long getUuid() {
+        return uuid;
+    }
+
+    public void setUuid(Long uuid) {
+        this.uuid = uuid;
+    }
+
+    public Long getExpUUID() {
+        return expUUID;
+    }
+
+    public void setExpUUID(Long expUUID) {
+        this.expUUID = expUUID;
+    }
+
+    public Long getUserUUID() {
+        return userUUID;
+    }
+
+    public void setUserUUID(Long userUUID) {
+        this.userUUID = userUUID;
+    }
+
+    public Long getTagUUID() {
+        return tagUUID;
+    }
+
+    public void setTagUUID(Long tagUUID) {
+        this.tagUUID = tagUUID;
+    }
+    //#endregion
+}
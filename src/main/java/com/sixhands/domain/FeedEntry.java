@@ -0,0 +1,109 @@
+package com.sixhands.domain;
+
+import com.sixhands.event.ProjectActivityEvent;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * One activity in a user's home feed timeline.
+ * Activities of users with very many colleagues are stored once with {@code broadcast} set and no owner,
+ * readers merge them in (fan-out-on-read).
+ */
+@Entity
+@Table(name = "feed_entry", indexes = {
+        @Index(columnList = "ownerUUID,timestamp,uuid"),
+        @Index(columnList = "broadcast,actorUUID,timestamp,uuid")
+})
+public class FeedEntry {
+    public FeedEntry() {
+    }
+
+    public FeedEntry(Long ownerUUID, ProjectActivityEvent event) {
+        this.ownerUUID = ownerUUID;
+        this.broadcast = ownerUUID == null;
+        this.type = event.getType();
+        this.actorUUID = event.getActorUUID();
+        this.projectUUID = event.getProjectUUID();
+        this.timestamp = event.getTimestamp();
+    }
+
+    //Same as Notification, fan-out writes many rows at once
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO, generator = "feed_ids")
+    @GenericGenerator(name = "feed_ids", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator", parameters = {
+            @Parameter(name = "sequence_name", value = "hibernate_sequence"),
+            @Parameter(name = "increment_size", value = "50"),
+            @Parameter(name = "optimizer", value = "pooled-lo")
+    })
+    private Long uuid;
+
+    private Long ownerUUID;
+    private boolean broadcast = false;
+
+    @Enumerated(EnumType.STRING)
+    private ProjectActivityEvent.Type type;
+    private Long actorUUID;
+    private Long projectUUID;
+    private Date timestamp;
+
+    //#region getters/setters
+    public Long getUuid() {
+        return uuid;
+    }
+
+    public void setUuid(Long uuid) {
+        this.uuid = uuid;
+    }
+
+    public Long getOwnerUUID() {
+        return ownerUUID;
+    }
+
+    public void setOwnerUUID(Long ownerUUID) {
+        this.ownerUUID = ownerUUID;
+    }
+
+    public boolean isBroadcast() {
+        return broadcast;
+    }
+
+    public void setBroadcast(boolean broadcast) {
+        this.broadcast = broadcast;
+    }
+
+    public ProjectActivityEvent.Type getType() {
+        return type;
+    }
+
+    public void setType(ProjectActivityEvent.Type type) {
+        this.type = type;
+    }
+
+    public Long getActorUUID() {
+        return actorUUID;
+    }
+
+    public void setActorUUID(Long actorUUID) {
+        this.actorUUID = actorUUID;
+    }
+
+    public Long getProjectUUID() {
+        return projectUUID;
+    }
+
+    public void setProjectUUID(Long projectUUID) {
+        this.projectUUID = projectUUID;
+    }
+
+    public Date getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Date timestamp) {
+        this.timestamp = timestamp;
+    }
+    //#endregion
+}
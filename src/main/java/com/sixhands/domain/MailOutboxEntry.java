@@ -0,0 +1,195 @@
+package com.sixhands.domain;
+
+import org.hibernate.annotations.CreationTimestamp;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * Mail that is waiting to be sent by {@link com.sixhands.service.MailOutboxWorker}.
+ * Rows are written inside the transaction of the request that produced the mail, so they survive restarts.
+ */
+@Entity
+@Table(name = "mail_outbox", indexes = {@Index(columnList = "status,nextAttempt"), @Index(columnList = "status,sent")})
+public class MailOutboxEntry {
+    public enum Status {
+        PENDING,
+        //Claimed by a worker
+        SENDING,
+        SENT,
+        //Gave up after max attempts
+        DEAD
+    }
+
+    //Auto increment, rows are enqueued with plain SQL
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long uuid;
+
+    //Same mail is never enqueued twice
+    @Column(unique = true, nullable = false)
+    private String idempotencyKey;
+
+    private String emailTo;
+    private String subject;
+    @Lob
+    private String text;
+    //Optional alternative part, sent as multipart/alternative together with the text
+    @Lob
+    private String html;
+
+    @Enumerated(EnumType.STRING)
+    private Status status = Status.PENDING;
+    private int attempts = 0;
+    private Date nextAttempt = new Date();
+    private Date claimed;
+    @Column(length = 1000)
+    private String lastError;
+    @CreationTimestamp
+    private Date created;
+    private Date sent;
+
+    public MailOutboxEntry() {
+    }
+
+    public MailOutboxEntry(String idempotencyKey, String emailTo, String subject, String text) {
+        this(idempotencyKey, emailTo, subject, text, null);
+    }
+
+    public MailOutboxEntry(String idempotencyKey, String emailTo, String subject, String text, String html) {
+        this.idempotencyKey = idempotencyKey;
+        this.emailTo = emailTo;
+        this.subject = subject;
+        this.text = text;
+        this.html = html;
+    }
+
+    public MailOutboxEntry markSent() {
+        status = Status.SENT;
+        sent = new Date();
+        lastError = null;
+        return this;
+    }
+
+    /**
+     * Schedules a retry with exponential backoff, or dead-letters the mail when out of attempts
+     */
+    public MailOutboxEntry markFailed(String error, int maxAttempts, long backoffMs, long maxBackoffMs) {
+        attempts++;
+        lastError = error == null ? null : error.substring(0, Math.min(error.length(), 1000));
+        if (attempts >= maxAttempts) {
+            status = Status.DEAD;
+            return this;
+        }
+        long delay = Math.min(maxBackoffMs, backoffMs << Math.min(attempts - 1, 20));
+        status = Status.PENDING;
+        nextAttempt = new Date(System.currentTimeMillis() + delay);
+        return this;
+    }
+
+    //#region getters/setters
+    public Long getUuid() {
+        return uuid;
+    }
+
+    public void setUuid(Long uuid) {
+        this.uuid = uuid;
+    }
+
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    public String getEmailTo() {
+        return emailTo;
+    }
+
+    public void setEmailTo(String emailTo) {
+        this.emailTo = emailTo;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public void setSubject(String subject) {
+        this.subject = subject;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public void setText(String text) {
+        this.text = text;
+    }
+
+    public String getHtml() {
+        return html;
+    }
+
+    public void setHtml(String html) {
+        this.html = html;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public Date getNextAttempt() {
+        return nextAttempt;
+    }
+
+    public void setNextAttempt(Date nextAttempt) {
+        this.nextAttempt = nextAttempt;
+    }
+
+    public Date getClaimed() {
+        return claimed;
+    }
+
+    public void setClaimed(Date claimed) {
+        this.claimed = claimed;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public Date getCreated() {
+        return created;
+    }
+
+    public void setCreated(Date created) {
+        this.created = created;
+    }
+
+    public Date getSent() {
+        return sent;
+    }
+
+    public void setSent(Date sent) {
+        this.sent = sent;
+    }
+    //#endregion
+}
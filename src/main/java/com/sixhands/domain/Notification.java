@@ -1,61 +1,85 @@
 package com.sixhands.domain;
 
 import com.sixhands.misc.GenericUtils;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
 import java.util.Date;
-import java.util.Locale;
-import java.util.function.Function;
 
 @Entity
+@Table(indexes = @Index(columnList = "userUUID,timestamp"))
 public class Notification {
-    private Notification() {
+    public enum Type {
+        PROJECT_CHANGE,
+        PROJECT_CONFIRM,
+        PROJECT_INVITE,
+        SAVED_SEARCH_MATCH
     }
 
-    /*private Notification(Long userId, String messageRU, String messageEN, String urlPath) {
-        this.messageRU = messageRU;
-        this.messageEN = messageEN;
-        this.userUUID = userId;
-        this.urlPath = urlPath;
-    }*/
-
-    private Notification(Long userId, String messageRU, String messageEN, String message, String urlPath) {
-        this.messageRU = messageRU;
-        this.messageEN = messageEN;
-        this.message = message;
-        this.userUUID = userId;
-        this.urlPath = urlPath;
+    private Notification() {
     }
 
+    //Takes ids from the shared hibernate_sequence in blocks of 50, so a batch of notifications doesn't
+    //cost a sequence round-trip per row
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.AUTO, generator = "notification_ids")
+    @GenericGenerator(name = "notification_ids", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator", parameters = {
+            @Parameter(name = "sequence_name", value = "hibernate_sequence"),
+            @Parameter(name = "increment_size", value = "50"),
+            @Parameter(name = "optimizer", value = "pooled-lo")
+    })
     private Long uuid;
 
     private Long userUUID;
 
-    private String messageRU;
-    private String messageEN;
+    //Notifications are rendered when read, in the reader's locale, from type + actor + project
+    @Enumerated(EnumType.STRING)
+    private Type type;
+    private Long actorUUID;
+    private Long projectUUID;
 
+    //Preformatted text and link of notifications stored before they were rendered on read
     private String message;
-
     private String urlPath;
-    private Date timestamp = new Date();
-
-/*    private Notification setDataFromTemplates(String urlPath, String ruTemplate, String enTemplate, Object... formatArgs) {
-        this.urlPath = urlPath;
 
-        messageEN = String.format(enTemplate, formatArgs);
-        messageRU = String.format(ruTemplate, formatArgs);
+    private Date timestamp = new Date();
+    //Amount of notifications merged into this one
+    private int count = 1;
 
+    private Notification about(Type type, Project project, User actor) {
+        this.type = type;
+        this.projectUUID = project.getUuid();
+        this.actorUUID = actor.getUuid();
         return this;
-    }*/
+    }
 
-    private Notification setDataFromTemplates(String urlPath, String template, Object... formatArgs) {
-        this.urlPath = urlPath;
-        message = String.format(template, formatArgs);
+    /**
+     * Notifications with the same key can be merged into one, null if this one can't
+     */
+    public String coalesceKey() {
+        if (type == null || projectUUID == null) return null;
+        return userUUID + ":" + projectUUID + ":" + type;
+    }
+
+    /**
+     * Merges a newer notification with the same {@link #coalesceKey()} into this one
+     */
+    public Notification coalesce(Notification newer) {
+        count += newer.count;
+        if (newer.timestamp.after(timestamp)) {
+            timestamp = newer.timestamp;
+            actorUUID = newer.actorUUID;
+            message = newer.message;
+            urlPath = newer.urlPath;
+        }
         return this;
     }
 
@@ -65,109 +89,27 @@ public class Notification {
 
     public static class NotificationBuilder {
         private Notification notification = new Notification();
-        private Function<User, String> getDisplayUsername = (u) -> u.getFirst_name() + " " + u.getLast_name();
 
         public NotificationBuilder(Long userId) {
             notification.setUserUUID(userId);
         }
 
-        private boolean isEngLocale(Locale locale) {
-            return locale.getDisplayLanguage().equals("английский");
-        }
-
-        public Notification buildProjectChangeLocaleSensitive(Project project, User changeByUser, Locale locale) {
-            if (isEngLocale(locale)) {
-                return notification.setDataFromTemplates(
-                        "/user/" + changeByUser.getUuid(),
-                        MessageTemplates.PROJECT_CHANGE_EN,
-                        getDisplayUsername.apply(changeByUser),
-                        project.getName()
-                );
-            } else {
-                return notification.setDataFromTemplates(
-                        "/user/" + changeByUser.getUuid(),
-                        MessageTemplates.PROJECT_CHANGE_RU,
-                        getDisplayUsername.apply(changeByUser),
-                        project.getName()
-                );
-            }
-        }
-
-        public Notification buildProjectConfirmLocaleSensitive(Project project, User confirmByUser, Locale locale) {
-            if (isEngLocale(locale)) {
-                return notification.setDataFromTemplates(
-                        "/user/" + confirmByUser.getUuid(),
-                        MessageTemplates.PROJECT_CONFIRM_EN,
-                        getDisplayUsername.apply(confirmByUser),
-                        project.getName()
-                );
-            } else {
-                return notification.setDataFromTemplates(
-                        "/user/" + confirmByUser.getUuid(),
-                        MessageTemplates.PROJECT_CONFIRM_RU,
-                        getDisplayUsername.apply(confirmByUser),
-                        project.getName()
-                );
-            }
-        }
-
-        public Notification buildProjectInviteLocaleSensitive(Project project, User projectCreator, Locale locale) {
-            if (isEngLocale(locale)) {
-                return notification.setDataFromTemplates(
-                        "/user/me",
-                        MessageTemplates.PROJECT_INVITE_EN,
-                        getDisplayUsername.apply(projectCreator),
-                        project.getName()
-                );
-            } else {
-                return notification.setDataFromTemplates(
-                        "/user/me",
-                        MessageTemplates.PROJECT_INVITE_RU,
-                        getDisplayUsername.apply(projectCreator),
-                        project.getName()
-                );
-            }
-        }
-
         public Notification buildProjectChange(Project project, User changeByUser) {
-            return notification.setDataFromTemplates(
-                    "/user/" + changeByUser.getUuid(),
-                    MessageTemplates.PROJECT_CHANGE_RU,
-                    MessageTemplates.PROJECT_CHANGE_EN,
-                    getDisplayUsername.apply(changeByUser),
-                    project.getName()
-            );
+            return notification.about(Type.PROJECT_CHANGE, project, changeByUser);
         }
 
         public Notification buildProjectConfirm(Project project, User confirmByUser) {
-            return notification.setDataFromTemplates(
-                    "/user/" + confirmByUser.getUuid(),
-                    MessageTemplates.PROJECT_CONFIRM_RU,
-                    MessageTemplates.PROJECT_CONFIRM_EN,
-                    getDisplayUsername.apply(confirmByUser),
-                    project.getName()
-            );
+            return notification.about(Type.PROJECT_CONFIRM, project, confirmByUser);
         }
 
         public Notification buildProjectInvite(Project project, User projectCreator) {
-            return notification.setDataFromTemplates(
-                    "/user/me",
-                    MessageTemplates.PROJECT_INVITE_RU,
-                    MessageTemplates.PROJECT_INVITE_EN,
-                    getDisplayUsername.apply(projectCreator),
-                    project.getName()
-            );
+            return notification.about(Type.PROJECT_INVITE, project, projectCreator);
         }
 
-        private static class MessageTemplates {
-            public static final String PROJECT_CHANGE_RU = "%s внес изменения в проект '%s'";
-            public static final String PROJECT_CHANGE_EN = "%s has made some changes in the '%s' project";
-
-            public static final String PROJECT_CONFIRM_RU = "%s подтвердил участие в проекте '%s'";
-            public static final String PROJECT_CONFIRM_EN = "%s confirmed role in project '%s'";
-
-            public static final String PROJECT_INVITE_RU = "%s пригласил вас в качестве участника в проекте '%s'";
-            public static final String PROJECT_INVITE_EN = "%s sent you a request to confirm a project";
+        public Notification buildSavedSearchMatch(Long matchedUserId) {
+            notification.type = Type.SAVED_SEARCH_MATCH;
+            notification.actorUUID = matchedUserId;
+            return notification;
         }
     }
 
@@ -188,14 +130,6 @@ public class Notification {
         this.message = message;
     }
 
-    public String getMessageRU() {
-        return messageRU;
-    }
-
-    public void setMessageRU(String messageRU) {
-        this.messageRU = messageRU;
-    }
-
     public String getUrlPath() {
         return urlPath;
     }
@@ -212,14 +146,6 @@ public class Notification {
         this.userUUID = userUUID;
     }
 
-    public String getMessageEN() {
-        return messageEN;
-    }
-
-    public void setMessageEN(String messageEN) {
-        this.messageEN = messageEN;
-    }
-
     public Date getTimestamp() {
         return timestamp;
     }
@@ -227,5 +153,37 @@ public class Notification {
     public void setTimestamp(Date timestamp) {
         this.timestamp = timestamp;
     }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public Long getActorUUID() {
+        return actorUUID;
+    }
+
+    public void setActorUUID(Long actorUUID) {
+        this.actorUUID = actorUUID;
+    }
+
+    public Long getProjectUUID() {
+        return projectUUID;
+    }
+
+    public void setProjectUUID(Long projectUUID) {
+        this.projectUUID = projectUUID;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
     //#endregion
 }
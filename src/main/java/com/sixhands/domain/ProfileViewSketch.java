@@ -0,0 +1,63 @@
+package com.sixhands.domain;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * Unique viewers of a user's profile on one day, as {@link com.sixhands.misc.HyperLogLog} registers
+ */
+@Entity
+@Table(name = "profile_view_sketch", uniqueConstraints = @UniqueConstraint(columnNames = {"userUUID", "day"}))
+public class ProfileViewSketch {
+    public ProfileViewSketch() {
+    }
+
+    public ProfileViewSketch(Long userUUID, Date day) {
+        this.userUUID = userUUID;
+        this.day = day;
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private Long uuid;
+
+    private Long userUUID;
+    @Temporal(TemporalType.DATE)
+    private Date day;
+    @Lob
+    private byte[] registers;
+
+    //#region getters/setters
+    public Long getUuid() {
+        return uuid;
+    }
+
+    public void setUuid(Long uuid) {
+        this.uuid = uuid;
+    }
+
+    public Long getUserUUID() {
+        return userUUID;
+    }
+
+    public void setUserUUID(Long userUUID) {
+        this.userUUID = userUUID;
+    }
+
+    public Date getDay() {
+        return day;
+    }
+
+    public void setDay(Date day) {
+        this.day = day;
+    }
+
+    public byte[] getRegisters() {
+        return registers;
+    }
+
+    public void setRegisters(byte[] registers) {
+        this.registers = registers;
+    }
+    //#endregion
+}
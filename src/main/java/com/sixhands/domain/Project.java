@@ -1,7 +1,7 @@
 package com.sixhands.domain;
 
+import com.sixhands.misc.CSVRowWriter;
 import com.sixhands.misc.CSVSerializable;
-import com.sixhands.misc.CSVMap;
 import com.sixhands.misc.GenericUtils;
 import org.hibernate.annotations.CreationTimestamp;
 
@@ -69,17 +69,15 @@ public class Project implements CSVSerializable {
     }
 
     @Override
-    public Map<String, String> toCSV() {
-        return new CSVMap()
-                .putc("proj_id", uuid)
-                .putc("proj_name", name)
-                .putc("proj_desc", description)
-                .putc("proj_confirmed", confirmed)
-                .putc("proj_industry", industry)
-                .putc("proj_start_date", start_date)
-                .putc("proj_end_date", end_date)
-                .putc("proj_link", link)
-                .getMap();
+    public void writeCSV(CSVRowWriter row) {
+        row.field("proj_id", uuid)
+                .field("proj_name", name)
+                .field("proj_desc", description)
+                .field("proj_confirmed", confirmed)
+                .field("proj_industry", industry)
+                .field("proj_start_date", start_date)
+                .field("proj_end_date", end_date)
+                .field("proj_link", link);
     }
 
     //#region getters/setters
@@ -0,0 +1,114 @@
+package com.sixhands.domain;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * Filters of a user search, the owner is notified when a user starts to match them
+ */
+@Entity
+@Table(name = "saved_search", indexes = @Index(columnList = "ownerUUID"))
+public class SavedSearch {
+    public SavedSearch() {
+    }
+
+    public SavedSearch(Long ownerUUID, String skill, String company, String industry, String tool, String role, String name) {
+        this.ownerUUID = ownerUUID;
+        this.skill = skill;
+        this.company = company;
+        this.industry = industry;
+        this.tool = tool;
+        this.role = role;
+        this.name = name;
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private Long uuid;
+
+    private Long ownerUUID;
+
+    //Same filters as /search, null if not set
+    private String skill;
+    private String company;
+    private String industry;
+    private String tool;
+    private String role;
+    private String name;
+
+    private Date created = new Date();
+
+    //#region getters/setters
+    public Long getUuid() {
+        return uuid;
+    }
+
+    public void setUuid(Long uuid) {
+        this.uuid = uuid;
+    }
+
+    public Long getOwnerUUID() {
+        return ownerUUID;
+    }
+
+    public void setOwnerUUID(Long ownerUUID) {
+        this.ownerUUID = ownerUUID;
+    }
+
+    public String getSkill() {
+        return skill;
+    }
+
+    public void setSkill(String skill) {
+        this.skill = skill;
+    }
+
+    public String getCompany() {
+        return company;
+    }
+
+    public void setCompany(String company) {
+        this.company = company;
+    }
+
+    public String getIndustry() {
+        return industry;
+    }
+
+    public void setIndustry(String industry) {
+        this.industry = industry;
+    }
+
+    public String getTool() {
+        return tool;
+    }
+
+    public void setTool(String tool) {
+        this.tool = tool;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public void setRole(String role) {
+        this.role = role;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Date getCreated() {
+        return created;
+    }
+
+    public void setCreated(Date created) {
+        this.created = created;
+    }
+    //#endregion
+}
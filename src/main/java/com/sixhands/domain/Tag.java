@@ -0,0 +1,69 @@
+package com.sixhands.domain;
+
+import javax.persistence.*;
+
+/**
+ * One normalized skill or tool, exps refer to it through {@link ExpTag}s
+ */
+@Entity
+@Table(name = "tag", uniqueConstraints = @UniqueConstraint(columnNames = {"kind", "name"}))
+public class Tag {
+    public enum Kind {
+        SKILL,
+        TOOL
+    }
+
+    public Tag() {
+    }
+
+    public Tag(Kind kind, String name, String label) {
+        this.kind = kind;
+        this.name = name;
+        this.label = label;
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.AUTO)
+    private Long uuid;
+
+    @Enumerated(EnumType.STRING)
+    private Kind kind;
+    //Lower case with collapsed whitespace, what tags are matched by
+    private String name;
+    //How it was written the first time, shown on profiles
+    private String label;
+
+    //#region getters/setters
+    public Long getUuid() {
+        return uuid;
+    }
+
+    public void setUuid(Long uuid) {
+        this.uuid = uuid;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public void setKind(Kind kind) {
+        this.kind = kind;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public void setLabel(String label) {
+        this.label = label;
+    }
+    //#endregion
+}
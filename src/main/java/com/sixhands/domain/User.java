@@ -1,7 +1,8 @@
 package com.sixhands.domain;
 
-import com.sixhands.misc.CSVMap;
+import com.sixhands.misc.CSVRowWriter;
 import com.sixhands.misc.CSVSerializable;
+import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.validator.constraints.UniqueElements;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.AuthorityUtils;
@@ -13,7 +14,6 @@ import javax.validation.constraints.Size;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashSet;
-import java.util.Map;
 
 @Entity
 @Table(name = "user")
@@ -44,7 +44,9 @@ public class User implements UserDetails, CSVSerializable {
     private String city = "";
     private String user_img = "https://i.imgur.com/ahcplHm.png";
     private String social_networks;
-    //TODO: ?Set on registration/persist
+    //Set when the user is registered, never overwritten by later saves
+    @CreationTimestamp
+    @Column(updatable = false)
     private Date creation_timestamp;
     private String role;
 
@@ -57,20 +59,18 @@ public class User implements UserDetails, CSVSerializable {
     private String activationCode;
 
     @Override
-    public Map<String, String> toCSV() {
-        return new CSVMap()
-                .putc("user_id",uuid)
-                .putc("user_email",email)
-                .putc("user_verified",activationCode==null)
-                .putc("user_first_name",first_name)
-                .putc("user_last_name",last_name)
-                .putc("user_sex",sex)
-                .putc("user_date_of_birth",date_of_birth)
-                .putc("user_about_me",about_user)
-                //.putc("user_registration_date",creation_timestamp == null ? "null" : GenericUtils.formatDateToTHStr(creation_timestamp))
-                .putc("user_country",country)
-                .putc("user_city",city)
-                .getMap();
+    public void writeCSV(CSVRowWriter row) {
+        row.field("user_id",uuid)
+                .field("user_email",email)
+                .field("user_verified",activationCode==null)
+                .field("user_first_name",first_name)
+                .field("user_last_name",last_name)
+                .field("user_sex",sex)
+                .field("user_date_of_birth",date_of_birth)
+                .field("user_about_me",about_user)
+                //.field("user_registration_date",creation_timestamp == null ? "null" : GenericUtils.formatDateToTHStr(creation_timestamp))
+                .field("user_country",country)
+                .field("user_city",city);
     }
 
     public User safeAssignProperties(User editUser) {
@@ -1,10 +1,9 @@
 package com.sixhands.domain;
 
-import com.sixhands.misc.CSVMap;
+import com.sixhands.misc.CSVRowWriter;
 import com.sixhands.misc.CSVSerializable;
 
 import javax.persistence.*;
-import java.util.Map;
 
 @Entity
 @Table(name = "user_project_exp")
@@ -66,16 +65,14 @@ public class UserProjectExp implements CSVSerializable {
     }
 
     @Override
-    public Map<String, String> toCSV() {
-        return new CSVMap()
-                .putc("mem_creator", project_creator)
-                .putc("mem_confirmed", confirmed)
-                .putc("mem_position", position)
-                .putc("mem_role", role)
-                .putc("mem_skills", skills)
-                .putc("mem_tools", tools)
-                .putc("mem_duties", duties)
-                .getMap();
+    public void writeCSV(CSVRowWriter row) {
+        row.field("mem_creator", project_creator)
+                .field("mem_confirmed", confirmed)
+                .field("mem_position", position)
+                .field("mem_role", role)
+                .field("mem_skills", skills)
+                .field("mem_tools", tools)
+                .field("mem_duties", duties);
     }
 
     public enum Role {
@@ -0,0 +1,46 @@
+package com.sixhands.event;
+
+import java.util.Date;
+
+/**
+ * Something a user did with a project that their colleagues should see in the feed.
+ * Published inside the transaction that made the change, listeners usually wait for the commit.
+ */
+public class ProjectActivityEvent {
+    public enum Type {
+        CREATED,
+        CONFIRMED,
+        LIKED,
+        //A like was taken back, counters undo the LIKED they saw, the feed ignores it
+        UNLIKED
+    }
+
+    private final Type type;
+    private final Long actorUUID;
+    private final Long projectUUID;
+    private final Date timestamp = new Date();
+
+    public ProjectActivityEvent(Type type, Long actorUUID, Long projectUUID) {
+        this.type = type;
+        this.actorUUID = actorUUID;
+        this.projectUUID = projectUUID;
+    }
+
+    //#region getters/setters
+    public Type getType() {
+        return type;
+    }
+
+    public Long getActorUUID() {
+        return actorUUID;
+    }
+
+    public Long getProjectUUID() {
+        return projectUUID;
+    }
+
+    public Date getTimestamp() {
+        return timestamp;
+    }
+    //#endregion
+}
@@ -0,0 +1,31 @@
+package com.sixhands.event;
+
+/**
+ * A user joined or left a project (a {@link com.sixhands.domain.UserProjectExp} was created or deleted).
+ * Published inside the transaction that made the change, listeners usually wait for the commit.
+ */
+public class ProjectMembershipEvent {
+    private final Long userUUID;
+    private final Long projectUUID;
+    private final boolean joined;
+
+    public ProjectMembershipEvent(Long userUUID, Long projectUUID, boolean joined) {
+        this.userUUID = userUUID;
+        this.projectUUID = projectUUID;
+        this.joined = joined;
+    }
+
+    //#region getters/setters
+    public Long getUserUUID() {
+        return userUUID;
+    }
+
+    public Long getProjectUUID() {
+        return projectUUID;
+    }
+
+    public boolean isJoined() {
+        return joined;
+    }
+    //#endregion
+}
@@ -0,0 +1,19 @@
+package com.sixhands.event;
+
+/**
+ * Something counted by the project rating changed: a like, the project's or a member's confirmation.
+ * Published inside the transaction that made the change, listeners usually wait for the commit.
+ */
+public class ProjectRatingChangedEvent {
+    private final Long projectUUID;
+
+    public ProjectRatingChangedEvent(Long projectUUID) {
+        this.projectUUID = projectUUID;
+    }
+
+    //#region getters/setters
+    public Long getProjectUUID() {
+        return projectUUID;
+    }
+    //#endregion
+}
@@ -0,0 +1,19 @@
+package com.sixhands.event;
+
+/**
+ * Fields of a project itself (name, company, dates, ...) were edited.
+ * Published inside the transaction that made the change, listeners usually wait for the commit.
+ */
+public class ProjectUpdatedEvent {
+    private final Long projectUUID;
+
+    public ProjectUpdatedEvent(Long projectUUID) {
+        this.projectUUID = projectUUID;
+    }
+
+    //#region getters/setters
+    public Long getProjectUUID() {
+        return projectUUID;
+    }
+    //#endregion
+}
@@ -0,0 +1,19 @@
+package com.sixhands.event;
+
+/**
+ * Something in the user's project experience changed: an exp was created, edited or deleted.
+ * Published inside the transaction that made the change, listeners usually wait for the commit.
+ */
+public class UserExpChangedEvent {
+    private final Long userUUID;
+
+    public UserExpChangedEvent(Long userUUID) {
+        this.userUUID = userUUID;
+    }
+
+    //#region getters/setters
+    public Long getUserUUID() {
+        return userUUID;
+    }
+    //#endregion
+}
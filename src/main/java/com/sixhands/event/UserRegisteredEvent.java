@@ -0,0 +1,26 @@
+package com.sixhands.event;
+
+import java.util.Date;
+
+/**
+ * A user registered, with a password or as a member invited to a project.
+ * Published inside the registration transaction.
+ */
+public class UserRegisteredEvent {
+    private final Long userUUID;
+    private final Date timestamp = new Date();
+
+    public UserRegisteredEvent(Long userUUID) {
+        this.userUUID = userUUID;
+    }
+
+    //#region getters/setters
+    public Long getUserUUID() {
+        return userUUID;
+    }
+
+    public Date getTimestamp() {
+        return timestamp;
+    }
+    //#endregion
+}
@@ -0,0 +1,23 @@
+package com.sixhands.event;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Normalized profile terms of some users changed, see {@link com.sixhands.service.UserTermIndex}.
+ * Published after the index was updated, once with all users when the index is loaded.
+ */
+public class UserTermsChangedEvent {
+    //New term set of every changed user, empty if the user has no terms left
+    private final Map<Long, Set<String>> terms;
+
+    public UserTermsChangedEvent(Map<Long, Set<String>> terms) {
+        this.terms = terms;
+    }
+
+    //#region getters/setters
+    public Map<Long, Set<String>> getTerms() {
+        return terms;
+    }
+    //#endregion
+}
@@ -0,0 +1,18 @@
+package com.sixhands.event;
+
+/**
+ * Profile fields of a user (name, contacts, ...) were saved
+ */
+public class UserUpdatedEvent {
+    private final Long userUUID;
+
+    public UserUpdatedEvent(Long userUUID) {
+        this.userUUID = userUUID;
+    }
+
+    //#region getters/setters
+    public Long getUserUUID() {
+        return userUUID;
+    }
+    //#endregion
+}
@@ -0,0 +1,90 @@
+package com.sixhands.misc;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming CSV writer, entities write their fields straight into it (see {@link CSVSerializable}).
+ * <p>
+ * Values are escaped into a single reusable row buffer that is copied to the underlying {@link Appendable}
+ * on {@link #endRow()}. Field names are only collected for the first row and written once as the header.
+ */
+public class CSVRowWriter {
+    private final Appendable out;
+    private final StringBuilder row = new StringBuilder(512);
+    private List<String> header = new ArrayList<>();
+    private int column = 0;
+    //Fields are written as empty cells, see skip(CSVSerializable)
+    private boolean blank = false;
+
+    public CSVRowWriter(Appendable out) {
+        this.out = out;
+    }
+
+    public CSVRowWriter field(String name, Object value) {
+        if (header != null) header.add(name);
+        if (column++ > 0) row.append(',');
+        if (!blank) escape(value == null ? "null" : value.toString());
+        return this;
+    }
+
+    //Writes empty fields, used for rows that only continue the previous one
+    public CSVRowWriter skip(int columns) {
+        for (int i = 0; i < columns; i++) {
+            if (header != null) header.add("");
+            if (column++ > 0) row.append(',');
+        }
+        return this;
+    }
+
+    //Writes the fields of the serializable as empty cells, their names still go to the header
+    public CSVRowWriter skip(CSVSerializable columns) {
+        blank = true;
+        try {
+            columns.writeCSV(this);
+        } finally {
+            blank = false;
+        }
+        return this;
+    }
+
+    public void endRow() throws IOException {
+        if (header != null) {
+            for (int i = 0; i < header.size(); i++) {
+                if (i > 0) out.append(',');
+                out.append(header.get(i));
+            }
+            out.append('\n');
+            header = null;
+        }
+        out.append(row).append('\n');
+        row.setLength(0);
+        column = 0;
+    }
+
+    //Fields that were written into the current row
+    public int getColumn() {
+        return column;
+    }
+
+    //Same rules as StringEscapeUtils.escapeCsv, without the intermediate strings
+    private void escape(String value) {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char ch = value.charAt(i);
+            quote = ch == ',' || ch == '"' || ch == '\n' || ch == '\r';
+        }
+        if (!quote) {
+            row.append(value);
+            return;
+        }
+        row.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (ch == '"') row.append('"');
+            row.append(ch);
+        }
+        row.append('"');
+    }
+}
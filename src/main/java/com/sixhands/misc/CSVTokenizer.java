@@ -0,0 +1,188 @@
+package com.sixhands.misc;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Streaming RFC 4180-ish tokenizer for CSV/TSV input.
+ * <p>
+ * Characters are read into a single reusable buffer and every field is handed out as a {@link CharSequence}
+ * view over that buffer, so nothing is allocated per field unless the handler calls {@code toString()}.
+ * Escaped quotes ({@code ""}) are collapsed in place. Quoted fields may span several lines.
+ * The buffer only grows when a single field is longer than the buffer itself, so memory stays flat
+ * regardless of the input size.
+ * <p>
+ * An Excel {@code sep=X} hint on the first line (as written by the admin CSV export) overrides the delimiter.
+ */
+public class CSVTokenizer {
+    public interface RowHandler {
+        /**
+         * @param value view over the tokenizer buffer, valid only until this method returns
+         */
+        void field(int row, int column, CharSequence value);
+
+        void endRow(int row, int columns);
+    }
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final int DELIMITED = 0, END_OF_ROW = 1, END_OF_INPUT = 2;
+
+    private final Reader reader;
+    private char delimiter;
+    private char[] buf;
+    private int pos, limit;
+    private boolean eof;
+    //Current field bounds, kept up to date when the buffer is compacted
+    private int fieldStart, fieldEnd;
+    private final FieldView view = new FieldView();
+
+    public CSVTokenizer(Reader reader, char delimiter) {
+        this(reader, delimiter, DEFAULT_BUFFER_SIZE);
+    }
+
+    public CSVTokenizer(Reader reader, char delimiter, int bufferSize) {
+        this.reader = reader;
+        this.delimiter = delimiter;
+        this.buf = new char[Math.max(16, bufferSize)];
+    }
+
+    /**
+     * Reads the whole input, blank lines are skipped.
+     *
+     * @return amount of rows passed to the handler
+     */
+    public int tokenize(RowHandler handler) throws IOException {
+        skipPreamble();
+        int row = 0;
+        while (ensure()) {
+            int column = 0;
+            int terminator;
+            do {
+                terminator = readField();
+                boolean blankLine = column == 0 && terminator != DELIMITED && fieldEnd == fieldStart;
+                if (blankLine) break;
+                view.bounds(fieldStart, fieldEnd);
+                handler.field(row, column++, view);
+            } while (terminator == DELIMITED);
+            if (column > 0) handler.endRow(row++, column);
+        }
+        return row;
+    }
+
+    public char getDelimiter() {
+        return delimiter;
+    }
+
+    private void skipPreamble() throws IOException {
+        fieldStart = fieldEnd = pos;
+        while (limit - pos < 7 && !eof) fill();
+        if (pos < limit && buf[pos] == '\uFEFF') pos++;
+        if (limit - pos >= 5 && buf[pos] == 's' && buf[pos + 1] == 'e' && buf[pos + 2] == 'p' && buf[pos + 3] == '=') {
+            int eol = pos + 5;
+            if (eol == limit || buf[eol] == '\n' || buf[eol] == '\r') {
+                delimiter = buf[pos + 4];
+                pos = eol;
+                if (ensure() && (buf[pos] == '\n' || buf[pos] == '\r')) consumeEol();
+            }
+        }
+    }
+
+    private int readField() throws IOException {
+        fieldStart = fieldEnd = pos;
+        if (!ensure()) return END_OF_INPUT;
+        if (buf[pos] == '"') {
+            pos++;
+            fieldStart = fieldEnd = pos;
+            while (true) {
+                //Unterminated quote, keep what was read
+                if (!ensure()) return END_OF_INPUT;
+                char ch = buf[pos++];
+                if (ch == '"') {
+                    if (ensure() && buf[pos] == '"') {
+                        pos++;
+                        buf[fieldEnd++] = '"';
+                        continue;
+                    }
+                    //Closing quote, anything up to the delimiter is kept as is
+                    break;
+                }
+                buf[fieldEnd++] = ch;
+            }
+        }
+        while (true) {
+            if (!ensure()) return END_OF_INPUT;
+            char ch = buf[pos];
+            if (ch == delimiter) {
+                pos++;
+                return DELIMITED;
+            }
+            if (ch == '\n' || ch == '\r') {
+                consumeEol();
+                return END_OF_ROW;
+            }
+            buf[fieldEnd++] = ch;
+            pos++;
+        }
+    }
+
+    private void consumeEol() throws IOException {
+        if (buf[pos++] == '\r' && ensure() && buf[pos] == '\n') pos++;
+    }
+
+    private boolean ensure() throws IOException {
+        while (pos >= limit) {
+            if (eof) return false;
+            fill();
+        }
+        return true;
+    }
+
+    //Moves the current field and unread chars to the buffer start, then reads more input
+    private void fill() throws IOException {
+        int fieldLen = fieldEnd - fieldStart;
+        int unread = limit - pos;
+        if (fieldStart > 0 || fieldEnd != pos) {
+            System.arraycopy(buf, fieldStart, buf, 0, fieldLen);
+            System.arraycopy(buf, pos, buf, fieldLen, unread);
+        }
+        fieldStart = 0;
+        fieldEnd = fieldLen;
+        pos = fieldLen;
+        limit = fieldLen + unread;
+        if (limit == buf.length) buf = Arrays.copyOf(buf, buf.length * 2);
+
+        int read = reader.read(buf, limit, buf.length - limit);
+        if (read < 0) eof = true;
+        else limit += read;
+    }
+
+    private class FieldView implements CharSequence {
+        private int start, end;
+
+        private void bounds(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return buf[start + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return new String(buf, start + from, to - from);
+        }
+
+        @Override
+        public String toString() {
+            return new String(buf, start, end - start);
+        }
+    }
+}
@@ -0,0 +1,402 @@
+package com.sixhands.misc;
+
+import java.util.*;
+import java.util.function.IntConsumer;
+
+/**
+ * Bipartite user-project membership graph in compressed sparse row form, two users are colleagues
+ * when they share a project.
+ * <p>
+ * Users and projects get dense int indices. {@code userOffsets[u]..userOffsets[u+1]} is the slice of
+ * {@code userProjects} with the projects of user {@code u}, {@code projectUsers} is the same the other way around.
+ * Keeping projects as nodes instead of materializing user-user edges keeps a project with n members at n entries
+ * instead of n^2.
+ * <p>
+ * Memberships changed after the build go to a small overlay (added lists and a removed set) that is merged
+ * into iteration, the owner rebuilds the CSR part from time to time. Not thread safe, callers guard it with a lock.
+ */
+public class ColleagueGraph {
+    private final long[] csrUserIds;
+    private final long[] csrProjectIds;
+    private final int[] userOffsets;
+    private final int[] userProjects;
+    private final int[] projectOffsets;
+    private final int[] projectUsers;
+
+    //Overlay: ids unknown to the CSR part get indices after the CSR ones
+    private final Map<Long, Integer> extraUserIndex = new HashMap<>();
+    private final Map<Long, Integer> extraProjectIndex = new HashMap<>();
+    private final List<Long> extraUserIds = new ArrayList<>();
+    private final List<Long> extraProjectIds = new ArrayList<>();
+    private final Map<Integer, IntList> addedUserProjects = new HashMap<>();
+    private final Map<Integer, IntList> addedProjectUsers = new HashMap<>();
+    private final Set<Long> removed = new HashSet<>();
+    private int overlaySize = 0;
+
+    private ColleagueGraph(long[] userIds, long[] projectIds, int[] userOffsets, int[] userProjects, int[] projectOffsets, int[] projectUsers) {
+        this.csrUserIds = userIds;
+        this.csrProjectIds = projectIds;
+        this.userOffsets = userOffsets;
+        this.userProjects = userProjects;
+        this.projectOffsets = projectOffsets;
+        this.projectUsers = projectUsers;
+    }
+
+    /**
+     * @param users    user id of every membership
+     * @param projects project id of every membership, same order as users
+     * @param count    amount of memberships in the arrays
+     */
+    public static ColleagueGraph build(long[] users, long[] projects, int count) {
+        long[] userIds = distinctSorted(users, count);
+        long[] projectIds = distinctSorted(projects, count);
+        int[] u = new int[count];
+        int[] p = new int[count];
+        for (int i = 0; i < count; i++) {
+            u[i] = Arrays.binarySearch(userIds, users[i]);
+            p[i] = Arrays.binarySearch(projectIds, projects[i]);
+        }
+        int[] userOffsets = new int[userIds.length + 1];
+        int[] projectOffsets = new int[projectIds.length + 1];
+        int[] userProjects = new int[count];
+        int[] projectUsers = new int[count];
+        fill(u, p, count, userOffsets, userProjects);
+        fill(p, u, count, projectOffsets, projectUsers);
+        return new ColleagueGraph(userIds, projectIds, userOffsets, userProjects, projectOffsets, projectUsers);
+    }
+
+    //#region overlay
+    public void add(long userId, long projectId) {
+        int u = userIndexOrCreate(userId);
+        int p = projectIndexOrCreate(projectId);
+        long key = key(u, p);
+        if (removed.remove(key)) {
+            overlaySize--;
+            return;
+        }
+        if (hasCsrMembership(u, p) || hasAddedMembership(u, p)) return;
+        addedUserProjects.computeIfAbsent(u, i -> new IntList()).add(p);
+        addedProjectUsers.computeIfAbsent(p, i -> new IntList()).add(u);
+        overlaySize++;
+    }
+
+    public void remove(long userId, long projectId) {
+        int u = userIndex(userId);
+        int p = projectIndex(projectId);
+        if (u < 0 || p < 0) return;
+        IntList added = addedUserProjects.get(u);
+        if (added != null && added.remove(p)) {
+            addedProjectUsers.get(p).remove(u);
+            overlaySize--;
+            return;
+        }
+        if (hasCsrMembership(u, p) && removed.add(key(u, p))) overlaySize++;
+    }
+
+    //Memberships changed since the build
+    public int getOverlaySize() {
+        return overlaySize;
+    }
+    //#endregion
+
+    //#region lookup and iteration
+    public int userIndex(long userId) {
+        int i = Arrays.binarySearch(csrUserIds, userId);
+        if (i >= 0) return i;
+        Integer extra = extraUserIndex.get(userId);
+        return extra == null ? -1 : extra;
+    }
+
+    public int projectIndex(long projectId) {
+        int i = Arrays.binarySearch(csrProjectIds, projectId);
+        if (i >= 0) return i;
+        Integer extra = extraProjectIndex.get(projectId);
+        return extra == null ? -1 : extra;
+    }
+
+    public long userId(int index) {
+        return index < csrUserIds.length ? csrUserIds[index] : extraUserIds.get(index - csrUserIds.length);
+    }
+
+    public long projectId(int index) {
+        return index < csrProjectIds.length ? csrProjectIds[index] : extraProjectIds.get(index - csrProjectIds.length);
+    }
+
+    public int userCount() {
+        return csrUserIds.length + extraUserIds.size();
+    }
+
+    public int projectCount() {
+        return csrProjectIds.length + extraProjectIds.size();
+    }
+
+    public void forEachProject(int user, IntConsumer consumer) {
+        if (user < csrUserIds.length)
+            for (int i = userOffsets[user]; i < userOffsets[user + 1]; i++) {
+                int p = userProjects[i];
+                if (removed.isEmpty() || !removed.contains(key(user, p))) consumer.accept(p);
+            }
+        IntList added = addedUserProjects.get(user);
+        if (added != null) added.forEach(consumer);
+    }
+
+    public void forEachMember(int project, IntConsumer consumer) {
+        if (project < csrProjectIds.length)
+            for (int i = projectOffsets[project]; i < projectOffsets[project + 1]; i++) {
+                int u = projectUsers[i];
+                if (removed.isEmpty() || !removed.contains(key(u, project))) consumer.accept(u);
+            }
+        IntList added = addedProjectUsers.get(project);
+        if (added != null) added.forEach(consumer);
+    }
+
+    //Array variants of the above, for loops that need to stop early
+    public int[] members(int project) {
+        IntList ret = new IntList();
+        forEachMember(project, ret::add);
+        return ret.toArray();
+    }
+
+    public int[] projects(int user) {
+        IntList ret = new IntList();
+        forEachProject(user, ret::add);
+        return ret.toArray();
+    }
+    //#endregion
+
+    //#region path search
+    /**
+     * Shortest chain of colleagues between two users, bidirectional BFS that always expands the smaller frontier.
+     * Every project is scanned at most once per side, so a query touches each membership at most twice.
+     *
+     * @param maxHops maximum amount of user to user steps
+     * @return null when there is no chain within maxHops
+     */
+    public Path shortestPath(long fromId, long toId, int maxHops) {
+        int from = userIndex(fromId);
+        int to = userIndex(toId);
+        if (from < 0 || to < 0) return null;
+        if (from == to) return new Path(new long[]{fromId}, new long[0]);
+
+        ProjectMarks marks = PROJECT_MARKS.get();
+        Search forward = new Search(marks, marks.nextStamp(projectCount()));
+        Search backward = new Search(marks, marks.nextStamp(projectCount()));
+        forward.visit(from, -1, -1);
+        backward.visit(to, -1, -1);
+        IntList forwardFrontier = IntList.of(from);
+        IntList backwardFrontier = IntList.of(to);
+        int hops = 0;
+        while (!forwardFrontier.isEmpty() && !backwardFrontier.isEmpty() && hops < maxHops) {
+            boolean expandForward = forwardFrontier.size() <= backwardFrontier.size();
+            Search side = expandForward ? forward : backward;
+            Search other = expandForward ? backward : forward;
+            IntList next = new IntList();
+            int meet = expand(expandForward ? forwardFrontier : backwardFrontier, side, other, next);
+            hops++;
+            if (meet >= 0) return buildPath(meet, forward, backward);
+            if (expandForward) forwardFrontier = next;
+            else backwardFrontier = next;
+        }
+        return null;
+    }
+
+    private int expand(IntList frontier, Search side, Search other, IntList next) {
+        for (int i = 0; i < frontier.size(); i++) {
+            int user = frontier.get(i);
+            for (int project : projects(user)) {
+                if (!side.visitProject(project)) continue;
+                for (int colleague : members(project)) {
+                    if (side.seen(colleague)) continue;
+                    side.visit(colleague, user, project);
+                    if (other.seen(colleague)) return colleague;
+                    next.add(colleague);
+                }
+            }
+        }
+        return -1;
+    }
+
+    private Path buildPath(int meet, Search forward, Search backward) {
+        LinkedList<Long> users = new LinkedList<>();
+        LinkedList<Long> projects = new LinkedList<>();
+        users.add(userId(meet));
+        for (int u = meet; forward.parent(u) >= 0; u = forward.parent(u)) {
+            projects.addFirst(projectId(forward.via(u)));
+            users.addFirst(userId(forward.parent(u)));
+        }
+        for (int u = meet; backward.parent(u) >= 0; u = backward.parent(u)) {
+            projects.addLast(projectId(backward.via(u)));
+            users.addLast(userId(backward.parent(u)));
+        }
+        return new Path(users.stream().mapToLong(Long::longValue).toArray(), projects.stream().mapToLong(Long::longValue).toArray());
+    }
+
+    //Searches run in parallel under the owner's read lock, every thread reuses its own marks
+    private static final ThreadLocal<ProjectMarks> PROJECT_MARKS = ThreadLocal.withInitial(ProjectMarks::new);
+
+    /**
+     * Scanned projects, stamped like in {@link MutualColleagueCounter}: every search side takes a new stamp,
+     * so the array sized to all projects is only allocated once per thread and never cleared between queries.
+     */
+    private static class ProjectMarks {
+        private int[] marks = new int[0];
+        private int stamp = 0;
+
+        private int nextStamp(int projects) {
+            if (marks.length < projects) marks = Arrays.copyOf(marks, Math.max(projects, marks.length * 3 / 2));
+            if (++stamp == Integer.MAX_VALUE) {
+                Arrays.fill(marks, 0);
+                stamp = 1;
+            }
+            return stamp;
+        }
+    }
+
+    /**
+     * Visited state of one BFS side. Users are kept in an open addressing table, so a query only pays
+     * for the part of the graph it touches instead of clearing arrays sized to all users.
+     */
+    private static class Search {
+        private int[] users = new int[64];
+        private int[] parents = new int[64];
+        private int[] vias = new int[64];
+        private int size = 0;
+        private final ProjectMarks projectMarks;
+        private final int stamp;
+
+        private Search(ProjectMarks projectMarks, int stamp) {
+            Arrays.fill(users, -1);
+            this.projectMarks = projectMarks;
+            this.stamp = stamp;
+        }
+
+        private boolean seen(int user) {
+            return slot(user) >= 0;
+        }
+
+        private int parent(int user) {
+            return parents[slot(user)];
+        }
+
+        private int via(int user) {
+            return vias[slot(user)];
+        }
+
+        private void visit(int user, int parentUser, int project) {
+            if ((size + 1) * 2 > users.length) grow();
+            int i = insertionSlot(user);
+            if (users[i] < 0) size++;
+            users[i] = user;
+            parents[i] = parentUser;
+            vias[i] = project;
+        }
+
+        private int slot(int user) {
+            int i = insertionSlot(user);
+            return users[i] == user ? i : -1;
+        }
+
+        private int insertionSlot(int user) {
+            int mask = users.length - 1;
+            int i = (user * 0x9E3779B9) >>> 1 & mask;
+            while (users[i] >= 0 && users[i] != user) i = (i + 1) & mask;
+            return i;
+        }
+
+        private void grow() {
+            int[] oldUsers = users, oldParents = parents, oldVias = vias;
+            users = new int[oldUsers.length * 2];
+            parents = new int[users.length];
+            vias = new int[users.length];
+            Arrays.fill(users, -1);
+            size = 0;
+            for (int i = 0; i < oldUsers.length; i++)
+                if (oldUsers[i] >= 0) visit(oldUsers[i], oldParents[i], oldVias[i]);
+        }
+
+        //false if the project was already scanned by this side
+        private boolean visitProject(int project) {
+            if (projectMarks.marks[project] == stamp) return false;
+            projectMarks.marks[project] = stamp;
+            return true;
+        }
+    }
+
+    public static class Path {
+        //Users along the chain, starting with the source user
+        private final long[] users;
+        //projects[i] connects users[i] and users[i + 1]
+        private final long[] projects;
+
+        public Path(long[] users, long[] projects) {
+            this.users = users;
+            this.projects = projects;
+        }
+
+        public long[] getUsers() {
+            return users;
+        }
+
+        public long[] getProjects() {
+            return projects;
+        }
+
+        public int getHops() {
+            return projects.length;
+        }
+    }
+    //#endregion
+
+    //#region helpers
+    private boolean hasCsrMembership(int u, int p) {
+        if (u >= csrUserIds.length) return false;
+        for (int i = userOffsets[u]; i < userOffsets[u + 1]; i++)
+            if (userProjects[i] == p) return true;
+        return false;
+    }
+
+    private boolean hasAddedMembership(int u, int p) {
+        IntList added = addedUserProjects.get(u);
+        return added != null && added.contains(p);
+    }
+
+    private int userIndexOrCreate(long userId) {
+        int i = userIndex(userId);
+        if (i >= 0) return i;
+        i = csrUserIds.length + extraUserIds.size();
+        extraUserIds.add(userId);
+        extraUserIndex.put(userId, i);
+        return i;
+    }
+
+    private int projectIndexOrCreate(long projectId) {
+        int i = projectIndex(projectId);
+        if (i >= 0) return i;
+        i = csrProjectIds.length + extraProjectIds.size();
+        extraProjectIds.add(projectId);
+        extraProjectIndex.put(projectId, i);
+        return i;
+    }
+
+    private static long key(int user, int project) {
+        return ((long) user << 32) | (project & 0xffffffffL);
+    }
+
+    private static long[] distinctSorted(long[] values, int count) {
+        long[] sorted = Arrays.copyOf(values, count);
+        Arrays.sort(sorted);
+        int n = 0;
+        for (int i = 0; i < count; i++)
+            if (n == 0 || sorted[n - 1] != sorted[i]) sorted[n++] = sorted[i];
+        return Arrays.copyOf(sorted, n);
+    }
+
+    //Counting sort of (from, to) pairs into offsets/targets
+    private static void fill(int[] from, int[] to, int count, int[] offsets, int[] targets) {
+        for (int i = 0; i < count; i++) offsets[from[i] + 1]++;
+        for (int i = 1; i < offsets.length; i++) offsets[i] += offsets[i - 1];
+        int[] cursor = Arrays.copyOf(offsets, offsets.length - 1);
+        for (int i = 0; i < count; i++) targets[cursor[from[i]]++] = to[i];
+    }
+    //#endregion
+}
@@ -0,0 +1,47 @@
+package com.sixhands.misc;
+
+import java.util.Arrays;
+
+/**
+ * Count-Min sketch: approximate counts of long keys in {@code depth * width} counters, whatever the number of keys.
+ * <p>
+ * Every row hashes the key to one counter, the estimate is the smallest of the key's counters. Estimates never
+ * undercount, they overcount by at most {@code e / width} of the total with probability {@code 1 - e^-depth}.
+ * Not thread safe.
+ */
+public class CountMinSketch {
+    private final int depth;
+    private final int width;
+    private final long[] seeds;
+    private final int[] counts;
+
+    public CountMinSketch(int depth, int width) {
+        this.depth = depth;
+        this.width = width;
+        seeds = new long[depth];
+        for (int i = 0; i < depth; i++) seeds[i] = 0x9E3779B97F4A7C15L * (i + 1);
+        counts = new int[depth * width];
+    }
+
+    public void add(long key, int amount) {
+        for (int row = 0; row < depth; row++) counts[row * width + index(key, row)] += amount;
+    }
+
+    public int estimate(long key) {
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) min = Math.min(min, counts[row * width + index(key, row)]);
+        return min;
+    }
+
+    public void clear() {
+        Arrays.fill(counts, 0);
+    }
+
+    private int index(long key, int row) {
+        long z = key ^ seeds[row];
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        z ^= z >>> 31;
+        return (int) ((z >>> 1) % width);
+    }
+}
@@ -0,0 +1,72 @@
+package com.sixhands.misc;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Growable int array, avoids boxing in the in-memory graph and index structures
+ */
+public class IntList {
+    private int[] values;
+    private int size = 0;
+
+    public IntList() {
+        this(8);
+    }
+
+    public IntList(int capacity) {
+        values = new int[Math.max(capacity, 1)];
+    }
+
+    public static IntList of(int... values) {
+        IntList ret = new IntList(values.length);
+        for (int value : values) ret.add(value);
+        return ret;
+    }
+
+    public void add(int value) {
+        if (size == values.length) values = Arrays.copyOf(values, size * 2);
+        values[size++] = value;
+    }
+
+    public int get(int index) {
+        if (index >= size) throw new IndexOutOfBoundsException(index + " >= " + size);
+        return values[index];
+    }
+
+    public boolean contains(int value) {
+        for (int i = 0; i < size; i++)
+            if (values[i] == value) return true;
+        return false;
+    }
+
+    //Removes the first occurrence, order of the remaining values is not kept
+    public boolean remove(int value) {
+        for (int i = 0; i < size; i++)
+            if (values[i] == value) {
+                values[i] = values[--size];
+                return true;
+            }
+        return false;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public void forEach(IntConsumer consumer) {
+        for (int i = 0; i < size; i++) consumer.accept(values[i]);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
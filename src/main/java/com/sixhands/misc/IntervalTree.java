@@ -0,0 +1,158 @@
+package com.sixhands.misc;
+
+import java.util.Random;
+import java.util.function.LongConsumer;
+
+/**
+ * Closed intervals {@code [start, end]} with a long id each, answering overlap queries in O(log n + k).
+ * <p>
+ * A treap ordered by (start, end, id) where every node also keeps the largest end in its subtree, so a query skips
+ * every subtree that ends before the queried range and every right subtree that starts after it.
+ * Random priorities keep the expected depth logarithmic without rebalancing code. Not thread safe.
+ */
+public class IntervalTree {
+    private static final Random PRIORITIES = new Random();
+
+    private Node root;
+    private int size = 0;
+
+    private static class Node {
+        final long start;
+        final long end;
+        final long id;
+        final int priority = PRIORITIES.nextInt();
+        long maxEnd;
+        Node left;
+        Node right;
+
+        Node(long start, long end, long id) {
+            this.start = start;
+            this.end = end;
+            this.id = id;
+            this.maxEnd = end;
+        }
+
+        int compareTo(long start, long end, long id) {
+            if (this.start != start) return Long.compare(this.start, start);
+            if (this.end != end) return Long.compare(this.end, end);
+            return Long.compare(this.id, id);
+        }
+
+        void update() {
+            maxEnd = end;
+            if (left != null && left.maxEnd > maxEnd) maxEnd = left.maxEnd;
+            if (right != null && right.maxEnd > maxEnd) maxEnd = right.maxEnd;
+        }
+    }
+
+    public void insert(long start, long end, long id) {
+        root = insert(root, new Node(start, end, id));
+        size++;
+    }
+
+    /**
+     * @return false if there is no such interval
+     */
+    public boolean remove(long start, long end, long id) {
+        int before = size;
+        root = remove(root, start, end, id);
+        return size < before;
+    }
+
+    /**
+     * Passes the ids of all intervals overlapping {@code [from, to]}
+     */
+    public void overlapping(long from, long to, LongConsumer consumer) {
+        overlapping(root, from, to, consumer);
+    }
+
+    public boolean anyOverlapping(long from, long to) {
+        Node node = root;
+        while (node != null && node.maxEnd >= from) {
+            if (node.left != null && node.left.maxEnd >= from) {
+                //The left subtree holds an interval ending after from, it overlaps unless it starts after to,
+                //and then everything right of it does too
+                node = node.left;
+                continue;
+            }
+            if (node.start > to) return false;
+            if (node.end >= from) return true;
+            node = node.right;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private static void overlapping(Node node, long from, long to, LongConsumer consumer) {
+        if (node == null || node.maxEnd < from) return;
+        overlapping(node.left, from, to, consumer);
+        if (node.start > to) return;
+        if (node.end >= from) consumer.accept(node.id);
+        overlapping(node.right, from, to, consumer);
+    }
+
+    private static Node insert(Node node, Node inserted) {
+        if (node == null) return inserted;
+        if (inserted.priority > node.priority) {
+            Node[] parts = split(node, inserted.start, inserted.end, inserted.id);
+            inserted.left = parts[0];
+            inserted.right = parts[1];
+            inserted.update();
+            return inserted;
+        }
+        if (node.compareTo(inserted.start, inserted.end, inserted.id) > 0) node.left = insert(node.left, inserted);
+        else node.right = insert(node.right, inserted);
+        node.update();
+        return node;
+    }
+
+    private Node remove(Node node, long start, long end, long id) {
+        if (node == null) return null;
+        int cmp = node.compareTo(start, end, id);
+        if (cmp == 0) {
+            size--;
+            return merge(node.left, node.right);
+        }
+        if (cmp > 0) node.left = remove(node.left, start, end, id);
+        else node.right = remove(node.right, start, end, id);
+        node.update();
+        return node;
+    }
+
+    //Splits into nodes ordered before the key and the rest
+    private static Node[] split(Node node, long start, long end, long id) {
+        if (node == null) return new Node[2];
+        if (node.compareTo(start, end, id) < 0) {
+            Node[] parts = split(node.right, start, end, id);
+            node.right = parts[0];
+            node.update();
+            parts[0] = node;
+            return parts;
+        }
+        Node[] parts = split(node.left, start, end, id);
+        node.left = parts[1];
+        node.update();
+        parts[1] = node;
+        return parts;
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.update();
+        return right;
+    }
+}
@@ -0,0 +1,61 @@
+package com.sixhands.misc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Mail template compiled once into literal chunks and placeholder names, so rendering is a single pass
+ * of appends into a presized {@link StringBuilder}.
+ * <p>
+ * Placeholders look like {@code {{name}}}. A placeholder without a value is rendered as an empty string.
+ */
+public class MailTemplate {
+    private final String[] literals;
+    private final String[] placeholders;
+    private final int literalLength;
+
+    private MailTemplate(String[] literals, String[] placeholders) {
+        this.literals = literals;
+        this.placeholders = placeholders;
+        int length = 0;
+        for (String literal : literals) length += literal.length();
+        this.literalLength = length;
+    }
+
+    public static MailTemplate compile(String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> placeholders = new ArrayList<>();
+        int pos = 0;
+        while (true) {
+            int open = source.indexOf("{{", pos);
+            int close = open < 0 ? -1 : source.indexOf("}}", open + 2);
+            if (close < 0) {
+                literals.add(source.substring(pos));
+                break;
+            }
+            literals.add(source.substring(pos, open));
+            placeholders.add(source.substring(open + 2, close).trim());
+            pos = close + 2;
+        }
+        return new MailTemplate(literals.toArray(new String[0]), placeholders.toArray(new String[0]));
+    }
+
+    public String render(Map<String, ?> params) {
+        return render(params, Function.identity());
+    }
+
+    /**
+     * @param escape applied to every substituted value, e.g. HTML escaping for the HTML part
+     */
+    public String render(Map<String, ?> params, Function<String, String> escape) {
+        StringBuilder out = new StringBuilder(literalLength + placeholders.length * 32);
+        for (int i = 0; i < placeholders.length; i++) {
+            out.append(literals[i]);
+            Object value = params.get(placeholders[i]);
+            if (value != null) out.append(escape.apply(value.toString()));
+        }
+        return out.append(literals[placeholders.length]).toString();
+    }
+}
@@ -0,0 +1,150 @@
+package com.sixhands.misc;
+
+import java.util.*;
+
+/**
+ * MinHash signatures of term sets with a banded LSH index for "similar sets" queries.
+ * <p>
+ * A signature holds {@code bands * rows} minimums of independent hash functions over the set's terms,
+ * two signatures agree in a position with probability equal to the Jaccard similarity of the sets.
+ * Each band of {@code rows} positions is hashed into a bucket; sets sharing any bucket are candidates, so a query
+ * only looks at the users colliding with it instead of at everybody. With b bands of r rows a pair with similarity s
+ * becomes a candidate with probability {@code 1 - (1 - s^r)^b}.
+ * Not thread safe, callers guard it with a lock.
+ */
+public class MinHashIndex {
+    private final int bands;
+    private final int rows;
+    private final long[] seeds;
+
+    private final Map<Long, int[]> signatures = new HashMap<>();
+    //One bucket map per band, bucket key is the hash of the band's rows
+    private final List<Map<Long, Set<Long>>> buckets = new ArrayList<>();
+
+    public MinHashIndex(int bands, int rows) {
+        this.bands = bands;
+        this.rows = rows;
+        seeds = new long[bands * rows];
+        //Fixed seeds, signatures must not change between restarts of the same data
+        Random random = new Random(0x6a4d);
+        for (int i = 0; i < seeds.length; i++) seeds[i] = random.nextLong();
+        for (int i = 0; i < bands; i++) buckets.add(new HashMap<>());
+    }
+
+    /**
+     * Replaces the set of the id, an empty set removes the id
+     */
+    public void put(long id, Collection<String> terms) {
+        remove(id);
+        if (terms.isEmpty()) return;
+        int[] signature = signature(terms);
+        signatures.put(id, signature);
+        for (int band = 0; band < bands; band++)
+            buckets.get(band).computeIfAbsent(bandKey(signature, band), k -> new HashSet<>()).add(id);
+    }
+
+    public void remove(long id) {
+        int[] signature = signatures.remove(id);
+        if (signature == null) return;
+        for (int band = 0; band < bands; band++) {
+            long key = bandKey(signature, band);
+            Set<Long> bucket = buckets.get(band).get(key);
+            if (bucket == null) continue;
+            bucket.remove(id);
+            if (bucket.isEmpty()) buckets.get(band).remove(key);
+        }
+    }
+
+    /**
+     * @param maxCandidates upper bound of candidates that are scored, protects against huge buckets of common sets
+     * @return ids most similar to the id ordered by estimated similarity, the id itself excluded
+     */
+    public List<Scored> similar(long id, int k, int maxCandidates) {
+        int[] signature = signatures.get(id);
+        if (signature == null) return Collections.emptyList();
+        Set<Long> candidates = new HashSet<>();
+        outer:
+        for (int band = 0; band < bands; band++) {
+            Set<Long> bucket = buckets.get(band).get(bandKey(signature, band));
+            if (bucket == null) continue;
+            for (Long candidate : bucket) {
+                if (candidates.size() >= maxCandidates) break outer;
+                if (candidate != id) candidates.add(candidate);
+            }
+        }
+        PriorityQueue<Scored> top = new PriorityQueue<>(Comparator.comparingDouble(Scored::getSimilarity));
+        for (Long candidate : candidates) {
+            top.add(new Scored(candidate, estimate(signature, signatures.get(candidate))));
+            if (top.size() > k) top.poll();
+        }
+        List<Scored> ret = new ArrayList<>(top);
+        ret.sort(Comparator.comparingDouble(Scored::getSimilarity).reversed().thenComparingLong(Scored::getId));
+        return ret;
+    }
+
+    public int size() {
+        return signatures.size();
+    }
+
+    private int[] signature(Collection<String> terms) {
+        int[] signature = new int[seeds.length];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (String term : terms) {
+            long hash = hash(term);
+            for (int i = 0; i < seeds.length; i++) {
+                int h = (int) (mix(hash ^ seeds[i]) >>> 33);
+                if (h < signature[i]) signature[i] = h;
+            }
+        }
+        return signature;
+    }
+
+    private long bandKey(int[] signature, int band) {
+        long key = band;
+        for (int i = band * rows; i < (band + 1) * rows; i++) key = key * 0x100000001b3L + signature[i];
+        return mix(key);
+    }
+
+    //Share of equal positions, an unbiased estimate of the Jaccard similarity
+    private static double estimate(int[] a, int[] b) {
+        int equal = 0;
+        for (int i = 0; i < a.length; i++)
+            if (a[i] == b[i]) equal++;
+        return (double) equal / a.length;
+    }
+
+    //64 bit FNV-1a, every hash function mixes it with its own seed
+    private static long hash(String term) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < term.length(); i++) {
+            hash ^= term.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    //splitmix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    public static class Scored {
+        private final long id;
+        private final double similarity;
+
+        public Scored(long id, double similarity) {
+            this.id = id;
+            this.similarity = similarity;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public double getSimilarity() {
+            return similarity;
+        }
+    }
+}
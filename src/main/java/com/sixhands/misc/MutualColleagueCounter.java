@@ -0,0 +1,160 @@
+package com.sixhands.misc;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Ranks second-degree colleagues of a user by the number of colleagues they share with the user.
+ * <p>
+ * Counts live in an int array indexed by graph user index, visited marks are stamps, so nothing is cleared
+ * between users and the only per-user cost is the part of the graph the user reaches. One instance is meant
+ * to be reused by a single thread for a batch of users.
+ */
+public class MutualColleagueCounter {
+    //Projects with more members are mostly "everyone in the company", they are skipped on the second hop
+    private final int maxProjectSize;
+    private int[] counts = new int[0];
+    private int[] marks = new int[0];
+    private int[] direct = new int[0];
+    private int stamp = 0;
+    private final IntList touched = new IntList();
+
+    public MutualColleagueCounter(int maxProjectSize) {
+        this.maxProjectSize = maxProjectSize;
+    }
+
+    /**
+     * @return the top k candidates, users that already are colleagues of the user are excluded
+     */
+    public Ranked top(ColleagueGraph graph, long userId, int k) {
+        int user = graph.userIndex(userId);
+        if (user < 0) return Ranked.EMPTY;
+        ensureCapacity(graph.userCount());
+
+        //Direct colleagues over all projects, big ones included
+        int directStamp = nextStamp();
+        direct[user] = directStamp;
+        IntList colleagues = new IntList();
+        for (int project : graph.projects(user))
+            graph.forEachMember(project, colleague -> {
+                if (direct[colleague] == directStamp) return;
+                direct[colleague] = directStamp;
+                colleagues.add(colleague);
+            });
+
+        touched.clear();
+        for (int i = 0; i < colleagues.size(); i++) {
+            //Each colleague counts once per candidate, even if they share several projects
+            int colleagueStamp = nextStamp();
+            forEachColleague(graph, colleagues.get(i), candidate -> {
+                if (direct[candidate] == directStamp || marks[candidate] == colleagueStamp) return;
+                marks[candidate] = colleagueStamp;
+                if (counts[candidate]++ == 0) touched.add(candidate);
+            });
+        }
+
+        Ranked ret = select(graph, k);
+        for (int i = 0; i < touched.size(); i++) counts[touched.get(i)] = 0;
+        return ret;
+    }
+
+    /**
+     * Users whose ranking can change when the user joins or leaves the project: the user, the project's members
+     * and their colleagues
+     */
+    public void forEachAffected(ColleagueGraph graph, long userId, long projectId, IntConsumer consumer) {
+        ensureCapacity(graph.userCount());
+        int seenStamp = nextStamp();
+        IntConsumer once = u -> {
+            if (marks[u] == seenStamp) return;
+            marks[u] = seenStamp;
+            consumer.accept(u);
+        };
+        int user = graph.userIndex(userId);
+        int project = graph.projectIndex(projectId);
+        IntList owners = new IntList();
+        if (user >= 0) owners.add(user);
+        if (project >= 0) graph.forEachMember(project, owners::add);
+        boolean small = project < 0 || graph.members(project).length <= maxProjectSize;
+        for (int i = 0; i < owners.size(); i++) {
+            once.accept(owners.get(i));
+            if (small) forEachColleague(graph, owners.get(i), once);
+        }
+    }
+
+    private void forEachColleague(ColleagueGraph graph, int user, IntConsumer consumer) {
+        for (int project : graph.projects(user)) {
+            int[] members = graph.members(project);
+            if (members.length > maxProjectSize) continue;
+            for (int member : members)
+                if (member != user) consumer.accept(member);
+        }
+    }
+
+    //Partial selection, k is small so insertion into a sorted array beats sorting all candidates
+    private Ranked select(ColleagueGraph graph, int k) {
+        int[] best = new int[Math.min(k, touched.size())];
+        int size = 0;
+        for (int i = 0; i < touched.size(); i++) {
+            int candidate = touched.get(i);
+            if (size == best.length && !better(graph, candidate, best[size - 1])) continue;
+            int pos = size == best.length ? size - 1 : size++;
+            while (pos > 0 && better(graph, candidate, best[pos - 1])) {
+                best[pos] = best[pos - 1];
+                pos--;
+            }
+            best[pos] = candidate;
+        }
+        long[] ids = new long[size];
+        int[] mutual = new int[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = graph.userId(best[i]);
+            mutual[i] = counts[best[i]];
+        }
+        return new Ranked(ids, mutual);
+    }
+
+    //More mutual colleagues first, ties by lower id so rankings are stable between refreshes
+    private boolean better(ColleagueGraph graph, int a, int b) {
+        if (counts[a] != counts[b]) return counts[a] > counts[b];
+        return graph.userId(a) < graph.userId(b);
+    }
+
+    private int nextStamp() {
+        if (++stamp == Integer.MAX_VALUE) {
+            Arrays.fill(marks, 0);
+            Arrays.fill(direct, 0);
+            stamp = 1;
+        }
+        return stamp;
+    }
+
+    private void ensureCapacity(int users) {
+        if (counts.length >= users) return;
+        int capacity = Math.max(users, counts.length * 3 / 2);
+        counts = Arrays.copyOf(counts, capacity);
+        marks = Arrays.copyOf(marks, capacity);
+        direct = Arrays.copyOf(direct, capacity);
+    }
+
+    public static class Ranked {
+        public static final Ranked EMPTY = new Ranked(new long[0], new int[0]);
+
+        private final long[] userIds;
+        //Mutual colleagues of every user, same order as userIds
+        private final int[] mutual;
+
+        public Ranked(long[] userIds, int[] mutual) {
+            this.userIds = userIds;
+            this.mutual = mutual;
+        }
+
+        public long[] getUserIds() {
+            return userIds;
+        }
+
+        public int[] getMutual() {
+            return mutual;
+        }
+    }
+}
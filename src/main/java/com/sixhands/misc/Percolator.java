@@ -0,0 +1,134 @@
+package com.sixhands.misc;
+
+import java.util.*;
+import java.util.function.LongConsumer;
+
+/**
+ * Reverse index of stored queries: given a changed document, lists the queries that could match it.
+ * <p>
+ * A query requires a set of terms and optionally a name fragment the document's name must contain.
+ * Every query is posted under one anchor only, the term with the fewest queries posted under it when the query
+ * is added, or the rarest trigram of the fragment if the query has no terms. Any matching document has the anchor,
+ * so a lookup only touches the postings of the document's own terms and trigrams and the cost is proportional
+ * to the candidates, not to all queries. Candidates still have to be checked with {@link #matches}. Not thread safe.
+ */
+public class Percolator {
+    private static final int GRAM = 3;
+
+    private final Map<Long, Query> queries = new HashMap<>();
+    private final Map<String, Set<Long>> byTerm = new HashMap<>();
+    private final Map<String, Set<Long>> byGram = new HashMap<>();
+    //Fragments too short for a trigram, checked against every name
+    private final Set<Long> shortFragments = new HashSet<>();
+
+    private static class Query {
+        final Set<String> terms;
+        final String fragment;
+        final String anchor;
+
+        Query(Set<String> terms, String fragment, String anchor) {
+            this.terms = terms;
+            this.fragment = fragment;
+            this.anchor = anchor;
+        }
+    }
+
+    /**
+     * @param fragment lower case, null if the query has no name condition
+     */
+    public void put(long id, Collection<String> terms, String fragment) {
+        remove(id);
+        Set<String> required = new HashSet<>(terms);
+        if (fragment != null && fragment.isEmpty()) fragment = null;
+        if (required.isEmpty() && fragment == null)
+            throw new IllegalArgumentException("Query " + id + " has no conditions");
+
+        String anchor = null;
+        if (!required.isEmpty()) {
+            anchor = rarest(byTerm, required);
+            byTerm.computeIfAbsent(anchor, t -> new HashSet<>()).add(id);
+        } else if (fragment.length() < GRAM) {
+            shortFragments.add(id);
+        } else {
+            anchor = rarest(byGram, grams(fragment));
+            byGram.computeIfAbsent(anchor, g -> new HashSet<>()).add(id);
+        }
+        queries.put(id, new Query(required, fragment, anchor));
+    }
+
+    public boolean remove(long id) {
+        Query query = queries.remove(id);
+        if (query == null) return false;
+        if (!query.terms.isEmpty()) unpost(byTerm, query.anchor, id);
+        else if (query.anchor != null) unpost(byGram, query.anchor, id);
+        else shortFragments.remove(id);
+        return true;
+    }
+
+    /**
+     * Passes every query that could match a document with the terms, queries anchored by a term are passed
+     * regardless of their name fragment
+     */
+    public void forTerms(Collection<String> terms, LongConsumer consumer) {
+        for (String term : terms) {
+            Set<Long> posted = byTerm.get(term);
+            if (posted != null) for (Long id : posted) consumer.accept(id);
+        }
+    }
+
+    /**
+     * Passes every query without terms whose fragment could be contained in the lower case name
+     */
+    public void forName(String name, LongConsumer consumer) {
+        if (name == null) return;
+        for (Long id : shortFragments) consumer.accept(id);
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i + GRAM <= name.length(); i++) {
+            String gram = name.substring(i, i + GRAM);
+            if (!seen.add(gram)) continue;
+            Set<Long> posted = byGram.get(gram);
+            if (posted != null) for (Long id : posted) consumer.accept(id);
+        }
+    }
+
+    /**
+     * @param name lower case, null if the document has no name
+     */
+    public boolean matches(long id, Set<String> terms, String name) {
+        Query query = queries.get(id);
+        if (query == null || !terms.containsAll(query.terms)) return false;
+        return query.fragment == null || (name != null && name.contains(query.fragment));
+    }
+
+    public int size() {
+        return queries.size();
+    }
+
+    private static String rarest(Map<String, Set<Long>> postings, Collection<String> keys) {
+        String ret = null;
+        int best = Integer.MAX_VALUE;
+        for (String key : keys) {
+            Set<Long> posted = postings.get(key);
+            int size = posted == null ? 0 : posted.size();
+            //Ties by the key itself, so the anchor doesn't depend on set iteration order
+            if (size < best || (size == best && key.compareTo(ret) < 0)) {
+                ret = key;
+                best = size;
+            }
+        }
+        return ret;
+    }
+
+    private static Set<String> grams(String fragment) {
+        Set<String> ret = new HashSet<>();
+        for (int i = 0; i + GRAM <= fragment.length(); i++) ret.add(fragment.substring(i, i + GRAM));
+        return ret;
+    }
+
+    private static void unpost(Map<String, Set<Long>> postings, String key, long id) {
+        Set<Long> posted = postings.get(key);
+        if (posted == null) return;
+        posted.remove(id);
+        if (posted.isEmpty()) postings.remove(key);
+    }
+}
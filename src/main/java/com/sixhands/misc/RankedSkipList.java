@@ -0,0 +1,141 @@
+package com.sixhands.misc;
+
+import java.util.Random;
+import java.util.function.BiConsumer;
+
+/**
+ * Ids ordered by score (highest first, ties by lower id) with O(log n) insert, remove, rank and access by rank.
+ * <p>
+ * A skip list where every forward link also stores its span, the number of level 0 steps it jumps over, so the rank
+ * of an entry is the sum of the spans on the way to it. The caller keeps the current score of every id,
+ * an entry is removed with the score it was inserted with. Not thread safe.
+ */
+public class RankedSkipList {
+    private static final int MAX_LEVEL = 32;
+    private static final Random LEVELS = new Random();
+
+    private final Node head = new Node(0, 0, MAX_LEVEL);
+    private int level = 1;
+    private int size = 0;
+
+    private static class Node {
+        final long id;
+        final long score;
+        final Node[] next;
+        final int[] span;
+
+        Node(long id, long score, int levels) {
+            this.id = id;
+            this.score = score;
+            next = new Node[levels];
+            span = new int[levels];
+        }
+    }
+
+    public void insert(long id, long score) {
+        Node[] update = new Node[MAX_LEVEL];
+        int[] rank = new int[MAX_LEVEL];
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            rank[i] = i == level - 1 ? 0 : rank[i + 1];
+            while (x.next[i] != null && before(x.next[i], id, score)) {
+                rank[i] += x.span[i];
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+        int levels = randomLevel();
+        if (levels > level) {
+            for (int i = level; i < levels; i++) {
+                rank[i] = 0;
+                update[i] = head;
+                head.span[i] = size;
+            }
+            level = levels;
+        }
+        Node node = new Node(id, score, levels);
+        for (int i = 0; i < levels; i++) {
+            node.next[i] = update[i].next[i];
+            update[i].next[i] = node;
+            node.span[i] = update[i].span[i] - (rank[0] - rank[i]);
+            update[i].span[i] = rank[0] - rank[i] + 1;
+        }
+        for (int i = levels; i < level; i++) update[i].span[i]++;
+        size++;
+    }
+
+    /**
+     * @return false if there is no such entry
+     */
+    public boolean remove(long id, long score) {
+        Node[] update = new Node[MAX_LEVEL];
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && before(x.next[i], id, score)) x = x.next[i];
+            update[i] = x;
+        }
+        Node node = update[0].next[0];
+        if (node == null || node.id != id || node.score != score) return false;
+        for (int i = 0; i < level; i++) {
+            if (update[i].next[i] == node) {
+                update[i].span[i] += node.span[i] - 1;
+                update[i].next[i] = node.next[i];
+            } else {
+                update[i].span[i]--;
+            }
+        }
+        while (level > 1 && head.next[level - 1] == null) level--;
+        size--;
+        return true;
+    }
+
+    /**
+     * @return 1 based rank of the entry, 0 if there is no such entry
+     */
+    public int rank(long id, long score) {
+        int rank = 0;
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && !before(id, score, x.next[i])) {
+                rank += x.span[i];
+                x = x.next[i];
+            }
+            if (x != head && x.id == id && x.score == score) return rank;
+        }
+        return 0;
+    }
+
+    /**
+     * Passes up to count entries (id, score) starting at the 1 based rank
+     */
+    public void range(int fromRank, int count, BiConsumer<Long, Long> consumer) {
+        if (fromRank < 1 || fromRank > size) return;
+        int traversed = 0;
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--)
+            while (x.next[i] != null && traversed + x.span[i] <= fromRank) {
+                traversed += x.span[i];
+                x = x.next[i];
+            }
+        for (int i = 0; i < count && x != null; i++, x = x.next[0]) consumer.accept(x.id, x.score);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    //Whether the node is ordered before the (id, score) entry
+    private static boolean before(Node node, long id, long score) {
+        return node.score != score ? node.score > score : node.id < id;
+    }
+
+    private static boolean before(long id, long score, Node node) {
+        return score != node.score ? score > node.score : id < node.id;
+    }
+
+    private static int randomLevel() {
+        int levels = 1;
+        while (levels < MAX_LEVEL && LEVELS.nextInt(4) == 0) levels++;
+        return levels;
+    }
+}
@@ -0,0 +1,46 @@
+package com.sixhands.misc;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Keys of in-memory state that has to be re-read from the database after a change committed.
+ * <p>
+ * Keys are marked dirty first, then whoever gets the reload lock drains all dirty keys and re-reads them, so
+ * reloads run one at a time and each one reads after the changes it was marked for. A reload that read older rows
+ * can never be applied after one that read newer rows, and a burst of changes to the same key costs one read.
+ * Keys of a failed reload stay dirty for the next one.
+ */
+public class ReloadQueue<K> {
+    private final Set<K> dirty = new HashSet<>();
+    private final Object reloadLock = new Object();
+
+    /**
+     * Marks the keys and reloads every dirty key, unless a concurrent call already did
+     *
+     * @param reloader reads and applies the given keys, called under the reload lock
+     */
+    public void reload(Collection<K> keys, Consumer<Set<K>> reloader) {
+        synchronized (dirty) {
+            dirty.addAll(keys);
+        }
+        synchronized (reloadLock) {
+            Set<K> batch;
+            synchronized (dirty) {
+                if (dirty.isEmpty()) return;
+                batch = new HashSet<>(dirty);
+                dirty.clear();
+            }
+            try {
+                reloader.accept(batch);
+            } catch (RuntimeException e) {
+                synchronized (dirty) {
+                    dirty.addAll(batch);
+                }
+                throw e;
+            }
+        }
+    }
+}
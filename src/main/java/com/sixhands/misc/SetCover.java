@@ -0,0 +1,53 @@
+package com.sixhands.misc;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * Greedy set cover over bitmasks of up to 64 elements: repeatedly takes the set covering most uncovered elements,
+ * which is within a ln(n) factor of the smallest cover.
+ * <p>
+ * The greedy pass is lazy: gains only shrink as elements get covered, so a set is re-scored only when it reaches
+ * the top of the queue, and it is taken right away if its fresh gain still beats the next stale one.
+ */
+public class SetCover {
+    private SetCover() {
+    }
+
+    /**
+     * @param masks      elements covered by every candidate set
+     * @param required   elements to cover
+     * @param maxSets    upper bound of the cover size
+     * @param deadline   {@link System#nanoTime()} after which the current partial cover is returned
+     * @return indices of the chosen sets in pick order, may leave elements uncovered if the sets can't cover them,
+     * maxSets is reached or the deadline passes
+     */
+    public static int[] cover(long[] masks, long required, int maxSets, long deadline) {
+        int[] gains = new int[masks.length];
+        PriorityQueue<Integer> queue = new PriorityQueue<>(Math.max(1, masks.length),
+                (a, b) -> gains[a] != gains[b] ? gains[b] - gains[a] : a - b);
+        for (int i = 0; i < masks.length; i++) {
+            gains[i] = Long.bitCount(masks[i] & required);
+            if (gains[i] > 0) queue.add(i);
+        }
+
+        int[] chosen = new int[Math.min(maxSets, 64)];
+        int size = 0;
+        long uncovered = required;
+        while (uncovered != 0 && size < chosen.length && !queue.isEmpty()) {
+            if (System.nanoTime() - deadline > 0) break;
+            int top = queue.poll();
+            int gain = Long.bitCount(masks[top] & uncovered);
+            if (gain == 0) continue;
+            Integer next = queue.peek();
+            if (next != null && gain < gains[next]) {
+                gains[top] = gain;
+                queue.add(top);
+                continue;
+            }
+            chosen[size++] = top;
+            uncovered &= ~masks[top];
+        }
+        return Arrays.copyOf(chosen, size);
+    }
+}
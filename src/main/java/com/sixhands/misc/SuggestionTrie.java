@@ -0,0 +1,195 @@
+package com.sixhands.misc;
+
+import java.util.*;
+
+/**
+ * Counted keys in a compressed prefix (radix) trie, answering "the k most frequent keys starting with a prefix".
+ * <p>
+ * Every node keeps the top {@code k} keys of its subtree, so a query only walks the prefix and copies one array.
+ * Changing the count of a key recomputes the top lists of the nodes on its path from their children's lists,
+ * O(key length * fan-out * k). Keys with a count of 0 are removed and single-child chains are merged again.
+ * Ties are ordered by key so results are stable. Not thread safe.
+ */
+public class SuggestionTrie {
+    private final int k;
+    private final Node root = new Node("", "");
+    private int size = 0;
+
+    private static class Node {
+        String edge;
+        final String key;
+        String label;
+        long count;
+        final Map<Character, Node> children = new HashMap<>(4);
+        Node[] top = new Node[0];
+
+        Node(String edge, String key) {
+            this.edge = edge;
+            this.key = key;
+        }
+    }
+
+    public static class Suggestion {
+        private final String key;
+        private final String label;
+        private final long count;
+
+        public Suggestion(String key, String label, long count) {
+            this.key = key;
+            this.label = label;
+            this.count = count;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+
+    /**
+     * @param k amount of suggestions kept at every node, the most a query can return
+     */
+    public SuggestionTrie(int k) {
+        this.k = k;
+    }
+
+    /**
+     * Adds delta to the key's count, counts don't go below 0
+     *
+     * @param label what is shown for the key, the first one given is kept
+     */
+    public void add(String key, String label, long delta) {
+        if (key.isEmpty() || delta == 0) return;
+        List<Node> path = new ArrayList<>();
+        path.add(root);
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.children.get(key.charAt(i));
+            if (child == null) {
+                if (delta < 0) return;
+                child = new Node(key.substring(i), key);
+                node.children.put(key.charAt(i), child);
+                path.add(child);
+                node = child;
+                break;
+            }
+            int common = commonPrefix(child.edge, key, i);
+            if (common < child.edge.length()) {
+                if (delta < 0) return;
+                //Split the edge, the new node takes the common part
+                Node mid = new Node(child.edge.substring(0, common), key.substring(0, i + common));
+                child.edge = child.edge.substring(common);
+                mid.children.put(child.edge.charAt(0), child);
+                node.children.put(mid.edge.charAt(0), mid);
+                child = mid;
+            }
+            path.add(child);
+            node = child;
+            i += common;
+        }
+
+        boolean counted = node.count > 0;
+        node.count = Math.max(0, node.count + delta);
+        if (node.label == null) node.label = label;
+        if (node.count > 0) {
+            if (!counted) size++;
+        } else {
+            if (counted) size--;
+            node.label = null;
+            prune(path);
+        }
+        for (int j = path.size() - 1; j >= 0; j--) updateTop(path.get(j));
+    }
+
+    public long count(String key) {
+        Node node = find(key);
+        return node != null && node.key.equals(key) ? node.count : 0;
+    }
+
+    /**
+     * @return up to limit (at most k) keys starting with the prefix, most frequent first
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        Node node = find(prefix);
+        if (node == null) return Collections.emptyList();
+        int size = Math.min(limit, node.top.length);
+        List<Suggestion> ret = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) ret.add(new Suggestion(node.top[i].key, node.top[i].label, node.top[i].count));
+        return ret;
+    }
+
+    //Amount of keys with a count
+    public int size() {
+        return size;
+    }
+
+    //Node whose subtree holds exactly the keys starting with the prefix, it may end inside the node's edge
+    private Node find(String prefix) {
+        Node node = root;
+        int i = 0;
+        while (i < prefix.length()) {
+            Node child = node.children.get(prefix.charAt(i));
+            if (child == null) return null;
+            int common = commonPrefix(child.edge, prefix, i);
+            if (i + common == prefix.length()) return child;
+            if (common < child.edge.length()) return null;
+            node = child;
+            i += common;
+        }
+        return node;
+    }
+
+    //Removes the last node of the path if it became an empty leaf and merges what is left with its only child
+    private void prune(List<Node> path) {
+        int last = path.size() - 1;
+        Node node = path.get(last);
+        if (node.children.isEmpty()) {
+            path.get(last - 1).children.remove(node.edge.charAt(0));
+            path.remove(last--);
+            node = path.get(last);
+        }
+        if (last > 0 && node.count == 0 && node.children.size() == 1) {
+            Node child = node.children.values().iterator().next();
+            child.edge = node.edge + child.edge;
+            path.get(last - 1).children.put(child.edge.charAt(0), child);
+            path.set(last, child);
+        }
+    }
+
+    private void updateTop(Node node) {
+        Node[] best = new Node[k];
+        int size = 0;
+        if (node.count > 0) best[size++] = node;
+        for (Node child : node.children.values())
+            for (Node candidate : child.top) {
+                if (size == k && !better(candidate, best[k - 1])) break;
+                int pos = size == k ? k - 1 : size++;
+                while (pos > 0 && better(candidate, best[pos - 1])) {
+                    best[pos] = best[pos - 1];
+                    pos--;
+                }
+                best[pos] = candidate;
+            }
+        node.top = size == k ? best : Arrays.copyOf(best, size);
+    }
+
+    private static boolean better(Node a, Node b) {
+        if (a.count != b.count) return a.count > b.count;
+        return a.key.compareTo(b.key) < 0;
+    }
+
+    private static int commonPrefix(String edge, String key, int from) {
+        int max = Math.min(edge.length(), key.length() - from);
+        int i = 0;
+        while (i < max && edge.charAt(i) == key.charAt(from + i)) i++;
+        return i;
+    }
+}
@@ -0,0 +1,10 @@
+package com.sixhands.repository;
+
+import com.sixhands.domain.AnalyticsConfirmation;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface AnalyticsConfirmationRepository extends JpaRepository<AnalyticsConfirmation, Long> {
+    List<AnalyticsConfirmation> findAllByOrderByIndustryAscRoleAsc();
+}
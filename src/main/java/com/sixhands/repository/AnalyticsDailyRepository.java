@@ -0,0 +1,11 @@
+package com.sixhands.repository;
+
+import com.sixhands.domain.AnalyticsDaily;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Date;
+import java.util.List;
+
+public interface AnalyticsDailyRepository extends JpaRepository<AnalyticsDaily, Long> {
+    List<AnalyticsDaily> findByDayGreaterThanEqualOrderByDayDesc(Date since);
+}
@@ -0,0 +1,15 @@
+package com.sixhands.repository;
+
+import com.sixhands.domain.CompanyStats;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface CompanyStatsRepository extends JpaRepository<CompanyStats, Long> {
+    Optional<CompanyStats> findByName(String name);
+
+    //The memberCount index ends with the primary key, so both orders are read from it
+    List<CompanyStats> findAllByOrderByMemberCountDescUuidDesc(Pageable pageable);
+}
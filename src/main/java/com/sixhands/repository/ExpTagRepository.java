@@ -0,0 +1,15 @@
+package com.sixhands.repository;
+
+import com.sixhands.domain.ExpTag;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface ExpTagRepository extends JpaRepository<ExpTag, Long> {
+    List<ExpTag> findByUserUUID(Long userUUID);
+
+    @Query("select distinct t.userUUID from ExpTag t where t.tagUUID = :tag")
+    List<Long> findUserIds(@Param("tag") Long tagUUID);
+}
@@ -0,0 +1,37 @@
+package com.sixhands.repository;
+
+import com.sixhands.domain.FeedEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+public interface FeedEntryRepository extends JpaRepository<FeedEntry, Long> {
+    //Keyset pages ordered by (timestamp, uuid), entries of the same second are not skipped between pages
+    @Query("select f from FeedEntry f where f.ownerUUID = :owner " +
+            "and (f.timestamp < :before or (f.timestamp = :before and f.uuid < :beforeId)) " +
+            "order by f.timestamp desc, f.uuid desc")
+    List<FeedEntry> findPage(@Param("owner") Long ownerUUID, @Param("before") Date before, @Param("beforeId") Long beforeId, Pageable pageable);
+
+    @Query("select f from FeedEntry f where f.broadcast = true and f.actorUUID in :actors " +
+            "and (f.timestamp < :before or (f.timestamp = :before and f.uuid < :beforeId)) " +
+            "order by f.timestamp desc, f.uuid desc")
+    List<FeedEntry> findBroadcastPage(@Param("actors") Collection<Long> actors, @Param("before") Date before, @Param("beforeId") Long beforeId, Pageable pageable);
+
+    @Query("select distinct f.actorUUID from FeedEntry f where f.broadcast = true")
+    List<Long> findBroadcastActors();
+
+    @Query("select f.ownerUUID from FeedEntry f where f.ownerUUID is not null group by f.ownerUUID having count(f) > :capacity")
+    List<Long> findOwnersOver(@Param("capacity") long capacity);
+
+    @Transactional
+    @Modifying
+    @Query("delete from FeedEntry f where f.ownerUUID = :owner and f.timestamp < :before")
+    int deleteOlder(@Param("owner") Long owner, @Param("before") Date before);
+}
@@ -0,0 +1,34 @@
+package com.sixhands.repository;
+
+import com.sixhands.domain.MailOutboxEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.List;
+
+public interface MailOutboxRepository extends JpaRepository<MailOutboxEntry, Long> {
+    List<MailOutboxEntry> findByStatusAndNextAttemptLessThanEqualOrderByNextAttempt(MailOutboxEntry.Status status, Date now, Pageable pageable);
+
+    //Returns 0 if the mail was already claimed by another worker
+    @Transactional
+    @Modifying
+    @Query("update MailOutboxEntry m set m.status = :to, m.claimed = :now where m.uuid = :uuid and m.status = :from")
+    int transition(@Param("uuid") Long uuid, @Param("from") MailOutboxEntry.Status from, @Param("to") MailOutboxEntry.Status to, @Param("now") Date now);
+
+    //Mails of workers that died while sending
+    @Transactional
+    @Modifying
+    @Query("update MailOutboxEntry m set m.status = :to where m.status = :from and m.claimed < :before")
+    int releaseStale(@Param("from") MailOutboxEntry.Status from, @Param("to") MailOutboxEntry.Status to, @Param("before") Date before);
+
+    //Limited, so a purge never holds locks on the whole table
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM mail_outbox WHERE status = 'SENT' AND sent < :before LIMIT :limit", nativeQuery = true)
+    int deleteSent(@Param("before") Date before, @Param("limit") int limit);
+}
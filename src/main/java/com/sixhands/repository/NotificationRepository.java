@@ -1,7 +1,34 @@
 package com.sixhands.repository;
 
 import com.sixhands.domain.Notification;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
 
 public interface NotificationRepository extends JpaRepository<Notification,Long> {
+    //The timestamp bound lets MySQL prune old partitions
+    List<Notification> findByUserUUIDAndTimestampGreaterThanEqualOrderByTimestampDesc(Long userUUID, Date since, Pageable pageable);
+
+    //Rows new notifications of these users can be merged into
+    @Query("select n from Notification n where n.userUUID in :users and n.type is not null and n.projectUUID is not null and n.timestamp >= :since")
+    List<Notification> findCoalescible(@Param("users") Collection<Long> users, @Param("since") Date since);
+
+    //Counts are added in the database, concurrent dispatches coalescing into the same row don't lose increments.
+    //Returns 0 if the row is gone
+    @Modifying(clearAutomatically = true)
+    @Query("update Notification n set n.count = n.count + :count where n.uuid = :uuid")
+    int addCount(@Param("uuid") Long uuid, @Param("count") int count);
+
+    //Only moves forward, a slower dispatch of an older notification keeps the newer actor and text
+    @Modifying(clearAutomatically = true)
+    @Query("update Notification n set n.timestamp = :timestamp, n.actorUUID = :actorUUID, n.message = :message, n.urlPath = :urlPath " +
+            "where n.uuid = :uuid and n.timestamp < :timestamp")
+    int touch(@Param("uuid") Long uuid, @Param("timestamp") Date timestamp, @Param("actorUUID") Long actorUUID,
+              @Param("message") String message, @Param("urlPath") String urlPath);
 }
@@ -0,0 +1,23 @@
+package com.sixhands.repository;
+
+import com.sixhands.domain.ProfileViewSketch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+public interface ProfileViewSketchRepository extends JpaRepository<ProfileViewSketch, Long> {
+    List<ProfileViewSketch> findByUserUUIDAndDayGreaterThanEqual(Long userUUID, Date since);
+
+    List<ProfileViewSketch> findByDayAndUserUUIDIn(Date day, Collection<Long> userUUIDs);
+
+    @Transactional
+    @Modifying
+    @Query("delete from ProfileViewSketch s where s.day < :before")
+    int deleteOlder(@Param("before") Date before);
+}
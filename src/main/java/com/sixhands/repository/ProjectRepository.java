@@ -2,7 +2,19 @@ package com.sixhands.repository;
 
 import com.sixhands.domain.Project;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 
 public interface ProjectRepository extends JpaRepository<Project, Long> {
+    boolean existsByImportID(String importID);
+
+    //[uuid, confirmed, industry, distinct likes] of every project, without loading the like collections
+    @Query("select p.uuid, p.confirmed, p.industry, count(distinct l) from Project p left join p.likedUserIDs l group by p.uuid, p.confirmed, p.industry")
+    List<Object[]> findRatingInputs();
+
+    @Query("select p.uuid, p.confirmed, p.industry, count(distinct l) from Project p left join p.likedUserIDs l where p.uuid = :project group by p.uuid, p.confirmed, p.industry")
+    List<Object[]> findRatingInputs(@Param("project") Long projectUUID);
 }
@@ -0,0 +1,12 @@
+package com.sixhands.repository;
+
+import com.sixhands.domain.SavedSearch;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface SavedSearchRepository extends JpaRepository<SavedSearch, Long> {
+    List<SavedSearch> findByOwnerUUIDOrderByCreatedDesc(Long ownerUUID);
+
+    long countByOwnerUUID(Long ownerUUID);
+}
@@ -0,0 +1,10 @@
+package com.sixhands.repository;
+
+import com.sixhands.domain.Tag;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface TagRepository extends JpaRepository<Tag, Long> {
+    Optional<Tag> findByKindAndName(Tag.Kind kind, String name);
+}
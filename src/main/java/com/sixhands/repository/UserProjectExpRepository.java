@@ -2,7 +2,23 @@ package com.sixhands.repository;
 
 import com.sixhands.domain.UserProjectExp;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 
+import java.util.List;
+
+//Field names contain underscores, which derived queries treat as property paths, so lookups use @Query
 public interface UserProjectExpRepository extends JpaRepository<UserProjectExp, Long> {
+    //Users sharing at least one project with the user, the user included
+    @Query("select distinct e.user_uuid from UserProjectExp e where e.project_uuid in " +
+            "(select m.project_uuid from UserProjectExp m where m.user_uuid = :user)")
+    List<Long> findColleagueIds(@Param("user") Long userUUID);
+
+    //[user, project, confirmed] of every exp
+    @Query("select e.user_uuid, e.project_uuid, e.confirmed from UserProjectExp e where e.user_uuid is not null and e.project_uuid is not null")
+    List<Object[]> findMemberships();
+
+    @Query("select e.user_uuid, e.project_uuid, e.confirmed from UserProjectExp e where e.user_uuid is not null and e.project_uuid = :project")
+    List<Object[]> findMemberships(@Param("project") Long projectUUID);
 }
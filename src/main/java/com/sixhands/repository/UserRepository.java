@@ -2,8 +2,10 @@ package com.sixhands.repository;
 
 import com.sixhands.domain.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -11,4 +13,8 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByResetToken(String resetToken);
     Optional<User> findFirstByResetToken(String resetToken);
     User findByActivationCode(String code);
+
+    //Users that get the rating point for a confirmed project, see UserService.getRatingForUser
+    @Query("select u.uuid from User u where u.confirmed_project = true")
+    List<Long> findConfirmedProjectUserIds();
 }
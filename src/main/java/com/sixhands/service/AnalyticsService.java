@@ -0,0 +1,206 @@
+package com.sixhands.service;
+
+import com.sixhands.domain.AnalyticsConfirmation;
+import com.sixhands.domain.AnalyticsDaily;
+import com.sixhands.event.ProjectActivityEvent;
+import com.sixhands.event.ProjectMembershipEvent;
+import com.sixhands.event.UserRegisteredEvent;
+import com.sixhands.repository.AnalyticsConfirmationRepository;
+import com.sixhands.repository.AnalyticsDailyRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Rollups for the admin dashboard: registrations, created projects, confirmations and likes per day
+ * ({@code analytics_daily}) and members/confirmed members per project industry and role ({@code analytics_confirmation}).
+ * <p>
+ * Committed events bump the rows with {@code INSERT ... ON DUPLICATE KEY UPDATE}, so the dashboard reads a few
+ * hundred rows instead of the base tables. A nightly job recounts what the base tables can tell and replaces
+ * the drifted rows: registrations and projects per day from their creation timestamps, and the confirmation table,
+ * which events only ever increase (deleted projects are only subtracted there). Confirmations and likes have
+ * no timestamps in the base tables, their daily rows come from events only. Likes are net: an unlike subtracts
+ * one from its day, so toggling a like back and forth doesn't inflate the count.
+ */
+@Service
+public class AnalyticsService {
+    private static final String BUMP_DAILY = "INSERT INTO analytics_daily (day, metric, count) VALUES (?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE count = count + VALUES(count)";
+    private static final String BUMP_CONFIRMATION = "INSERT INTO analytics_confirmation (industry, role, members, confirmed) " +
+            "VALUES (?, ?, ?, ?) ON DUPLICATE KEY UPDATE members = members + VALUES(members), confirmed = confirmed + VALUES(confirmed)";
+    private static final String SELECT_EXP = "SELECT COALESCE(p.industry, ''), COALESCE(e.role, '') FROM user_project_exp e " +
+            "JOIN project p ON p.uuid = e.project_uuid WHERE e.user_uuid = ? AND e.project_uuid = ?";
+
+    @Autowired
+    private AnalyticsDailyRepository dailyRepo;
+    @Autowired
+    private AnalyticsConfirmationRepository confirmationRepo;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate writeTemplate;
+    private Logger logger = Logger.getLogger(AnalyticsService.class.getName());
+
+    public static class Day {
+        private final Date day;
+        private final Map<AnalyticsDaily.Metric, Long> counts = new EnumMap<>(AnalyticsDaily.Metric.class);
+
+        public Day(Date day) {
+            this.day = day;
+        }
+
+        public Date getDay() {
+            return day;
+        }
+
+        public long getRegistrations() {
+            return counts.getOrDefault(AnalyticsDaily.Metric.REGISTRATIONS, 0L);
+        }
+
+        public long getProjects() {
+            return counts.getOrDefault(AnalyticsDaily.Metric.PROJECTS, 0L);
+        }
+
+        public long getConfirmations() {
+            return counts.getOrDefault(AnalyticsDaily.Metric.CONFIRMATIONS, 0L);
+        }
+
+        public long getLikes() {
+            return counts.getOrDefault(AnalyticsDaily.Metric.LIKES, 0L);
+        }
+    }
+
+    @PostConstruct
+    public void initTemplate() {
+        //Listeners run after the commit, the reconciliation swaps rows in a transaction of its own
+        writeTemplate = new TransactionTemplate(transactionManager);
+        writeTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    //A fresh install has nothing to show until the first nightly run otherwise
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        if (dailyRepo.count() == 0 && confirmationRepo.count() == 0) reconcile();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRegistered(UserRegisteredEvent event) {
+        bumpDaily(event.getTimestamp(), AnalyticsDaily.Metric.REGISTRATIONS);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onActivity(ProjectActivityEvent event) {
+        switch (event.getType()) {
+            case CREATED:
+                bumpDaily(event.getTimestamp(), AnalyticsDaily.Metric.PROJECTS);
+                break;
+            case LIKED:
+                bumpDaily(event.getTimestamp(), AnalyticsDaily.Metric.LIKES);
+                break;
+            case UNLIKED:
+                bumpDaily(event.getTimestamp(), AnalyticsDaily.Metric.LIKES, -1);
+                break;
+            case CONFIRMED:
+                bumpDaily(event.getTimestamp(), AnalyticsDaily.Metric.CONFIRMATIONS);
+                bumpConfirmation(event.getActorUUID(), event.getProjectUUID(), 0, 1);
+                break;
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMembershipChanged(ProjectMembershipEvent event) {
+        //Left members belong to deleted projects, their exps are gone, the nightly recount subtracts them
+        if (event.isJoined()) bumpConfirmation(event.getUserUUID(), event.getProjectUUID(), 1, 0);
+    }
+
+    /**
+     * @return the last days, newest first, days without any counts are left out
+     */
+    public List<Day> getDays(int days) {
+        LocalDate since = LocalDate.now().minusDays(days - 1);
+        Map<Date, Day> ret = new LinkedHashMap<>();
+        for (AnalyticsDaily row : dailyRepo.findByDayGreaterThanEqualOrderByDayDesc(java.sql.Date.valueOf(since)))
+            ret.computeIfAbsent(row.getDay(), Day::new).counts.merge(row.getMetric(), row.getCount(), Long::sum);
+        return new ArrayList<>(ret.values());
+    }
+
+    public List<AnalyticsConfirmation> getConfirmations() {
+        return confirmationRepo.findAllByOrderByIndustryAscRoleAsc();
+    }
+
+    @Scheduled(cron = "${6hands.analytics.reconcile-cron:0 30 4 * * *}")
+    public void reconcile() {
+        long start = System.currentTimeMillis();
+        List<Object[]> registrations = countByDay("SELECT DATE(creation_timestamp), COUNT(*) FROM `user` " +
+                "WHERE creation_timestamp IS NOT NULL GROUP BY DATE(creation_timestamp)", AnalyticsDaily.Metric.REGISTRATIONS);
+        List<Object[]> projects = countByDay("SELECT DATE(created), COUNT(*) FROM project " +
+                "WHERE created IS NOT NULL GROUP BY DATE(created)", AnalyticsDaily.Metric.PROJECTS);
+        List<Object[]> confirmations = jdbcTemplate.query("SELECT COALESCE(p.industry, ''), COALESCE(e.role, ''), " +
+                        "COUNT(*), SUM(CASE WHEN e.confirmed THEN 1 ELSE 0 END) FROM user_project_exp e " +
+                        "JOIN project p ON p.uuid = e.project_uuid WHERE e.user_uuid IS NOT NULL GROUP BY 1, 2",
+                (rs, i) -> new Object[]{rs.getString(1), rs.getString(2), rs.getLong(3), rs.getLong(4)});
+
+        writeTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM analytics_daily WHERE metric IN (?, ?)",
+                    AnalyticsDaily.Metric.REGISTRATIONS.name(), AnalyticsDaily.Metric.PROJECTS.name());
+            jdbcTemplate.batchUpdate(BUMP_DAILY, registrations);
+            jdbcTemplate.batchUpdate(BUMP_DAILY, projects);
+            jdbcTemplate.update("DELETE FROM analytics_confirmation");
+            jdbcTemplate.batchUpdate("INSERT INTO analytics_confirmation (industry, role, members, confirmed) VALUES (?, ?, ?, ?)",
+                    confirmations, confirmations.size(), (ps, row) -> {
+                        ps.setString(1, (String) row[0]);
+                        ps.setString(2, (String) row[1]);
+                        ps.setLong(3, (Long) row[2]);
+                        ps.setLong(4, (Long) row[3]);
+                    });
+        });
+        logger.info("Analytics reconciled: " + registrations.size() + " registration days, " + projects.size()
+                + " project days, " + confirmations.size() + " industry/role pairs in " + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    //[day, metric, count] rows for BUMP_DAILY
+    private List<Object[]> countByDay(String sql, AnalyticsDaily.Metric metric) {
+        return jdbcTemplate.query(sql, (rs, i) -> new Object[]{rs.getDate(1), metric.name(), rs.getLong(2)});
+    }
+
+    private void bumpDaily(Date timestamp, AnalyticsDaily.Metric metric) {
+        bumpDaily(timestamp, metric, 1);
+    }
+
+    private void bumpDaily(Date timestamp, AnalyticsDaily.Metric metric, int amount) {
+        LocalDate day = timestamp.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+        try {
+            jdbcTemplate.update(BUMP_DAILY, java.sql.Date.valueOf(day), metric.name(), amount);
+        } catch (RuntimeException e) {
+            //The counted operation is committed already, the nightly recount fixes what it can
+            logger.log(Level.WARNING, "Unable to count " + metric + " on " + day, e);
+        }
+    }
+
+    private void bumpConfirmation(Long userUUID, Long projectUUID, int members, int confirmed) {
+        if (userUUID == null || projectUUID == null) return;
+        try {
+            List<Object[]> exps = jdbcTemplate.query(SELECT_EXP, (rs, i) -> new Object[]{rs.getString(1), rs.getString(2)},
+                    userUUID, projectUUID);
+            for (Object[] exp : exps) jdbcTemplate.update(BUMP_CONFIRMATION, exp[0], exp[1], members, confirmed);
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Unable to count the membership of user " + userUUID + " in project " + projectUUID, e);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.sixhands.service;
+
+import com.sixhands.domain.Tag;
+import com.sixhands.event.ProjectMembershipEvent;
+import com.sixhands.event.ProjectUpdatedEvent;
+import com.sixhands.event.UserExpChangedEvent;
+import com.sixhands.misc.ReloadQueue;
+import com.sixhands.misc.SuggestionTrie;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Logger;
+
+/**
+ * Suggestions for skills, tools, companies and industries, ranked by how many exps (skills, tools, companies
+ * of custom exps) or projects (companies, industries) use them.
+ * <p>
+ * One {@link SuggestionTrie} per kind holds the counts with the top suggestions precomputed at every node.
+ * The terms every user's exps and every project contributed are remembered, so when a {@link UserExpChangedEvent},
+ * {@link ProjectUpdatedEvent} or {@link ProjectMembershipEvent} commits only the difference is applied to the tries.
+ * Reloads go through {@link ReloadQueue}s, so an older read is never applied after a newer one.
+ * Skills and tools are split and labeled like {@link TagDictionary} does.
+ */
+@Service
+public class AutocompleteService {
+    public static final int MAX_SIZE = 10;
+    private static final String SELECT_EXPS = "SELECT user_uuid, skills, tools, custom_company FROM user_project_exp WHERE user_uuid IS NOT NULL";
+    private static final String SELECT_PROJECTS = "SELECT uuid, company, industry FROM project";
+
+    public enum Kind {
+        SKILL,
+        TOOL,
+        COMPANY,
+        INDUSTRY
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TagDictionary tagDictionary;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Kind, SuggestionTrie> tries = new EnumMap<>(Kind.class);
+    //Term counts each user's exps and each project added to the tries
+    private final Map<Long, Map<Term, Integer>> byUser = new HashMap<>();
+    private final Map<Long, Map<Term, Integer>> byProject = new HashMap<>();
+    //Users and projects count into separate maps, their reloads are independent
+    private final ReloadQueue<Long> userReloads = new ReloadQueue<>();
+    private final ReloadQueue<Long> projectReloads = new ReloadQueue<>();
+    private volatile boolean loaded = false;
+
+    private Logger logger = Logger.getLogger(AutocompleteService.class.getName());
+
+    private static class Term {
+        final Kind kind;
+        final String key;
+        final String label;
+
+        Term(Kind kind, String key, String label) {
+            this.kind = kind;
+            this.key = key;
+            this.label = label;
+        }
+
+        //Labels are only a display hint, terms are the same if kind and key are
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Term)) return false;
+            Term term = (Term) o;
+            return kind == term.kind && key.equals(term.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return kind.hashCode() * 31 + key.hashCode();
+        }
+    }
+
+    public AutocompleteService() {
+        for (Kind kind : Kind.values()) tries.put(kind, new SuggestionTrie(MAX_SIZE));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        long start = System.currentTimeMillis();
+        Map<Long, Map<Term, Integer>> users = new HashMap<>();
+        jdbcTemplate.query(SELECT_EXPS, expCollector(users));
+        Map<Long, Map<Term, Integer>> projects = new HashMap<>();
+        jdbcTemplate.query(SELECT_PROJECTS, projectCollector(projects));
+        lock.writeLock().lock();
+        try {
+            users.forEach((user, terms) -> replace(byUser, user, terms));
+            projects.forEach((project, terms) -> replace(byProject, project, terms));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        loaded = true;
+        StringBuilder sizes = new StringBuilder();
+        for (Kind kind : Kind.values()) sizes.append(' ').append(tries.get(kind).size()).append(' ').append(kind.name().toLowerCase());
+        logger.info("Autocomplete loaded" + sizes + " terms in " + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserExpChanged(UserExpChangedEvent event) {
+        if (event.getUserUUID() == null || !loaded) return;
+        userReloads.reload(Collections.singleton(event.getUserUUID()), users -> {
+            Map<Long, Map<Term, Integer>> fresh = new HashMap<>();
+            jdbcTemplate.query(SELECT_EXPS + " AND user_uuid IN (" + placeholders(users.size()) + ")", expCollector(fresh), users.toArray());
+            lock.writeLock().lock();
+            try {
+                for (Long user : users) replace(byUser, user, fresh.getOrDefault(user, Collections.emptyMap()));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProjectUpdated(ProjectUpdatedEvent event) {
+        reloadProject(event.getProjectUUID());
+    }
+
+    //Also the only event of a created or deleted project
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMembershipChanged(ProjectMembershipEvent event) {
+        reloadProject(event.getProjectUUID());
+    }
+
+    public List<SuggestionTrie.Suggestion> suggest(Kind kind, String prefix, int size) {
+        String key = normalize(prefix);
+        lock.readLock().lock();
+        try {
+            return tries.get(kind).suggest(key, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public static Kind parseKind(String kind) {
+        try {
+            return Kind.valueOf(kind.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown kind " + kind + ", expected one of " + Arrays.toString(Kind.values()));
+        }
+    }
+
+    private void reloadProject(Long projectId) {
+        if (projectId == null || !loaded) return;
+        projectReloads.reload(Collections.singleton(projectId), projects -> {
+            Map<Long, Map<Term, Integer>> fresh = new HashMap<>();
+            jdbcTemplate.query(SELECT_PROJECTS + " WHERE uuid IN (" + placeholders(projects.size()) + ")",
+                    projectCollector(fresh), projects.toArray());
+            lock.writeLock().lock();
+            try {
+                for (Long project : projects) replace(byProject, project, fresh.getOrDefault(project, Collections.emptyMap()));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    private static String placeholders(int count) {
+        StringBuilder ret = new StringBuilder();
+        for (int i = 0; i < count; i++) ret.append(i == 0 ? "?" : ",?");
+        return ret.toString();
+    }
+
+    //Applies the difference between the owner's stored and new term counts
+    private void replace(Map<Long, Map<Term, Integer>> owners, Long owner, Map<Term, Integer> terms) {
+        Map<Term, Integer> old = terms.isEmpty() ? owners.remove(owner) : owners.put(owner, terms);
+        if (old != null)
+            old.forEach((term, count) -> {
+                int delta = terms.getOrDefault(term, 0) - count;
+                if (delta != 0) tries.get(term.kind).add(term.key, term.label, delta);
+            });
+        terms.forEach((term, count) -> {
+            if (old == null || !old.containsKey(term)) tries.get(term.kind).add(term.key, term.label, count);
+        });
+    }
+
+    private RowCallbackHandler expCollector(Map<Long, Map<Term, Integer>> to) {
+        return rs -> {
+            Map<Term, Integer> terms = to.computeIfAbsent(rs.getLong(1), u -> new HashMap<>());
+            for (Tag tag : tagDictionary.lookup(Tag.Kind.SKILL, rs.getString(2)))
+                terms.merge(new Term(Kind.SKILL, tag.getName(), tag.getLabel()), 1, Integer::sum);
+            for (Tag tag : tagDictionary.lookup(Tag.Kind.TOOL, rs.getString(3)))
+                terms.merge(new Term(Kind.TOOL, tag.getName(), tag.getLabel()), 1, Integer::sum);
+            count(terms, Kind.COMPANY, rs.getString(4));
+        };
+    }
+
+    private static RowCallbackHandler projectCollector(Map<Long, Map<Term, Integer>> to) {
+        return rs -> {
+            Map<Term, Integer> terms = to.computeIfAbsent(rs.getLong(1), p -> new HashMap<>());
+            count(terms, Kind.COMPANY, rs.getString(2));
+            count(terms, Kind.INDUSTRY, rs.getString(3));
+        };
+    }
+
+    private static void count(Map<Term, Integer> terms, Kind kind, String value) {
+        if (value == null) return;
+        String label = TagDictionary.label(value);
+        String name = TagDictionary.name(label);
+        if (TagDictionary.isTerm(name)) terms.merge(new Term(kind, name, label), 1, Integer::sum);
+    }
+
+    //Lower case with collapsed whitespace, like the stored keys; a trailing space is kept, it ends a word
+    private static String normalize(String prefix) {
+        if (prefix == null) return "";
+        String ret = TagDictionary.collapse(TagDictionary.name(prefix));
+        return ret.startsWith(" ") ? ret.substring(1) : ret;
+    }
+}
@@ -0,0 +1,192 @@
+package com.sixhands.service;
+
+import com.sixhands.controller.dtos.ColleaguePathDTO;
+import com.sixhands.domain.Project;
+import com.sixhands.domain.User;
+import com.sixhands.event.ProjectMembershipEvent;
+import com.sixhands.misc.ColleagueGraph;
+import com.sixhands.repository.ProjectRepository;
+import com.sixhands.repository.UserRepository;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the {@link ColleagueGraph} of all project memberships in memory.
+ * <p>
+ * The graph is built from {@code user_project_exp} on startup and kept up to date from {@link ProjectMembershipEvent}s
+ * after their transaction commits. Changes pile up in the graph's overlay until the periodic rebuild folds them
+ * into the compressed arrays. Changes that arrive while a rebuild is loading are replayed onto the new graph.
+ */
+@Service
+public class ColleagueGraphService {
+    //"Six handshakes"
+    public static final int MAX_HOPS = 6;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private UserRepository userRepo;
+    @Autowired
+    private ProjectRepository projectRepo;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private ColleagueGraph graph;
+    //Not null while a rebuild is loading memberships
+    private List<ProjectMembershipEvent> pending;
+
+    private Logger logger = Logger.getLogger(ColleagueGraphService.class.getName());
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${6hands.graph.rebuild-ms:600000}", initialDelayString = "${6hands.graph.rebuild-ms:600000}")
+    public void rebuildIfChanged() {
+        lock.readLock().lock();
+        try {
+            if (graph != null && graph.getOverlaySize() == 0) return;
+        } finally {
+            lock.readLock().unlock();
+        }
+        rebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMembershipChanged(ProjectMembershipEvent event) {
+        if (event.getUserUUID() == null || event.getProjectUUID() == null) return;
+        lock.writeLock().lock();
+        try {
+            if (pending != null) pending.add(event);
+            if (graph != null) apply(graph, event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return shortest chain of colleagues from one user to another, null if they are further than {@link #MAX_HOPS} apart
+     */
+    public ColleagueGraph.Path findPath(Long fromUUID, Long toUUID) {
+        return read(graph -> graph.shortestPath(fromUUID, toUUID, MAX_HOPS));
+    }
+
+    public ColleaguePathDTO getPathDTO(Long fromUUID, Long toUUID) {
+        ColleagueGraph.Path path = findPath(fromUUID, toUUID);
+        List<JSONObject> users = new ArrayList<>();
+        List<JSONObject> projects = new ArrayList<>();
+        if (path == null) return new ColleaguePathDTO(users, projects);
+
+        Map<Long, User> usersById = new HashMap<>();
+        for (User user : userRepo.findAllById(toList(path.getUsers()))) usersById.put(user.getUuid(), user);
+        Map<Long, Project> projectsById = new HashMap<>();
+        for (Project project : projectRepo.findAllById(toList(path.getProjects()))) projectsById.put(project.getUuid(), project);
+        for (long id : path.getUsers()) {
+            User user = usersById.get(id);
+            users.add(new JSONObject()
+                    .put("uuid", id)
+                    .put("name", user == null ? JSONObject.NULL : user.getFirst_name() + " " + user.getLast_name()));
+        }
+        for (long id : path.getProjects()) {
+            Project project = projectsById.get(id);
+            projects.add(new JSONObject()
+                    .put("uuid", id)
+                    .put("name", project == null ? JSONObject.NULL : project.getName()));
+        }
+        return new ColleaguePathDTO(users, projects);
+    }
+
+    public boolean isLoaded() {
+        lock.readLock().lock();
+        try {
+            return graph != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Runs a query against the graph, the graph must not leak out of the function
+     */
+    public <T> T read(Function<ColleagueGraph, T> query) {
+        lock.readLock().lock();
+        try {
+            if (graph == null)
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Colleague graph is not loaded yet");
+            return query.apply(graph);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void rebuild() {
+        lock.writeLock().lock();
+        try {
+            if (pending != null) return;
+            pending = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        ColleagueGraph built = null;
+        try {
+            long start = System.currentTimeMillis();
+            built = load();
+            logger.info("Colleague graph built: " + built.userCount() + " users, " + built.projectCount() + " projects in "
+                    + (System.currentTimeMillis() - start) + "ms");
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (built != null) {
+                    for (ProjectMembershipEvent event : pending) apply(built, event);
+                    graph = built;
+                }
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    //Reads memberships straight into primitive arrays, going through entities would need an object per row
+    private ColleagueGraph load() {
+        long[][] columns = {new long[1024], new long[1024]};
+        int[] count = {0};
+        jdbcTemplate.query("SELECT user_uuid, project_uuid FROM user_project_exp " +
+                "WHERE user_uuid IS NOT NULL AND project_uuid IS NOT NULL", rs -> {
+            if (count[0] == columns[0].length) {
+                columns[0] = Arrays.copyOf(columns[0], count[0] * 2);
+                columns[1] = Arrays.copyOf(columns[1], count[0] * 2);
+            }
+            columns[0][count[0]] = rs.getLong(1);
+            columns[1][count[0]] = rs.getLong(2);
+            count[0]++;
+        });
+        return ColleagueGraph.build(columns[0], columns[1], count[0]);
+    }
+
+    private static List<Long> toList(long[] ids) {
+        List<Long> ret = new ArrayList<>(ids.length);
+        for (long id : ids) ret.add(id);
+        return ret;
+    }
+
+    private static void apply(ColleagueGraph graph, ProjectMembershipEvent event) {
+        if (event.isJoined()) graph.add(event.getUserUUID(), event.getProjectUUID());
+        else graph.remove(event.getUserUUID(), event.getProjectUUID());
+    }
+}
@@ -0,0 +1,331 @@
+package com.sixhands.service;
+
+import com.sixhands.domain.CompanyStats;
+import com.sixhands.domain.Tag;
+import com.sixhands.event.ProjectMembershipEvent;
+import com.sixhands.event.ProjectUpdatedEvent;
+import com.sixhands.event.UserExpChangedEvent;
+import com.sixhands.repository.CompanyStatsRepository;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * Company directory over {@link CompanyStats} rows: members, projects, top roles and top skills of every
+ * {@code Project.company}.
+ * <p>
+ * What each project contributes (its company, one member/role/skills entry per exp) is kept in memory together
+ * with the running counts per company. When a project or a user's exps change, only the affected projects are
+ * reloaded, their old contribution is subtracted, the new one added, and the rows of the companies that changed are
+ * written. The rows are computed under the lock and written outside it, one writer at a time, so database latency
+ * never blocks the counting. Reads never aggregate, a company page is one row and the listing is an index range.
+ */
+@Service
+public class CompanyDirectoryService {
+    public static final int TOP_SIZE = 5;
+    private static final String SELECT = "SELECT p.uuid, p.company, e.user_uuid, e.role, e.skills FROM project p " +
+            "LEFT JOIN user_project_exp e ON e.project_uuid = p.uuid";
+
+    @Autowired
+    private CompanyStatsRepository companyStatsRepo;
+    @Autowired
+    private TagDictionary tagDictionary;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final Object lock = new Object();
+    private final Map<Long, Contribution> projects = new HashMap<>();
+    private final Map<Long, Set<Long>> projectsByUser = new HashMap<>();
+    private final Map<String, Aggregate> companies = new HashMap<>();
+    //Companies whose rows are behind their counts, guarded by lock
+    private final Set<String> dirty = new HashSet<>();
+    //Held while rows are written, so an older computation never overwrites a newer one
+    private final Object writeLock = new Object();
+    //Ids of the stored rows by company name, guarded by writeLock
+    private final Map<String, Long> rowIds = new HashMap<>();
+    private volatile boolean loaded = false;
+    private TransactionTemplate writeTemplate;
+
+    private Logger logger = Logger.getLogger(CompanyDirectoryService.class.getName());
+
+    //What one project adds to its company
+    private static class Contribution {
+        final String company;
+        final String label;
+        //One entry per exp
+        final List<Long> members = new ArrayList<>();
+        final List<String> roles = new ArrayList<>();
+        final List<Long> skills = new ArrayList<>();
+
+        Contribution(String company, String label) {
+            this.company = company;
+            this.label = label;
+        }
+    }
+
+    private static class Aggregate {
+        int projects;
+        //Spellings of the company by the amount of projects using them
+        final Map<String, Integer> labels = new HashMap<>();
+        final Map<Long, Integer> members = new HashMap<>();
+        final Map<String, Integer> roles = new HashMap<>();
+        final Map<Long, Integer> skills = new HashMap<>();
+
+        void apply(Contribution contribution, int sign) {
+            projects += sign;
+            add(labels, contribution.label, sign);
+            for (Long member : contribution.members) add(members, member, sign);
+            for (String role : contribution.roles) add(roles, role, sign);
+            for (Long skill : contribution.skills) add(skills, skill, sign);
+        }
+
+        //The most common spelling, ties by the spelling itself so it doesn't depend on the order of changes
+        String label() {
+            String ret = null;
+            int best = 0;
+            for (Map.Entry<String, Integer> label : labels.entrySet())
+                if (label.getValue() > best || (label.getValue() == best && label.getKey().compareTo(ret) < 0)) {
+                    ret = label.getKey();
+                    best = label.getValue();
+                }
+            return ret;
+        }
+
+        private static <K> void add(Map<K, Integer> counts, K key, int delta) {
+            counts.merge(key, delta, (a, b) -> a + b == 0 ? null : a + b);
+        }
+    }
+
+    @PostConstruct
+    public void initTemplate() {
+        //Changes arrive after their transaction committed, rows are written in a transaction of their own
+        writeTemplate = new TransactionTemplate(transactionManager);
+        writeTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        long start = System.currentTimeMillis();
+        Map<Long, Contribution> loadedProjects = new HashMap<>();
+        jdbcTemplate.query(SELECT, collector(loadedProjects));
+        List<CompanyStats> stored = companyStatsRepo.findAll();
+        synchronized (writeLock) {
+            for (CompanyStats row : stored) rowIds.put(row.getName(), row.getUuid());
+        }
+        synchronized (lock) {
+            loadedProjects.forEach(this::replace);
+            //Everything is rewritten once, rows of companies that disappeared while the application was down are removed
+            dirty.addAll(companies.keySet());
+            for (CompanyStats row : stored) dirty.add(row.getName());
+            loaded = true;
+        }
+        flush();
+        logger.info("Company directory: " + companies.size() + " companies over " + loadedProjects.size()
+                + " projects in " + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProjectUpdated(ProjectUpdatedEvent event) {
+        if (event.getProjectUUID() != null) reload(Collections.singleton(event.getProjectUUID()));
+    }
+
+    //Also the only event of a created or deleted project
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMembershipChanged(ProjectMembershipEvent event) {
+        if (event.getProjectUUID() != null) reload(Collections.singleton(event.getProjectUUID()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserExpChanged(UserExpChangedEvent event) {
+        if (event.getUserUUID() == null || !loaded) return;
+        Set<Long> affected = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT DISTINCT project_uuid FROM user_project_exp WHERE user_uuid = ? AND project_uuid IS NOT NULL",
+                Long.class, event.getUserUUID()));
+        synchronized (lock) {
+            affected.addAll(projectsByUser.getOrDefault(event.getUserUUID(), Collections.emptySet()));
+        }
+        reload(affected);
+    }
+
+    public CompanyStats getCompany(String company) {
+        return companyStatsRepo.findByName(normalize(company))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Company " + company + " is not found"));
+    }
+
+    //Companies with the most members first
+    public List<CompanyStats> getCompanies(int page, int size) {
+        return companyStatsRepo.findAllByOrderByMemberCountDescUuidDesc(PageRequest.of(page, size));
+    }
+
+    /**
+     * @return lower case with collapsed whitespace, null if it is too short to be a company
+     */
+    public static String normalize(String company) {
+        if (company == null) return null;
+        String ret = TagDictionary.name(TagDictionary.label(company));
+        return TagDictionary.isTerm(ret) ? ret : null;
+    }
+
+    private void reload(Set<Long> projectIds) {
+        if (!loaded || projectIds.isEmpty()) return;
+        Map<Long, Contribution> fresh = new HashMap<>();
+        StringBuilder in = new StringBuilder();
+        for (int i = 0; i < projectIds.size(); i++) in.append(i == 0 ? "?" : ",?");
+        jdbcTemplate.query(SELECT + " WHERE p.uuid IN (" + in + ")", collector(fresh), projectIds.toArray());
+        synchronized (lock) {
+            for (Long projectId : projectIds) {
+                Contribution old = projects.get(projectId);
+                if (old != null && old.company != null) dirty.add(old.company);
+                Contribution contribution = fresh.get(projectId);
+                if (contribution != null && contribution.company != null) dirty.add(contribution.company);
+                replace(projectId, contribution);
+            }
+        }
+        flush();
+    }
+
+    //Writes the rows of the dirty companies as of now, a concurrent flush may have written them already
+    private void flush() {
+        synchronized (writeLock) {
+            //Name -> row to store, null if the company has no projects anymore
+            Map<String, CompanyStats> computed = new HashMap<>();
+            synchronized (lock) {
+                if (dirty.isEmpty()) return;
+                for (String name : dirty) computed.put(name, row(name));
+                dirty.clear();
+            }
+            try {
+                write(computed);
+            } catch (RuntimeException e) {
+                synchronized (lock) {
+                    dirty.addAll(computed.keySet());
+                }
+                throw e;
+            }
+        }
+    }
+
+    private List<Long> rowIds(Set<String> names) {
+        List<Long> ret = new ArrayList<>();
+        for (String name : names) {
+            Long id = rowIds.get(name);
+            if (id != null) ret.add(id);
+        }
+        return ret;
+    }
+
+    //Swaps the project's contribution, null removes it
+    private void replace(Long projectId, Contribution contribution) {
+        Contribution old = contribution == null ? projects.remove(projectId) : projects.put(projectId, contribution);
+        if (old != null) {
+            for (Long member : old.members) {
+                Set<Long> userProjects = projectsByUser.get(member);
+                if (userProjects != null && userProjects.remove(projectId) && userProjects.isEmpty()) projectsByUser.remove(member);
+            }
+            if (old.company != null) {
+                Aggregate aggregate = companies.get(old.company);
+                aggregate.apply(old, -1);
+                if (aggregate.projects == 0) companies.remove(old.company);
+            }
+        }
+        if (contribution == null) return;
+        for (Long member : contribution.members) projectsByUser.computeIfAbsent(member, u -> new HashSet<>()).add(projectId);
+        if (contribution.company != null)
+            companies.computeIfAbsent(contribution.company, c -> new Aggregate()).apply(contribution, 1);
+    }
+
+    //Row of the company from the current counts, null if it has no projects, called under the lock
+    private CompanyStats row(String name) {
+        Aggregate aggregate = companies.get(name);
+        if (aggregate == null) return null;
+        CompanyStats row = new CompanyStats(name);
+        row.setLabel(aggregate.label());
+        row.setMemberCount(aggregate.members.size());
+        row.setProjectCount(aggregate.projects);
+        row.setTopRoles(top(aggregate.roles, role -> role).toString());
+        row.setTopSkills(top(aggregate.skills, skill -> {
+            Tag tag = tagDictionary.get(skill);
+            return tag == null ? null : tag.getLabel();
+        }).toString());
+        return row;
+    }
+
+    //Stores the computed rows, deleting the ones of companies that have no projects anymore, called under writeLock
+    private void write(Map<String, CompanyStats> computed) {
+        Map<String, CompanyStats> rows = new HashMap<>();
+        for (CompanyStats row : companyStatsRepo.findAllById(rowIds(computed.keySet()))) rows.put(row.getName(), row);
+        List<CompanyStats> save = new ArrayList<>();
+        List<CompanyStats> delete = new ArrayList<>();
+        computed.forEach((name, update) -> {
+            CompanyStats row = rows.get(name);
+            if (update == null) {
+                if (row != null) delete.add(row);
+                return;
+            }
+            if (row == null) row = update;
+            row.setLabel(update.getLabel());
+            row.setMemberCount(update.getMemberCount());
+            row.setProjectCount(update.getProjectCount());
+            row.setTopRoles(update.getTopRoles());
+            row.setTopSkills(update.getTopSkills());
+            row.setUpdated(new Date());
+            save.add(row);
+        });
+        if (save.isEmpty() && delete.isEmpty()) return;
+        List<CompanyStats> saved = writeTemplate.execute(status -> {
+            if (!delete.isEmpty()) companyStatsRepo.deleteInBatch(delete);
+            return companyStatsRepo.saveAll(save);
+        });
+        for (CompanyStats row : delete) rowIds.remove(row.getName());
+        for (CompanyStats row : saved) rowIds.put(row.getName(), row.getUuid());
+    }
+
+    private static <K> JSONArray top(Map<K, Integer> counts, Function<K, String> label) {
+        List<Map.Entry<K, Integer>> entries = new ArrayList<>(counts.entrySet());
+        entries.sort((a, b) -> b.getValue() - a.getValue());
+        JSONArray ret = new JSONArray();
+        for (Map.Entry<K, Integer> entry : entries) {
+            if (ret.length() == TOP_SIZE) break;
+            String value = label.apply(entry.getKey());
+            if (value != null) ret.put(new JSONObject().put("value", value).put("count", entry.getValue()));
+        }
+        return ret;
+    }
+
+    private RowCallbackHandler collector(Map<Long, Contribution> to) {
+        return rs -> {
+            long projectId = rs.getLong(1);
+            Contribution contribution = to.get(projectId);
+            if (contribution == null) {
+                String company = rs.getString(2);
+                String name = normalize(company);
+                to.put(projectId, contribution = new Contribution(name, name == null ? null : TagDictionary.label(company)));
+            }
+            long user = rs.getLong(3);
+            if (rs.wasNull()) return;
+            contribution.members.add(user);
+            String role = rs.getString(4);
+            if (role != null && !role.trim().isEmpty()) contribution.roles.add(role.trim());
+            for (Tag tag : tagDictionary.lookup(Tag.Kind.SKILL, rs.getString(5))) contribution.skills.add(tag.getUuid());
+        };
+    }
+}
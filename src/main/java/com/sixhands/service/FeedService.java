@@ -0,0 +1,147 @@
+package com.sixhands.service;
+
+import com.sixhands.controller.dtos.FeedEntryDTO;
+import com.sixhands.controller.dtos.FeedPageDTO;
+import com.sixhands.domain.FeedEntry;
+import com.sixhands.domain.Project;
+import com.sixhands.domain.User;
+import com.sixhands.event.ProjectActivityEvent;
+import com.sixhands.repository.FeedEntryRepository;
+import com.sixhands.repository.ProjectRepository;
+import com.sixhands.repository.UserProjectExpRepository;
+import com.sixhands.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.MessageSource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Home feed of colleagues' project activity.
+ * <p>
+ * Activities fan out on write: after the change commits, one {@link FeedEntry} is written for every user
+ * sharing a project with the actor. Timelines are trimmed to {@code 6hands.feed.capacity} entries in the background.
+ * Actors with more than {@code 6hands.feed.fan-out-limit} colleagues get a single broadcast entry instead,
+ * which readers merge into their page (fan-out-on-read).
+ */
+@Service
+public class FeedService {
+    //Upper bound of the first page, MySQL can't store Long.MAX_VALUE dates
+    private static final Date END_OF_TIME = Timestamp.valueOf("9999-12-31 00:00:00");
+
+    @Autowired
+    private FeedEntryRepository feedRepo;
+    @Autowired
+    private UserProjectExpRepository userProjectExpRepo;
+    @Autowired
+    private UserRepository userRepo;
+    @Autowired
+    private ProjectRepository projectRepo;
+    @Autowired
+    private MessageSource messageSource;
+
+    @Value("${6hands.feed.capacity:500}")
+    private int capacity;
+    @Value("${6hands.feed.fan-out-limit:1000}")
+    private int fanOutLimit;
+
+    //Actors that have broadcast entries, only these are looked up on read
+    private final Set<Long> broadcastActors = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() {
+        broadcastActors.addAll(feedRepo.findBroadcastActors());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onProjectActivity(ProjectActivityEvent event) {
+        if (event.getType() == ProjectActivityEvent.Type.UNLIKED) return;
+        List<Long> colleagues = userProjectExpRepo.findColleagueIds(event.getActorUUID());
+        colleagues.remove(event.getActorUUID());
+        if (colleagues.isEmpty()) return;
+        if (colleagues.size() > fanOutLimit) {
+            feedRepo.save(new FeedEntry(null, event));
+            broadcastActors.add(event.getActorUUID());
+            return;
+        }
+        List<FeedEntry> entries = new ArrayList<>(colleagues.size());
+        for (Long colleague : colleagues) entries.add(new FeedEntry(colleague, event));
+        feedRepo.saveAll(entries);
+    }
+
+    /**
+     * Pages are ordered by (timestamp, uuid), the cursor is the pair of the last entry of the previous page
+     *
+     * @param before   timestamp of the cursor, null for the first page
+     * @param beforeId uuid of the cursor, null to skip every entry of the cursor's timestamp
+     */
+    public FeedPageDTO getFeed(User user, Date before, Long beforeId, int size, Locale locale) {
+        if (before == null) {
+            before = END_OF_TIME;
+            beforeId = Long.MAX_VALUE;
+        } else if (beforeId == null) {
+            beforeId = Long.MIN_VALUE;
+        }
+        PageRequest page = PageRequest.of(0, size);
+        List<FeedEntry> entries = new ArrayList<>(feedRepo.findPage(user.getUuid(), before, beforeId, page));
+
+        if (!broadcastActors.isEmpty()) {
+            List<Long> broadcasting = userProjectExpRepo.findColleagueIds(user.getUuid());
+            broadcasting.retainAll(broadcastActors);
+            broadcasting.remove(user.getUuid());
+            if (!broadcasting.isEmpty()) {
+                entries.addAll(feedRepo.findBroadcastPage(broadcasting, before, beforeId, page));
+                entries.sort(Comparator.comparing(FeedEntry::getTimestamp).thenComparing(FeedEntry::getUuid).reversed());
+                if (entries.size() > size) entries = entries.subList(0, size);
+            }
+        }
+        if (entries.size() < size) return new FeedPageDTO(render(entries, locale), null, null);
+        FeedEntry last = entries.get(entries.size() - 1);
+        return new FeedPageDTO(render(entries, locale), last.getTimestamp().getTime(), last.getUuid());
+    }
+
+    @Scheduled(fixedDelayString = "${6hands.feed.trim-ms:3600000}")
+    public void trim() {
+        for (Long owner : feedRepo.findOwnersOver(capacity)) {
+            List<FeedEntry> last = feedRepo.findPage(owner, END_OF_TIME, Long.MAX_VALUE, PageRequest.of(capacity - 1, 1));
+            if (!last.isEmpty()) feedRepo.deleteOlder(owner, last.get(0).getTimestamp());
+        }
+    }
+
+    private List<FeedEntryDTO> render(List<FeedEntry> entries, Locale locale) {
+        Set<Long> userIds = new HashSet<>();
+        Set<Long> projectIds = new HashSet<>();
+        for (FeedEntry entry : entries) {
+            userIds.add(entry.getActorUUID());
+            projectIds.add(entry.getProjectUUID());
+        }
+        Map<Long, User> users = new HashMap<>();
+        if (!userIds.isEmpty()) for (User user : userRepo.findAllById(userIds)) users.put(user.getUuid(), user);
+        Map<Long, Project> projects = new HashMap<>();
+        if (!projectIds.isEmpty()) for (Project project : projectRepo.findAllById(projectIds)) projects.put(project.getUuid(), project);
+
+        List<FeedEntryDTO> ret = new ArrayList<>(entries.size());
+        for (FeedEntry entry : entries) {
+            User actor = users.get(entry.getActorUUID());
+            Project project = projects.get(entry.getProjectUUID());
+            //Deleted since the activity happened
+            if (actor == null || project == null) continue;
+            String actorName = actor.getFirst_name() + " " + actor.getLast_name();
+            String message = messageSource.getMessage("feed." + entry.getType().name().toLowerCase(Locale.ROOT),
+                    new Object[]{actorName, project.getName()}, locale);
+            ret.add(new FeedEntryDTO(entry.getType(), actor.getUuid(), actorName, project.getUuid(), project.getName(),
+                    message, entry.getTimestamp()));
+        }
+        return ret;
+    }
+}
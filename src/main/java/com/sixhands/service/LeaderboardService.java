@@ -0,0 +1,283 @@
+package com.sixhands.service;
+
+import com.sixhands.event.ProjectMembershipEvent;
+import com.sixhands.event.ProjectRatingChangedEvent;
+import com.sixhands.event.ProjectUpdatedEvent;
+import com.sixhands.misc.RankedSkipList;
+import com.sixhands.misc.ReloadQueue;
+import com.sixhands.repository.ProjectRepository;
+import com.sixhands.repository.UserProjectExpRepository;
+import com.sixhands.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.StringUtils;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.logging.Logger;
+
+/**
+ * User rating leaderboards, a global one and one per project industry.
+ * <p>
+ * Ratings follow {@link UserService#getRatingForUser}: a confirmed project is worth 1 + its confirmed members
+ * + its likes to every member, users with {@code confirmed_project} get one more point; industry boards only count
+ * projects of the industry. Project scores are kept in memory, when a like, confirmation or membership changes
+ * a project only that project is reloaded and the score difference is applied to its members in
+ * {@link RankedSkipList}s, O(log n) per member. Project reloads go through a {@link ReloadQueue}, so an older read
+ * is never applied after a newer one. Everything is rebuilt nightly to catch changes made elsewhere.
+ */
+@Service
+public class LeaderboardService {
+    @Autowired
+    private ProjectRepository projectRepo;
+    @Autowired
+    private UserProjectExpRepository userProjectExpRepo;
+    @Autowired
+    private UserRepository userRepo;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Board board;
+    //Projects changed while a rebuild was loading, not null only during a rebuild
+    private Set<Long> pending;
+    private final ReloadQueue<Long> reloads = new ReloadQueue<>();
+
+    private Logger logger = Logger.getLogger(LeaderboardService.class.getName());
+
+    //Score a project gives each of its members
+    private static class ProjectScore {
+        final String industry;
+        final long score;
+        //One entry per exp, like getRatingForUser counts them
+        final List<Long> members;
+
+        ProjectScore(String industry, long score, List<Long> members) {
+            this.industry = industry;
+            this.score = score;
+            this.members = members;
+        }
+    }
+
+    private static class Board {
+        final Map<Long, ProjectScore> projects = new HashMap<>();
+        final Map<Long, Long> ratings = new HashMap<>();
+        final RankedSkipList global = new RankedSkipList();
+        final Map<String, Map<Long, Long>> industryRatings = new HashMap<>();
+        final Map<String, RankedSkipList> industries = new HashMap<>();
+
+        void apply(Long projectId, ProjectScore score) {
+            ProjectScore old = score == null ? projects.remove(projectId) : projects.put(projectId, score);
+            if (old != null)
+                for (Long member : old.members) adjust(member, old.industry, -old.score);
+            if (score != null)
+                for (Long member : score.members) adjust(member, score.industry, score.score);
+        }
+
+        void adjust(Long user, String industry, long delta) {
+            Long rating = ratings.get(user);
+            if (rating == null) rating = 0L;
+            else global.remove(user, rating);
+            ratings.put(user, rating + delta);
+            global.insert(user, rating + delta);
+            if (industry == null || delta == 0) return;
+
+            Map<Long, Long> industryRating = industryRatings.computeIfAbsent(industry, i -> new HashMap<>());
+            RankedSkipList list = industries.computeIfAbsent(industry, i -> new RankedSkipList());
+            Long old = industryRating.remove(user);
+            if (old != null) list.remove(user, old);
+            long updated = (old == null ? 0 : old) + delta;
+            //Users only show up on the boards of industries they have points in
+            if (updated != 0) {
+                industryRating.put(user, updated);
+                list.insert(user, updated);
+            } else if (industryRating.isEmpty()) {
+                industryRatings.remove(industry);
+                industries.remove(industry);
+            }
+        }
+    }
+
+    public static class Entry {
+        private final int rank;
+        private final long userUUID;
+        private final long rating;
+
+        public Entry(int rank, long userUUID, long rating) {
+            this.rank = rank;
+            this.userUUID = userUUID;
+            this.rating = rating;
+        }
+
+        public int getRank() {
+            return rank;
+        }
+
+        public long getUserUUID() {
+            return userUUID;
+        }
+
+        public long getRating() {
+            return rating;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        rebuild();
+    }
+
+    @Scheduled(cron = "${6hands.leaderboard.rebuild-cron:0 0 4 * * *}")
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            if (pending != null) return;
+            pending = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Board built = null;
+        try {
+            long start = System.currentTimeMillis();
+            built = load();
+            logger.info("Leaderboard built: " + built.ratings.size() + " users, " + built.industries.size()
+                    + " industries in " + (System.currentTimeMillis() - start) + "ms");
+        } finally {
+            Set<Long> changed;
+            lock.writeLock().lock();
+            try {
+                if (built != null) board = built;
+                changed = pending;
+                pending = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (!changed.isEmpty()) reloads.reload(changed, this::reload);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRatingChanged(ProjectRatingChangedEvent event) {
+        refresh(event.getProjectUUID());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMembershipChanged(ProjectMembershipEvent event) {
+        refresh(event.getProjectUUID());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProjectUpdated(ProjectUpdatedEvent event) {
+        refresh(event.getProjectUUID());
+    }
+
+    /**
+     * @param industry null for the global board
+     * @param offset   0 based
+     */
+    public List<Entry> getTop(String industry, int offset, int size) {
+        List<Entry> ret = new ArrayList<>(size);
+        read(industry, (list, ratings) -> {
+            int[] rank = {offset};
+            list.range(offset + 1, size, (user, rating) -> ret.add(new Entry(++rank[0], user, rating)));
+        });
+        return ret;
+    }
+
+    /**
+     * @return the user's entry, null if the user is not on the board
+     */
+    public Entry getRank(String industry, Long userUUID) {
+        Entry[] ret = {null};
+        read(industry, (list, ratings) -> {
+            Long rating = ratings.get(userUUID);
+            if (rating != null) ret[0] = new Entry(list.rank(userUUID, rating), userUUID, rating);
+        });
+        return ret[0];
+    }
+
+    public int getSize(String industry) {
+        int[] ret = {0};
+        read(industry, (list, ratings) -> ret[0] = list.size());
+        return ret[0];
+    }
+
+    private void read(String industry, BiConsumer<RankedSkipList, Map<Long, Long>> query) {
+        lock.readLock().lock();
+        try {
+            if (board == null) return;
+            if (industry == null) {
+                query.accept(board.global, board.ratings);
+                return;
+            }
+            String key = industryKey(industry);
+            RankedSkipList list = board.industries.get(key);
+            if (list != null) query.accept(list, board.industryRatings.get(key));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void refresh(Long projectId) {
+        if (projectId == null) return;
+        lock.writeLock().lock();
+        try {
+            if (pending != null) {
+                pending.add(projectId);
+                return;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        reloads.reload(Collections.singleton(projectId), this::reload);
+    }
+
+    //Called by the reload queue one at a time, so scores are applied in the order they were read
+    private void reload(Set<Long> projectIds) {
+        for (Long projectId : projectIds) {
+            List<Object[]> inputs = projectRepo.findRatingInputs(projectId);
+            ProjectScore score = inputs.isEmpty() ? null : score(inputs.get(0), userProjectExpRepo.findMemberships(projectId));
+            lock.writeLock().lock();
+            try {
+                if (board != null) board.apply(projectId, score);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private Board load() {
+        Map<Long, List<Object[]>> memberships = new HashMap<>();
+        for (Object[] membership : userProjectExpRepo.findMemberships())
+            memberships.computeIfAbsent((Long) membership[1], p -> new ArrayList<>()).add(membership);
+
+        Board ret = new Board();
+        for (Long user : userRepo.findConfirmedProjectUserIds()) ret.adjust(user, null, 1);
+        for (Object[] inputs : projectRepo.findRatingInputs())
+            ret.apply((Long) inputs[0], score(inputs, memberships.getOrDefault((Long) inputs[0], Collections.emptyList())));
+        return ret;
+    }
+
+    //[uuid, confirmed, industry, likes] and [user, project, confirmed] rows, see the repository queries
+    private static ProjectScore score(Object[] inputs, List<Object[]> memberships) {
+        boolean confirmed = (Boolean) inputs[1];
+        List<Long> members = new ArrayList<>(memberships.size());
+        long confirmedMembers = 0;
+        for (Object[] membership : memberships) {
+            members.add((Long) membership[0]);
+            if ((Boolean) membership[2]) confirmedMembers++;
+        }
+        long score = confirmed ? 1 + confirmedMembers + ((Number) inputs[3]).longValue() : 0;
+        return new ProjectScore(industryKey((String) inputs[2]), score, members);
+    }
+
+    private static String industryKey(String industry) {
+        if (StringUtils.isEmpty(industry) || industry.trim().isEmpty()) return null;
+        return industry.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,197 @@
+package com.sixhands.service;
+
+import com.sixhands.SixHandsApplication;
+import com.sixhands.domain.MailOutboxEntry;
+import com.sixhands.repository.MailOutboxRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.mail.MessagingException;
+import javax.mail.internet.MimeMessage;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Drains the mail outbox with a bounded worker pool.
+ * Failed mail is retried with exponential backoff and dead-lettered after {@code max-attempts}.
+ * <p>
+ * With {@code 6hands.mail.pool.enabled} claimed mail is handed to the workers in batches of
+ * {@code 6hands.mail.pool.batch-size}, each batch is sent over a single pooled SMTP connection.
+ */
+@Service
+public class MailOutboxWorker {
+    //Claims older than this belong to a worker that died mid-send
+    private static final long STALE_CLAIM_MS = TimeUnit.MINUTES.toMillis(10);
+    private static final long MAX_BACKOFF_MS = TimeUnit.HOURS.toMillis(6);
+    private static final int PURGE_BATCH = 5000;
+
+    @Autowired
+    private MailOutboxRepository outboxRepo;
+    @Autowired
+    private JavaMailSender mailSender;
+    @Autowired
+    private SmtpTransportPool transportPool;
+
+    @Value("${spring.mail.username}")
+    private String username;
+    @Value("${6hands.mail.outbox.workers:4}")
+    private int workers;
+    @Value("${6hands.mail.outbox.batch-size:50}")
+    private int batchSize;
+    @Value("${6hands.mail.outbox.max-attempts:8}")
+    private int maxAttempts;
+    @Value("${6hands.mail.outbox.backoff-ms:30000}")
+    private long backoffMs;
+    @Value("${6hands.mail.outbox.retention-days:7}")
+    private int retentionDays;
+    @Value("${6hands.mail.pool.enabled:true}")
+    private boolean pooled;
+    @Value("${6hands.mail.pool.batch-size:10}")
+    private int poolBatchSize;
+
+    private ThreadPoolExecutor executor;
+    private Logger logger = Logger.getLogger(MailOutboxWorker.class.getName());
+
+    @PostConstruct
+    public void init() {
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(batchSize), new CustomizableThreadFactory("mail-outbox-"));
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
+    @Scheduled(fixedDelayString = "${6hands.mail.outbox.poll-ms:2000}")
+    public void poll() {
+        //Only take as much as the pool can queue, the rest stays pending in the table
+        int capacity = executor.getQueue().remainingCapacity();
+        if (capacity == 0) return;
+        boolean batched = isBatched();
+        int perTask = batched ? poolBatchSize : 1;
+        List<MailOutboxEntry> due = outboxRepo.findByStatusAndNextAttemptLessThanEqualOrderByNextAttempt(
+                MailOutboxEntry.Status.PENDING, new Date(), PageRequest.of(0, capacity * perTask));
+        List<MailOutboxEntry> batch = new ArrayList<>(perTask);
+        for (MailOutboxEntry entry : due) {
+            int claimed = outboxRepo.transition(entry.getUuid(), MailOutboxEntry.Status.PENDING, MailOutboxEntry.Status.SENDING, new Date());
+            if (claimed == 0) continue;
+            if (!batched) {
+                executor.execute(() -> deliver(entry));
+                continue;
+            }
+            batch.add(entry);
+            if (batch.size() == perTask) {
+                submitBatch(batch);
+                batch = new ArrayList<>(perTask);
+            }
+        }
+        if (!batch.isEmpty()) submitBatch(batch);
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void releaseStaleClaims() {
+        outboxRepo.releaseStale(MailOutboxEntry.Status.SENDING, MailOutboxEntry.Status.PENDING,
+                new Date(System.currentTimeMillis() - STALE_CLAIM_MS));
+    }
+
+    //Dead mail is kept for inspection
+    @Scheduled(cron = "${6hands.mail.outbox.purge-cron:0 15 3 * * *}")
+    public void purgeSent() {
+        Date before = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(retentionDays));
+        int purged = 0, deleted;
+        do {
+            deleted = outboxRepo.deleteSent(before, PURGE_BATCH);
+            purged += deleted;
+        } while (deleted == PURGE_BATCH);
+        if (purged > 0) logger.info("Purged " + purged + " sent mails");
+    }
+
+    private boolean isBatched() {
+        return pooled && SixHandsApplication.isSendingMail();
+    }
+
+    private void submitBatch(List<MailOutboxEntry> batch) {
+        executor.execute(() -> deliverBatch(batch));
+    }
+
+    private void deliver(MailOutboxEntry entry) {
+        try {
+            send(entry);
+            entry.markSent();
+        } catch (Exception e) {
+            markFailed(entry, e);
+        }
+        outboxRepo.save(entry);
+    }
+
+    private void deliverBatch(List<MailOutboxEntry> batch) {
+        List<MimeMessage> messages = new ArrayList<>(batch.size());
+        List<MailOutboxEntry> built = new ArrayList<>(batch.size());
+        List<MailOutboxEntry> unbuildable = new ArrayList<>(0);
+        for (MailOutboxEntry entry : batch) {
+            try {
+                messages.add(toMimeMessage(entry));
+                built.add(entry);
+            } catch (MessagingException e) {
+                markFailed(entry, e);
+                unbuildable.add(entry);
+            }
+        }
+        try {
+            List<Exception> errors = transportPool.sendBatch(messages);
+            for (int i = 0; i < built.size(); i++) {
+                Exception error = errors.get(i);
+                if (error == null) built.get(i).markSent();
+                else markFailed(built.get(i), error);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            //The built ones are left as SENDING, releaseStaleClaims puts them back in the queue. The failed attempts
+            //are saved, a mail that can't be built would never reach the dead letter status otherwise
+            if (!unbuildable.isEmpty()) outboxRepo.saveAll(unbuildable);
+            return;
+        }
+        outboxRepo.saveAll(batch);
+    }
+
+    private void markFailed(MailOutboxEntry entry, Exception e) {
+        entry.markFailed(e.getMessage(), maxAttempts, backoffMs, MAX_BACKOFF_MS);
+        logger.log(Level.WARNING, "Unable to send mail " + entry.getIdempotencyKey() + " (attempt " + entry.getAttempts() + ", " + entry.getStatus() + ")", e);
+    }
+
+    private MimeMessage toMimeMessage(MailOutboxEntry entry) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, entry.getHtml() != null, "UTF-8");
+        helper.setFrom(username);
+        helper.setTo(entry.getEmailTo());
+        helper.setSubject(entry.getSubject());
+        if (entry.getHtml() != null) helper.setText(entry.getText(), entry.getHtml());
+        else helper.setText(entry.getText());
+        return message;
+    }
+
+    private void send(MailOutboxEntry entry) throws MessagingException {
+        if (SixHandsApplication.isSendingMail()) {
+            mailSender.send(toMimeMessage(entry));
+            return;
+        }
+        //Bodies may contain generated passwords, they are not logged
+        logger.fine("Mail sending is disabled, skipped " + entry.getIdempotencyKey() + " to " + entry.getEmailTo());
+    }
+}
@@ -1,33 +1,53 @@
 package com.sixhands.service;
 
-import com.sixhands.SixHandsApplication;
-import org.json.JSONObject;
+import com.sixhands.domain.MailOutboxEntry;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Enqueues mail into the persisted outbox, actual SMTP delivery is done by {@link MailOutboxWorker}.
+ * Joins the caller's transaction, so a mail is only sent if the request that produced it commits.
+ */
 @Service
 public class MailSender {
-    @Autowired
-    private JavaMailSender mailSender;
+    //A key that is already enqueued, or is being enqueued by a concurrent transaction, leaves the row alone
+    //instead of failing, so a duplicate mail never rolls back the caller's transaction. Not INSERT IGNORE,
+    //that would also turn truncated or missing values into warnings and queue a broken mail
+    private static final String ENQUEUE = "INSERT INTO mail_outbox " +
+            "(idempotency_key, email_to, subject, text, html, status, attempts, next_attempt, created) " +
+            "VALUES (?, ?, ?, ?, ?, ?, 0, ?, ?) ON DUPLICATE KEY UPDATE idempotency_key = idempotency_key";
 
-    @Value("${spring.mail.username}")
-    private String username;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
 
-    @Async
     public void sendEmail(String emailTo, String emailSubject, String emailText) {
-        SimpleMailMessage mailMessage = new SimpleMailMessage();
+        sendEmail(UUID.randomUUID().toString(), emailTo, emailSubject, emailText);
+    }
 
-        mailMessage.setFrom(username);
-        mailMessage.setTo(emailTo);
-        mailMessage.setSubject(emailSubject);
-        mailMessage.setText(emailText);
+    @Transactional
+    public void sendEmail(String idempotencyKey, String emailTo, String emailSubject, String emailText) {
+        sendEmail(idempotencyKey, emailTo, emailSubject, emailText, null);
+    }
 
-        if(SixHandsApplication.isSendingMail()) mailSender.send(mailMessage);
-        else System.out.println("Sending out a message\n"+new JSONObject(mailMessage).toString(2));
+    @Transactional
+    public void sendEmail(String idempotencyKey, String emailTo, MailTemplateService.RenderedMail mail) {
+        sendEmail(idempotencyKey, emailTo, mail.getSubject(), mail.getText(), mail.getHtml());
     }
 
+    /**
+     * @param idempotencyKey mail with an already enqueued key is skipped, keys of sent mail are kept for
+     *                       {@code 6hands.mail.outbox.retention-days}
+     * @param emailHtml      optional HTML alternative of the text
+     */
+    @Transactional
+    public void sendEmail(String idempotencyKey, String emailTo, String emailSubject, String emailText, String emailHtml) {
+        Date now = new Date();
+        jdbcTemplate.update(ENQUEUE, idempotencyKey, emailTo, emailSubject, emailText, emailHtml,
+                MailOutboxEntry.Status.PENDING.name(), now, now);
+    }
 }
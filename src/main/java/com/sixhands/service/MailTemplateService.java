@@ -0,0 +1,117 @@
+package com.sixhands.service;
+
+import com.sixhands.misc.MailTemplate;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.util.HtmlUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Renders mail from classpath templates {@code mail/<name>_<lang>.txt} (first line is {@code Subject: ...})
+ * with an optional HTML part in {@code mail/<name>_<lang>.html}.
+ * <p>
+ * Templates are compiled on first use and cached by (name, language). The language is taken from
+ * {@link Locale#getLanguage()}, so the JVM default locale does not matter, missing languages fall back to English.
+ */
+@Service
+public class MailTemplateService {
+    public static final String DEFAULT_LANGUAGE = "en";
+    private static final String SUBJECT_PREFIX = "Subject:";
+
+    private final Map<String, Optional<CompiledMail>> cache = new ConcurrentHashMap<>();
+
+    public RenderedMail render(String name, Locale locale, Map<String, ?> params) {
+        CompiledMail mail = find(name, language(locale))
+                .orElseGet(() -> find(name, DEFAULT_LANGUAGE)
+                        .orElseThrow(() -> new IllegalArgumentException("Unknown mail template " + name)));
+        return new RenderedMail(
+                mail.subject.render(params),
+                mail.text.render(params),
+                mail.html == null ? null : mail.html.render(params, HtmlUtils::htmlEscape)
+        );
+    }
+
+    private static String language(Locale locale) {
+        if (locale == null || locale.getLanguage().isEmpty()) return DEFAULT_LANGUAGE;
+        return locale.getLanguage();
+    }
+
+    private Optional<CompiledMail> find(String name, String language) {
+        return cache.computeIfAbsent(name + "_" + language, this::load);
+    }
+
+    private Optional<CompiledMail> load(String path) {
+        String text = read("mail/" + path + ".txt");
+        if (text == null) return Optional.empty();
+        String subject = "";
+        if (text.startsWith(SUBJECT_PREFIX)) {
+            int eol = text.indexOf('\n');
+            if (eol < 0) eol = text.length();
+            subject = text.substring(SUBJECT_PREFIX.length(), eol).trim();
+            text = text.substring(Math.min(eol + 1, text.length()));
+        }
+        String html = read("mail/" + path + ".html");
+        return Optional.of(new CompiledMail(
+                MailTemplate.compile(subject),
+                MailTemplate.compile(text),
+                html == null ? null : MailTemplate.compile(html)
+        ));
+    }
+
+    private static String read(String path) {
+        ClassPathResource resource = new ClassPathResource(path);
+        if (!resource.exists()) return null;
+        try (InputStream in = resource.getInputStream()) {
+            return StreamUtils.copyToString(in, StandardCharsets.UTF_8).replace("\r\n", "\n");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read mail template " + path, e);
+        }
+    }
+
+    private static class CompiledMail {
+        private final MailTemplate subject;
+        private final MailTemplate text;
+        private final MailTemplate html;
+
+        private CompiledMail(MailTemplate subject, MailTemplate text, MailTemplate html) {
+            this.subject = subject;
+            this.text = text;
+            this.html = html;
+        }
+    }
+
+    public static class RenderedMail {
+        private final String subject;
+        private final String text;
+        private final String html;
+
+        public RenderedMail(String subject, String text, String html) {
+            this.subject = subject;
+            this.text = text;
+            this.html = html;
+        }
+
+        //#region getters/setters
+        public String getSubject() {
+            return subject;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        public String getHtml() {
+            return html;
+        }
+        //#endregion
+    }
+}
@@ -0,0 +1,215 @@
+package com.sixhands.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Enforces notification retention.
+ * <p>
+ * The {@code notification} table can be range partitioned by {@code timestamp} in {@code partitioning.days} wide
+ * partitions (the primary key becomes {@code (uuid, timestamp)} as MySQL requires). That copies the whole table,
+ * so it is a one-off admin task ({@link #partitionTable()}), not something done on startup.
+ * Once the table is partitioned and {@code partitioning.enabled} is set, the compactor keeps {@code partitioning.ahead}
+ * empty partitions ready and drops whole partitions once they are older than {@code retention-days},
+ * optionally copying them into {@code notification_archive} first.
+ * Otherwise expired rows are deleted in chunks, so no single statement locks the table for long.
+ * <p>
+ * Reads always filter by timestamp (see {@link NotificationService}), so MySQL prunes them to the recent partitions.
+ */
+@Service
+public class NotificationCompactor {
+    private static final String TABLE = "notification";
+    private static final String ARCHIVE_TABLE = "notification_archive";
+    private static final String OLD_PARTITION = "p_old";
+    private static final String FUTURE_PARTITION = "p_future";
+    private static final DateTimeFormatter PARTITION_NAME = DateTimeFormatter.ofPattern("'p'yyyyMMdd");
+    private static final int DELETE_CHUNK = 10000;
+    private static final String PARTITIONING_LOCK = "6hands_notification_partitioning";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${6hands.notifications.retention-days:90}")
+    private int retentionDays;
+    @Value("${6hands.notifications.archive:false}")
+    private boolean archive;
+    @Value("${6hands.notifications.partitioning.enabled:true}")
+    private boolean partitioning;
+    @Value("${6hands.notifications.partitioning.days:7}")
+    private int partitionDays;
+    @Value("${6hands.notifications.partitioning.ahead:4}")
+    private int partitionsAhead;
+
+    private Logger logger = Logger.getLogger(NotificationCompactor.class.getName());
+
+    @Scheduled(cron = "${6hands.notifications.compaction-cron:0 30 3 * * *}")
+    public void compact() {
+        LocalDate cutoff = LocalDate.now().minusDays(retentionDays);
+        if (archive) jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + ARCHIVE_TABLE + " LIKE " + TABLE);
+        if (partitioning && isPartitioned(jdbcTemplate, TABLE)) {
+            if (archive) removeArchivePartitioning();
+            addPartitionsAhead();
+            dropPartitionsBefore(cutoff);
+        } else {
+            deleteRowsBefore(cutoff);
+        }
+    }
+
+    /**
+     * @return retention start, older notifications are never read
+     */
+    public Date getRetentionStart() {
+        return Timestamp.valueOf(LocalDate.now().minusDays(retentionDays).atStartOfDay());
+    }
+
+    /**
+     * Converts the notification table to partitions. Blocks writers to the table until MySQL finished copying it,
+     * meant to be run once from the admin page while traffic is low.
+     *
+     * @return false if the table is partitioned already or another instance is converting it right now
+     */
+    public boolean partitionTable() {
+        Boolean partitioned = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            //Named locks belong to a connection, so everything runs on the one holding it
+            JdbcTemplate jdbc = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+            Integer locked = jdbc.queryForObject("SELECT GET_LOCK(?, 0)", Integer.class, PARTITIONING_LOCK);
+            if (locked == null || locked != 1) return false;
+            try {
+                if (isPartitioned(jdbc, TABLE)) return false;
+                partitionTable(jdbc);
+                return true;
+            } finally {
+                jdbc.queryForObject("SELECT RELEASE_LOCK(?)", Integer.class, PARTITIONING_LOCK);
+            }
+        });
+        if (partitioned == null || !partitioned)
+            logger.info("Notification table is partitioned already or being partitioned by another instance");
+        return partitioned != null && partitioned;
+    }
+
+    private static boolean isPartitioned(JdbcTemplate jdbc, String table) {
+        Integer partitions = jdbc.queryForObject("SELECT COUNT(*) FROM information_schema.PARTITIONS " +
+                "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL", Integer.class, table);
+        return partitions != null && partitions > 0;
+    }
+
+    private void partitionTable(JdbcTemplate jdbc) {
+        logger.info("Partitioning the notification table by timestamp");
+        long start = System.currentTimeMillis();
+        jdbc.update("UPDATE " + TABLE + " SET `timestamp` = NOW() WHERE `timestamp` IS NULL");
+        jdbc.execute("ALTER TABLE " + TABLE + " DROP PRIMARY KEY, ADD PRIMARY KEY (uuid, `timestamp`)");
+
+        LocalDate first = partitionBound(LocalDate.now().minusDays(retentionDays));
+        StringBuilder ddl = new StringBuilder("ALTER TABLE " + TABLE + " PARTITION BY RANGE COLUMNS(`timestamp`) (")
+                .append(partitionDefinition(OLD_PARTITION, first)).append(", ");
+        for (LocalDate bound : boundsAfter(first)) ddl.append(partitionDefinition(bound)).append(", ");
+        ddl.append(futureDefinition()).append(")");
+        jdbc.execute(ddl.toString());
+        logger.info("Partitioned the notification table in " + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    private void addPartitionsAhead() {
+        List<String> partitions = partitionNames();
+        LocalDate last = null;
+        for (String name : partitions) {
+            LocalDate bound = parseBound(name);
+            if (bound != null && (last == null || bound.isAfter(last))) last = bound;
+        }
+        if (last == null) last = partitionBound(LocalDate.now());
+        List<LocalDate> bounds = boundsAfter(last);
+        if (bounds.isEmpty()) return;
+        StringBuilder ddl = new StringBuilder("ALTER TABLE " + TABLE + " REORGANIZE PARTITION " + FUTURE_PARTITION + " INTO (");
+        for (LocalDate bound : bounds) ddl.append(partitionDefinition(bound)).append(", ");
+        ddl.append(futureDefinition()).append(")");
+        jdbcTemplate.execute(ddl.toString());
+    }
+
+    private void dropPartitionsBefore(LocalDate cutoff) {
+        List<String> partitions = partitionNames();
+        List<String> expired = new ArrayList<>();
+        for (int i = 0; i < partitions.size(); i++) {
+            String name = partitions.get(i);
+            LocalDate bound = parseBound(name);
+            //p_old holds the rows from before partitioning, it ends where the next partition starts
+            if (name.equals(OLD_PARTITION) && i + 1 < partitions.size()) {
+                LocalDate next = parseBound(partitions.get(i + 1));
+                bound = next == null ? null : next.minusDays(partitionDays);
+            }
+            if (bound == null || bound.isAfter(cutoff)) break;
+            expired.add(name);
+        }
+        for (String name : expired) {
+            if (archive)
+                jdbcTemplate.update("INSERT IGNORE INTO " + ARCHIVE_TABLE + " SELECT * FROM " + TABLE + " PARTITION (" + name + ")");
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " DROP PARTITION " + name);
+            logger.info("Dropped expired notification partition " + name);
+        }
+    }
+
+    private void deleteRowsBefore(LocalDate cutoff) {
+        Timestamp before = Timestamp.valueOf(cutoff.atStartOfDay());
+        if (archive)
+            jdbcTemplate.update("INSERT IGNORE INTO " + ARCHIVE_TABLE + " SELECT * FROM " + TABLE + " WHERE `timestamp` < ?", before);
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update("DELETE FROM " + TABLE + " WHERE `timestamp` < ? LIMIT " + DELETE_CHUNK, before);
+        } while (deleted == DELETE_CHUNK);
+    }
+
+    //CREATE TABLE ... LIKE copies the partitioning, the archive keeps everything in one partition
+    private void removeArchivePartitioning() {
+        if (isPartitioned(jdbcTemplate, ARCHIVE_TABLE))
+            jdbcTemplate.execute("ALTER TABLE " + ARCHIVE_TABLE + " REMOVE PARTITIONING");
+    }
+
+    private List<String> partitionNames() {
+        return jdbcTemplate.queryForList("SELECT PARTITION_NAME FROM information_schema.PARTITIONS " +
+                "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL " +
+                "ORDER BY PARTITION_ORDINAL_POSITION", String.class, TABLE);
+    }
+
+    //Partition bounds up to partitionsAhead partitions past today
+    private List<LocalDate> boundsAfter(LocalDate last) {
+        List<LocalDate> bounds = new ArrayList<>();
+        LocalDate until = partitionBound(LocalDate.now()).plusDays((long) partitionDays * partitionsAhead);
+        for (LocalDate bound = last.plusDays(partitionDays); !bound.isAfter(until); bound = bound.plusDays(partitionDays))
+            bounds.add(bound);
+        return bounds;
+    }
+
+    //First partition bound after the date, bounds are aligned to the epoch so they don't depend on when we started
+    private LocalDate partitionBound(LocalDate date) {
+        long epochDay = date.toEpochDay();
+        return LocalDate.ofEpochDay((epochDay / partitionDays + 1) * partitionDays);
+    }
+
+    private static LocalDate parseBound(String partitionName) {
+        if (partitionName.equals(OLD_PARTITION) || partitionName.equals(FUTURE_PARTITION)) return null;
+        return LocalDate.parse(partitionName, PARTITION_NAME);
+    }
+
+    private static String partitionDefinition(LocalDate bound) {
+        return partitionDefinition(bound.format(PARTITION_NAME), bound);
+    }
+
+    private static String partitionDefinition(String name, LocalDate bound) {
+        return "PARTITION " + name + " VALUES LESS THAN ('" + bound + " 00:00:00')";
+    }
+
+    private static String futureDefinition() {
+        return "PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN (MAXVALUE)";
+    }
+}
@@ -0,0 +1,168 @@
+package com.sixhands.service;
+
+import com.sixhands.domain.Notification;
+import com.sixhands.repository.NotificationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Collects notifications produced inside a transaction and writes them with one batched insert after it commits,
+ * then evicts the cached notifications of all recipients in one pass and pushes them to their open streams.
+ * Notifications of a rolled back transaction are dropped. Outside of a transaction they are written right away.
+ * <p>
+ * Notifications with the same (recipient, project, type) are coalesced: within the batch, and into the latest
+ * stored row if it is younger than {@code coalesce-window-ms}, which then gets a higher count and a fresh timestamp.
+ * In digest mode committed notifications are held in memory (already coalesced) and written every
+ * {@code digest.interval-ms}, pending digests are lost on a crash.
+ */
+@Service
+public class NotificationDispatcher {
+    @Autowired
+    private NotificationRepository notificationRepo;
+    @Autowired
+    private NotificationService notificationService;
+    @Autowired
+    private NotificationStreamRegistry streamRegistry;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${6hands.notifications.coalesce-window-ms:3600000}")
+    private long coalesceWindowMs;
+    @Value("${6hands.notifications.digest.enabled:false}")
+    private boolean digestEnabled;
+
+    private final Map<Object, Notification> digest = new LinkedHashMap<>();
+    private TransactionTemplate writeTemplate;
+    private Logger logger = Logger.getLogger(NotificationDispatcher.class.getName());
+
+    @PostConstruct
+    public void init() {
+        //afterCommit still runs with the finished transaction bound, the batch needs a transaction of its own
+        writeTemplate = new TransactionTemplate(transactionManager);
+        writeTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public void dispatch(Notification notification) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            committed(Collections.singletonList(notification));
+            return;
+        }
+        Batch batch = (Batch) TransactionSynchronizationManager.getResource(this);
+        if (batch == null) {
+            batch = new Batch();
+            TransactionSynchronizationManager.bindResource(this, batch);
+            TransactionSynchronizationManager.registerSynchronization(batch);
+        }
+        batch.notifications.add(notification);
+    }
+
+    @Scheduled(fixedDelayString = "${6hands.notifications.digest.interval-ms:300000}")
+    public void flushDigest() {
+        List<Notification> pending;
+        synchronized (digest) {
+            if (digest.isEmpty()) return;
+            pending = new ArrayList<>(digest.values());
+            digest.clear();
+        }
+        write(pending);
+    }
+
+    private void committed(List<Notification> notifications) {
+        if (!digestEnabled) {
+            write(notifications);
+            return;
+        }
+        synchronized (digest) {
+            coalesceInto(digest, notifications);
+        }
+    }
+
+    private void write(List<Notification> notifications) {
+        List<Notification> saved;
+        try {
+            saved = writeTemplate.execute(status -> coalesceWithStored(notifications));
+        } catch (RuntimeException e) {
+            //The operation itself is already committed, losing notifications must not fail it
+            logger.log(Level.WARNING, "Unable to save " + notifications.size() + " notifications", e);
+            return;
+        }
+        Set<Long> recipients = new HashSet<>();
+        for (Notification notification : saved) recipients.add(notification.getUserUUID());
+        notificationService.evict(recipients);
+        streamRegistry.push(saved);
+    }
+
+    //Saves the notifications, the ones with a recent stored row of the same key are added to it instead
+    private List<Notification> coalesceWithStored(List<Notification> notifications) {
+        Map<Object, Notification> batch = new LinkedHashMap<>();
+        coalesceInto(batch, notifications);
+        Map<String, Long> latest = new HashMap<>();
+        Map<String, Date> latestTimestamps = new HashMap<>();
+        Set<Long> recipients = new HashSet<>();
+        for (Notification notification : batch.values())
+            if (notification.coalesceKey() != null) recipients.add(notification.getUserUUID());
+        if (!recipients.isEmpty()) {
+            Date since = new Date(System.currentTimeMillis() - coalesceWindowMs);
+            for (Notification stored : notificationRepo.findCoalescible(recipients, since)) {
+                Date timestamp = latestTimestamps.get(stored.coalesceKey());
+                if (timestamp == null || stored.getTimestamp().after(timestamp)) {
+                    latest.put(stored.coalesceKey(), stored.getUuid());
+                    latestTimestamps.put(stored.coalesceKey(), stored.getTimestamp());
+                }
+            }
+        }
+
+        List<Notification> inserted = new ArrayList<>();
+        List<Long> updated = new ArrayList<>();
+        for (Notification notification : batch.values()) {
+            Long target = notification.coalesceKey() == null ? null : latest.get(notification.coalesceKey());
+            //The row may have been compacted away since it was read
+            if (target != null && notificationRepo.addCount(target, notification.getCount()) > 0) {
+                notificationRepo.touch(target, notification.getTimestamp(), notification.getActorUUID(),
+                        notification.getMessage(), notification.getUrlPath());
+                updated.add(target);
+            } else {
+                inserted.add(notification);
+            }
+        }
+        List<Notification> ret = new ArrayList<>(notificationRepo.saveAll(inserted));
+        if (!updated.isEmpty()) ret.addAll(notificationRepo.findAllById(updated));
+        return ret;
+    }
+
+    private static void coalesceInto(Map<Object, Notification> target, List<Notification> notifications) {
+        for (Notification notification : notifications) {
+            Object key = notification.coalesceKey();
+            if (key == null) key = notification;
+            Notification existing = target.get(key);
+            if (existing != null) existing.coalesce(notification);
+            else target.put(key, notification);
+        }
+    }
+
+    private class Batch extends TransactionSynchronizationAdapter {
+        private final List<Notification> notifications = new ArrayList<>();
+
+        @Override
+        public void afterCommit() {
+            if (!notifications.isEmpty()) committed(notifications);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(NotificationDispatcher.this);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.sixhands.service;
+
+import com.sixhands.controller.dtos.NotificationDTO;
+import com.sixhands.domain.Notification;
+import com.sixhands.domain.Project;
+import com.sixhands.domain.User;
+import com.sixhands.repository.ProjectRepository;
+import com.sixhands.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.MessageSource;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Renders stored notifications in the reader's locale.
+ * Texts come from the {@code notification.*} message keys (MessageSource caches the parsed formats per locale),
+ * actor and project names are loaded with one query each per batch, so renamed users and projects show up as they are now.
+ */
+@Service
+public class NotificationRenderer {
+    @Autowired
+    private MessageSource messageSource;
+    @Autowired
+    private UserRepository userRepo;
+    @Autowired
+    private ProjectRepository projectRepo;
+
+    public List<NotificationDTO> render(Collection<Notification> notifications, Locale locale) {
+        Set<Long> actorIds = new HashSet<>();
+        Set<Long> projectIds = new HashSet<>();
+        for (Notification notification : notifications) {
+            if (notification.getType() == null) continue;
+            if (notification.getActorUUID() != null) actorIds.add(notification.getActorUUID());
+            if (notification.getProjectUUID() != null) projectIds.add(notification.getProjectUUID());
+        }
+        Map<Long, String> actorNames = new HashMap<>();
+        if (!actorIds.isEmpty())
+            for (User user : userRepo.findAllById(actorIds))
+                actorNames.put(user.getUuid(), user.getFirst_name() + " " + user.getLast_name());
+        Map<Long, String> projectNames = new HashMap<>();
+        if (!projectIds.isEmpty())
+            for (Project project : projectRepo.findAllById(projectIds))
+                projectNames.put(project.getUuid(), project.getName());
+
+        List<NotificationDTO> ret = new ArrayList<>(notifications.size());
+        for (Notification notification : notifications) {
+            String message = notification.getMessage();
+            String urlPath = notification.getUrlPath();
+            if (notification.getType() != null) {
+                String actor = actorNames.get(notification.getActorUUID());
+                String project = projectNames.get(notification.getProjectUUID());
+                message = messageSource.getMessage(messageKey(notification.getType()), new Object[]{
+                        actor != null ? actor : messageSource.getMessage("notification.unknown_user", null, locale),
+                        project != null ? project : messageSource.getMessage("notification.unknown_project", null, locale)
+                }, locale);
+                urlPath = urlPath(notification);
+            }
+            ret.add(new NotificationDTO(notification.getUuid(), message, urlPath, notification.getTimestamp(), notification.getCount()));
+        }
+        return ret;
+    }
+
+    private static String messageKey(Notification.Type type) {
+        return "notification." + type.name().toLowerCase(Locale.ROOT);
+    }
+
+    private static String urlPath(Notification notification) {
+        if (notification.getType() == Notification.Type.PROJECT_INVITE || notification.getActorUUID() == null)
+            return "/user/me";
+        return "/user/" + notification.getActorUUID();
+    }
+}
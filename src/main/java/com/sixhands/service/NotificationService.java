@@ -0,0 +1,63 @@
+package com.sixhands.service;
+
+import com.sixhands.domain.Notification;
+import com.sixhands.repository.NotificationRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reads user notifications through a small LRU cache, entries are dropped by {@link NotificationDispatcher}
+ * once new notifications for the user are committed.
+ */
+@Service
+public class NotificationService {
+    @Autowired
+    private NotificationRepository notificationRepo;
+    @Autowired
+    private NotificationCompactor compactor;
+
+    @Value("${6hands.notifications.cache-size:10000}")
+    private int cacheSize;
+    @Value("${6hands.notifications.limit:20}")
+    private int limit;
+
+    private final Map<Long, List<Notification>> cache = new LinkedHashMap<Long, List<Notification>>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, List<Notification>> eldest) {
+            return size() > cacheSize;
+        }
+    };
+    //Bumped on every eviction, a list loaded before an eviction is not cached as it may miss new rows
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * @return latest {@code 6hands.notifications.limit} notifications within retention, oldest first
+     */
+    public List<Notification> getUserNotifications(Long userUUID) {
+        synchronized (cache) {
+            List<Notification> cached = cache.get(userUUID);
+            if (cached != null) return cached;
+        }
+        long loadedAt = generation.get();
+        List<Notification> loaded = new ArrayList<>(notificationRepo.findByUserUUIDAndTimestampGreaterThanEqualOrderByTimestampDesc(
+                userUUID, compactor.getRetentionStart(), PageRequest.of(0, limit)));
+        Collections.reverse(loaded);
+        loaded = Collections.unmodifiableList(loaded);
+        synchronized (cache) {
+            if (generation.get() == loadedAt) cache.put(userUUID, loaded);
+        }
+        return loaded;
+    }
+
+    public void evict(Collection<Long> userUUIDs) {
+        synchronized (cache) {
+            generation.incrementAndGet();
+            for (Long userUUID : userUUIDs) cache.remove(userUUID);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.sixhands.service;
+
+import com.sixhands.controller.dtos.NotificationDTO;
+import com.sixhands.domain.Notification;
+import org.json.JSONArray;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory registry of open notification streams (Server-Sent Events), one list of emitters per user.
+ * <p>
+ * Emitters are served asynchronously by Spring MVC, so an open stream does not hold a Tomcat thread.
+ * The amount of streams is capped per user (the oldest one gets a {@value #CLOSE_EVENT} event, so its page stops
+ * reconnecting) and globally (new ones are refused),
+ * a heartbeat comment keeps proxies from closing idle streams and detects dead clients.
+ * Every stream remembers the locale it was opened with, pushed notifications are rendered once per locale.
+ */
+@Service
+public class NotificationStreamRegistry {
+    public static final String NOTIFICATION_EVENT = "notification";
+    public static final String SNAPSHOT_EVENT = "snapshot";
+    public static final String CLOSE_EVENT = "close";
+
+    @Autowired
+    private NotificationRenderer renderer;
+
+    @Value("${6hands.notifications.sse.max-connections:2000}")
+    private int maxConnections;
+    @Value("${6hands.notifications.sse.max-per-user:4}")
+    private int maxPerUser;
+    @Value("${6hands.notifications.sse.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    private final Map<Long, List<Stream>> emitters = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+
+    /**
+     * Opens a stream and sends the user's current notifications as the first event
+     */
+    public SseEmitter register(Long userUUID, Locale locale, List<Notification> current) {
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many notification streams");
+        }
+        Stream stream = new Stream(new SseEmitter(timeoutMs), locale);
+        List<Stream> userStreams = emitters.compute(userUUID, (id, list) -> {
+            if (list == null) list = new CopyOnWriteArrayList<>();
+            list.add(stream);
+            return list;
+        });
+        stream.emitter.onCompletion(() -> remove(userUUID, stream));
+        stream.emitter.onTimeout(() -> remove(userUUID, stream));
+        stream.emitter.onError(e -> remove(userUUID, stream));
+
+        while (userStreams.size() > maxPerUser) {
+            Stream oldest = userStreams.get(0);
+            remove(userUUID, oldest);
+            //A plain complete() would make EventSource reconnect and evict the next oldest stream
+            close(oldest);
+        }
+
+        JSONArray snapshot = new JSONArray();
+        for (NotificationDTO notification : renderer.render(current, locale)) snapshot.put(notification.toJSON());
+        send(userUUID, stream, SseEmitter.event().name(SNAPSHOT_EVENT).data(snapshot.toString()));
+        return stream.emitter;
+    }
+
+    public void push(Collection<Notification> notifications) {
+        Map<Locale, List<Notification>> byLocale = new HashMap<>();
+        for (Notification notification : notifications) {
+            List<Stream> userStreams = emitters.get(notification.getUserUUID());
+            if (userStreams == null) continue;
+            Set<Locale> locales = new HashSet<>();
+            for (Stream stream : userStreams) locales.add(stream.locale);
+            for (Locale locale : locales) byLocale.computeIfAbsent(locale, l -> new ArrayList<>()).add(notification);
+        }
+        for (Map.Entry<Locale, List<Notification>> entry : byLocale.entrySet()) {
+            List<Notification> localeNotifications = entry.getValue();
+            List<NotificationDTO> rendered = renderer.render(localeNotifications, entry.getKey());
+            for (int i = 0; i < rendered.size(); i++) {
+                Long userUUID = localeNotifications.get(i).getUserUUID();
+                String data = rendered.get(i).toJSON().toString();
+                for (Stream stream : emitters.getOrDefault(userUUID, Collections.emptyList()))
+                    if (stream.locale.equals(entry.getKey()))
+                        send(userUUID, stream, SseEmitter.event().name(NOTIFICATION_EVENT).data(data));
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${6hands.notifications.sse.heartbeat-ms:25000}")
+    public void heartbeat() {
+        for (Map.Entry<Long, List<Stream>> entry : emitters.entrySet())
+            for (Stream stream : entry.getValue())
+                send(entry.getKey(), stream, SseEmitter.event().comment("heartbeat"));
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        for (List<Stream> userStreams : emitters.values())
+            for (Stream stream : userStreams) stream.emitter.complete();
+        emitters.clear();
+    }
+
+    public int getConnections() {
+        return connections.get();
+    }
+
+    private void send(Long userUUID, Stream stream, SseEmitter.SseEventBuilder event) {
+        //Writes to one response must not interleave
+        synchronized (stream) {
+            try {
+                stream.emitter.send(event);
+            } catch (IOException | IllegalStateException e) {
+                remove(userUUID, stream);
+                stream.emitter.completeWithError(e);
+            }
+        }
+    }
+
+    private void close(Stream stream) {
+        synchronized (stream) {
+            try {
+                stream.emitter.send(SseEmitter.event().name(CLOSE_EVENT).data("too-many-streams"));
+            } catch (IOException | IllegalStateException e) {
+                //Already gone
+            }
+            stream.emitter.complete();
+        }
+    }
+
+    private void remove(Long userUUID, Stream stream) {
+        emitters.computeIfPresent(userUUID, (id, list) -> {
+            if (list.remove(stream)) connections.decrementAndGet();
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    private static class Stream {
+        private final SseEmitter emitter;
+        private final Locale locale;
+
+        private Stream(SseEmitter emitter, Locale locale) {
+            this.emitter = emitter;
+            this.locale = locale;
+        }
+    }
+}
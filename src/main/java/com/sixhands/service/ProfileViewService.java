@@ -0,0 +1,154 @@
+package com.sixhands.service;
+
+import com.sixhands.domain.ProfileViewSketch;
+import com.sixhands.misc.HyperLogLog;
+import com.sixhands.repository.ProfileViewSketchRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Unique profile viewers, one {@link HyperLogLog} per viewed user per day instead of a row per view.
+ * <p>
+ * Views only touch sketches in memory. Every {@code flush-ms} the sketches changed since the last flush are merged
+ * into their stored day rows in one batch (write-behind), a crash loses at most one flush interval of views.
+ * A flush swaps a day's sketches out atomically and merges them back if the write fails, so views recorded
+ * meanwhile aren't lost. Weekly counts merge the stored days with the pending and flushing in-memory ones.
+ */
+@Service
+public class ProfileViewService {
+    public static final int WEEK_DAYS = 7;
+
+    @Autowired
+    private ProfileViewSketchRepository sketchRepo;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${6hands.profile-views.retention-days:35}")
+    private int retentionDays;
+
+    //Views since the last flush, keyed by day then viewed user
+    private final Map<LocalDate, Map<Long, HyperLogLog>> pending = new ConcurrentHashMap<>();
+    //Views swapped out of pending and being written, never modified
+    private final Map<LocalDate, Map<Long, HyperLogLog>> flushing = new ConcurrentHashMap<>();
+    //Views share the read lock, the flush takes the write lock to swap a day out once no view holds its map
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+
+    private TransactionTemplate writeTemplate;
+    private Logger logger = Logger.getLogger(ProfileViewService.class.getName());
+
+    @PostConstruct
+    public void init() {
+        writeTemplate = new TransactionTemplate(transactionManager);
+        writeTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public void recordView(Long userUUID, Long viewerUUID) {
+        if (userUUID == null || viewerUUID == null || userUUID.equals(viewerUUID)) return;
+        swapLock.readLock().lock();
+        try {
+            pending.computeIfAbsent(LocalDate.now(), d -> new ConcurrentHashMap<>())
+                    .compute(userUUID, (u, sketch) -> {
+                        if (sketch == null) sketch = new HyperLogLog();
+                        sketch.add(viewerUUID);
+                        return sketch;
+                    });
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return estimated amount of distinct users that viewed the profile in the last {@link #WEEK_DAYS} days
+     */
+    public long getWeeklyViewers(Long userUUID) {
+        LocalDate since = LocalDate.now().minusDays(WEEK_DAYS - 1);
+        HyperLogLog week = new HyperLogLog();
+        for (ProfileViewSketch sketch : sketchRepo.findByUserUUIDAndDayGreaterThanEqual(userUUID, Date.valueOf(since)))
+            week.merge(HyperLogLog.fromBytes(sketch.getRegisters()));
+        for (Map.Entry<LocalDate, Map<Long, HyperLogLog>> day : pending.entrySet()) {
+            if (day.getKey().isBefore(since)) continue;
+            //Merging reads the registers, the lock keeps concurrent views from tearing them
+            day.getValue().computeIfPresent(userUUID, (u, sketch) -> {
+                week.merge(sketch);
+                return sketch;
+            });
+        }
+        for (Map.Entry<LocalDate, Map<Long, HyperLogLog>> day : flushing.entrySet()) {
+            HyperLogLog sketch = day.getValue().get(userUUID);
+            if (sketch != null && !day.getKey().isBefore(since)) week.merge(sketch);
+        }
+        return week.estimate();
+    }
+
+    @Scheduled(fixedDelayString = "${6hands.profile-views.flush-ms:60000}")
+    public void flush() {
+        for (LocalDate day : new ArrayList<>(pending.keySet())) {
+            Map<Long, HyperLogLog> views;
+            swapLock.writeLock().lock();
+            try {
+                views = pending.remove(day);
+                if (views != null) flushing.put(day, views);
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+            if (views == null) continue;
+            try {
+                if (!views.isEmpty()) writeTemplate.executeWithoutResult(status -> write(day, views));
+                flushing.remove(day);
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Unable to flush profile views of " + day + ", retrying with the next flush", e);
+                flushing.remove(day);
+                restore(day, views);
+            }
+        }
+    }
+
+    private void write(LocalDate day, Map<Long, HyperLogLog> views) {
+        Date date = Date.valueOf(day);
+        Map<Long, ProfileViewSketch> stored = new HashMap<>();
+        for (ProfileViewSketch sketch : sketchRepo.findByDayAndUserUUIDIn(date, views.keySet()))
+            stored.put(sketch.getUserUUID(), sketch);
+
+        List<ProfileViewSketch> batch = new ArrayList<>(views.size());
+        views.forEach((user, sketch) -> {
+            ProfileViewSketch row = stored.computeIfAbsent(user, u -> new ProfileViewSketch(u, date));
+            //A copy, the swapped out sketches are read by getWeeklyViewers and may be restored
+            HyperLogLog merged = new HyperLogLog().merge(sketch);
+            if (row.getRegisters() != null) merged.merge(HyperLogLog.fromBytes(row.getRegisters()));
+            row.setRegisters(merged.toBytes());
+            batch.add(row);
+        });
+        sketchRepo.saveAll(batch);
+    }
+
+    //Merges the views of a failed flush with the ones recorded since
+    private void restore(LocalDate day, Map<Long, HyperLogLog> views) {
+        swapLock.readLock().lock();
+        try {
+            Map<Long, HyperLogLog> current = pending.computeIfAbsent(day, d -> new ConcurrentHashMap<>());
+            views.forEach((user, sketch) -> current.merge(user, sketch, HyperLogLog::merge));
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    @Scheduled(cron = "${6hands.profile-views.cleanup-cron:0 45 3 * * *}")
+    public void cleanup() {
+        sketchRepo.deleteOlder(Date.valueOf(LocalDate.now().minusDays(retentionDays)));
+    }
+}
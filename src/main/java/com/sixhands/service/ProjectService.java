@@ -6,14 +6,22 @@ import com.sixhands.domain.Notification;
 import com.sixhands.domain.Project;
 import com.sixhands.domain.User;
 import com.sixhands.domain.UserProjectExp;
+import com.sixhands.event.ProjectActivityEvent;
+import com.sixhands.event.ProjectMembershipEvent;
+import com.sixhands.event.ProjectRatingChangedEvent;
+import com.sixhands.event.ProjectUpdatedEvent;
+import com.sixhands.event.UserExpChangedEvent;
+import com.sixhands.event.UserUpdatedEvent;
 import com.sixhands.misc.GenericUtils;
 import com.sixhands.repository.ProjectRepository;
 import com.sixhands.repository.UserProjectExpRepository;
 import com.sixhands.repository.UserRepository;
 import org.jboss.logging.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -32,6 +40,8 @@ public class ProjectService {
     private UserProjectExpRepository userProjectExpRepo;
     @Autowired
     private UserService userService;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
 
     private static Logger logger = Logger.getLogger(ProjectService.class);
 
@@ -83,7 +93,7 @@ public class ProjectService {
                 @Override
                 public void accept(UserAndExpDTO userAndExpDTO) {
                     Notification notification = new Notification.NotificationBuilder(userExp.getUser_uuid())
-                            .buildProjectInviteLocaleSensitive(project, userAndExpDTO.getUser(), locale);
+                            .buildProjectInvite(project, userAndExpDTO.getUser());
                     userService.sendUserNotification(
                             notification
                     );
@@ -94,10 +104,15 @@ public class ProjectService {
 
         userProjectExpRepo.save(userExp);
         userRepo.save(reqCurUser);
+        if (!oPersistedUserAndExp.isPresent())
+            eventPublisher.publishEvent(new ProjectMembershipEvent(userExp.getUser_uuid(), project.getUuid(), true));
+        eventPublisher.publishEvent(new UserExpChangedEvent(userExp.getUser_uuid()));
+        eventPublisher.publishEvent(new UserUpdatedEvent(reqCurUser.getUuid()));
         return reqUserAndExp;
     }
 
     //TODO: Throw error if project creator specified himself as a member
+    @Transactional
     public void saveNewProject(ProjectDTO projectDTO, User curUser, Locale locale) {
         Project project = projectDTO.getProject();
         UserAndExpDTO[] members = projectDTO.getMembers();
@@ -111,6 +126,8 @@ public class ProjectService {
         creatorProjectExp.setUser_uuid(curUser.getUuid());
         creatorProjectExp.setProject_creator(true);
         userProjectExpRepo.save(creatorProjectExp);
+        eventPublisher.publishEvent(new ProjectMembershipEvent(curUser.getUuid(), projectId, true));
+        eventPublisher.publishEvent(new UserExpChangedEvent(curUser.getUuid()));
 
         Project finalProject = project;
         List<UserAndExpDTO> memberExp = Arrays.stream(members)
@@ -119,6 +136,25 @@ public class ProjectService {
                 .collect(Collectors.toList());
 
         memberExp.forEach((ueDTO) -> userProjectExpRepo.save(ueDTO.getUserExp()));
+        eventPublisher.publishEvent(new ProjectActivityEvent(ProjectActivityEvent.Type.CREATED, curUser.getUuid(), projectId));
+    }
+
+    /**
+     * Toggles the user's like
+     *
+     * @return whether the project is liked by the user now
+     */
+    @Transactional
+    public boolean likeProject(Long projectId, User user) {
+        Project project = projectRepo.findById(projectId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Project with id " + projectId + " is not found"));
+        project.likeByUser(user);
+        projectRepo.save(project);
+        boolean liked = project.getLikedUserIDs().contains(user.getUuid());
+        eventPublisher.publishEvent(new ProjectRatingChangedEvent(projectId));
+        eventPublisher.publishEvent(new ProjectActivityEvent(liked ? ProjectActivityEvent.Type.LIKED : ProjectActivityEvent.Type.UNLIKED,
+                user.getUuid(), projectId));
+        return liked;
     }
 
     public ProjectDTO projectDTOFromProject(Project project, User projectExpUser) {
@@ -134,18 +170,24 @@ public class ProjectService {
         return ret;
     }
 
+    @Transactional
     public void deleteProject(Project project) {
         deleteProject(project.getUuid());
     }
 
+    @Transactional
     public void deleteProject(Long uuid) {
         UserAndExpDTO[] userAndExpDTOS = this.projectExpByProject(uuid);
-        for (UserAndExpDTO userAndExpDTO : userAndExpDTOS)
+        for (UserAndExpDTO userAndExpDTO : userAndExpDTOS) {
             userProjectExpRepo.deleteById(userAndExpDTO.getUserExp().getUuid());
+            eventPublisher.publishEvent(new ProjectMembershipEvent(userAndExpDTO.getUserExp().getUser_uuid(), uuid, false));
+            eventPublisher.publishEvent(new UserExpChangedEvent(userAndExpDTO.getUserExp().getUser_uuid()));
+        }
 
         projectRepo.deleteById(uuid);
     }
 
+    @Transactional
     public ProjectDTO updateProject(ProjectDTO projectDTO, boolean byCreator, Locale locale) {
         //TODO:
         // throw exception if user created two members with same mail/another member with his mail
@@ -161,6 +203,7 @@ public class ProjectService {
             curProject.setName(reqProject.getName());
             curProject.setStart_date(reqProject.getStart_date());
             curProject.setEnd_date(reqProject.getEnd_date());
+            eventPublisher.publishEvent(new ProjectUpdatedEvent(curProject.getUuid()));
         } else {
             curProject.setConfirmed(true);
         }
@@ -196,23 +239,28 @@ public class ProjectService {
             curUserProjectExp
                     .getUserExp()
                     .setCustom_end_date(reqProject.getEnd_date());
-            if (!curUserProjectExp.getUserExp().isConfirmed())
+            if (!curUserProjectExp.getUserExp().isConfirmed()) {
                 //Send out confirm notification
                 userService.sendUserNotification(
                         new Notification.NotificationBuilder(creatorAndExp.getUser().getUuid())
-                                .buildProjectConfirmLocaleSensitive(reqProject, curUserProjectExp.getUser(), locale)
+                                .buildProjectConfirm(reqProject, curUserProjectExp.getUser())
                 );
+                eventPublisher.publishEvent(new ProjectActivityEvent(ProjectActivityEvent.Type.CONFIRMED,
+                        curUserProjectExp.getUser().getUuid(), curProject.getUuid()));
+            }
             curUserProjectExp
                     .getUserExp()
                     .setConfirmed(true);
+            eventPublisher.publishEvent(new ProjectRatingChangedEvent(curProject.getUuid()));
             //Send out change notification
             userService.sendUserNotification(
                     new Notification.NotificationBuilder(creatorAndExp.getUser().getUuid())
-                            .buildProjectChangeLocaleSensitive(reqProject, curUserProjectExp.getUser(), locale)
+                            .buildProjectChange(reqProject, curUserProjectExp.getUser())
             );
         }
 
         userProjectExpRepo.save(curUserProjectExp.getUserExp());
+        eventPublisher.publishEvent(new UserExpChangedEvent(curUserProjectExp.getUserExp().getUser_uuid()));
         UserAndExpDTO[] curMembers = Arrays.stream(projectDTO.getMembers())
                 .filter(Objects::nonNull)
                 .map((memDTO) -> createOrUpdateProjectExp(memDTO, projectDTO.getProject(), locale))
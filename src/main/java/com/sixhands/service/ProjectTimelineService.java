@@ -0,0 +1,279 @@
+package com.sixhands.service;
+
+import com.sixhands.event.ProjectUpdatedEvent;
+import com.sixhands.event.UserExpChangedEvent;
+import com.sixhands.misc.IntervalTree;
+import com.sixhands.misc.ReloadQueue;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Logger;
+
+/**
+ * When users worked on their projects, as interval trees of exp date ranges in epoch days.
+ * <p>
+ * An exp spans its {@code custom_start_date}/{@code custom_end_date} when set, the project's dates otherwise.
+ * A missing end date means the user is still on the project, exps without a parsable start are left out.
+ * There is one tree over all exps, one per user and one per project; they are loaded on startup and
+ * the affected exps are reloaded when a {@link UserExpChangedEvent} or {@link ProjectUpdatedEvent} commits.
+ * Both go through one {@link ReloadQueue}, so a slow reload never applies older rows over a newer one.
+ */
+@Service
+public class ProjectTimelineService {
+    private static final long ONGOING = Long.MAX_VALUE;
+    private static final String SELECT = "SELECT e.uuid, e.user_uuid, e.project_uuid, e.custom_start_date, e.custom_end_date, " +
+            "p.start_date, p.end_date FROM user_project_exp e LEFT JOIN project p ON p.uuid = e.project_uuid " +
+            "WHERE e.user_uuid IS NOT NULL";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Span> spans = new HashMap<>();
+    private final IntervalTree all = new IntervalTree();
+    //Ordered so free users can be listed page by page
+    private final TreeMap<Long, IntervalTree> byUser = new TreeMap<>();
+    private final Map<Long, IntervalTree> byProject = new HashMap<>();
+    private final ReloadQueue<Owner> reloads = new ReloadQueue<>();
+    private volatile boolean loaded = false;
+
+    private Logger logger = Logger.getLogger(ProjectTimelineService.class.getName());
+
+    //Date range of one exp
+    private static class Span {
+        final long expId;
+        final long userId;
+        final Long projectId;
+        final long start;
+        final long end;
+
+        Span(long expId, long userId, Long projectId, long start, long end) {
+            this.expId = expId;
+            this.userId = userId;
+            this.projectId = projectId;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    //A user or a project whose exps are reloaded
+    private static class Owner {
+        final boolean project;
+        final long id;
+
+        Owner(boolean project, long id) {
+            this.project = project;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Owner)) return false;
+            Owner owner = (Owner) o;
+            return project == owner.project && id == owner.id;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(id) * 31 + (project ? 1 : 0);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        List<Span> loadedSpans = new ArrayList<>();
+        jdbcTemplate.query(SELECT, collector(loadedSpans));
+        lock.writeLock().lock();
+        try {
+            for (Span span : loadedSpans) add(span);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        loaded = true;
+        logger.info("Loaded " + loadedSpans.size() + " exp date ranges");
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserExpChanged(UserExpChangedEvent event) {
+        if (event.getUserUUID() == null || !loaded) return;
+        reloads.reload(Collections.singleton(new Owner(false, event.getUserUUID())), this::reload);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProjectUpdated(ProjectUpdatedEvent event) {
+        if (event.getProjectUUID() == null || !loaded) return;
+        reloads.reload(Collections.singleton(new Owner(true, event.getProjectUUID())), this::reload);
+    }
+
+    /**
+     * @return users with an exp overlapping {@code [from, to]}
+     */
+    public Set<Long> findBusy(LocalDate from, LocalDate to) {
+        Set<Long> ret = new HashSet<>();
+        lock.readLock().lock();
+        try {
+            all.overlapping(from.toEpochDay(), to.toEpochDay(), expId -> ret.add(spans.get(expId).userId));
+        } finally {
+            lock.readLock().unlock();
+        }
+        return ret;
+    }
+
+    /**
+     * Users with dated exps that have none overlapping {@code [from, to]}, ordered by id. Every user is checked
+     * against their own tree, so the cost is logarithmic per user and the scan stops at limit results.
+     */
+    public List<Long> findFree(LocalDate from, LocalDate to, int limit) {
+        long start = from.toEpochDay(), end = to.toEpochDay();
+        List<Long> ret = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Map.Entry<Long, IntervalTree> user : byUser.entrySet()) {
+                if (ret.size() >= limit) break;
+                if (!user.getValue().anyOverlapping(start, end)) ret.add(user.getKey());
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return ret;
+    }
+
+    public boolean isFree(Long userUUID, LocalDate from, LocalDate to) {
+        lock.readLock().lock();
+        try {
+            IntervalTree userTree = byUser.get(userUUID);
+            return userTree == null || !userTree.anyOverlapping(from.toEpochDay(), to.toEpochDay());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return users that were on one of the user's projects at the same time as the user, with the shared projects
+     */
+    public Map<Long, Set<Long>> findOverlapping(Long userUUID) {
+        Map<Long, Set<Long>> ret = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            IntervalTree userTree = byUser.get(userUUID);
+            if (userTree == null) return ret;
+            List<Span> own = new ArrayList<>();
+            userTree.overlapping(Long.MIN_VALUE, ONGOING, expId -> own.add(spans.get(expId)));
+            for (Span span : own) {
+                IntervalTree projectTree = span.projectId == null ? null : byProject.get(span.projectId);
+                if (projectTree == null) continue;
+                projectTree.overlapping(span.start, span.end, expId -> {
+                    Span other = spans.get(expId);
+                    if (other.userId != userUUID)
+                        ret.computeIfAbsent(other.userId, u -> new TreeSet<>()).add(span.projectId);
+                });
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return ret;
+    }
+
+    /**
+     * Parses a {@code yyyy-MM-dd} date of a query
+     */
+    public static LocalDate parseQueryDate(String date) {
+        try {
+            return LocalDate.parse(date);
+        } catch (DateTimeParseException | NullPointerException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Date must be formatted as yyyy-MM-dd: " + date);
+        }
+    }
+
+    //Replaces the exps of the users and projects with what the database has now
+    private void reload(Set<Owner> owners) {
+        List<Long> users = new ArrayList<>(), projects = new ArrayList<>();
+        for (Owner owner : owners) (owner.project ? projects : users).add(owner.id);
+        List<Object> args = new ArrayList<>(users);
+        args.addAll(projects);
+        List<Span> fresh = new ArrayList<>();
+        jdbcTemplate.query(SELECT + " AND (e.user_uuid IN (" + placeholders(users.size()) + ") OR e.project_uuid IN ("
+                + placeholders(projects.size()) + "))", collector(fresh), args.toArray());
+        lock.writeLock().lock();
+        try {
+            List<Long> expIds = new ArrayList<>();
+            for (Long user : users) expsOf(byUser, user, expIds);
+            for (Long project : projects) expsOf(byProject, project, expIds);
+            for (Long expId : expIds) remove(expId);
+            for (Span span : fresh) add(span);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void expsOf(Map<Long, IntervalTree> trees, Long key, List<Long> to) {
+        IntervalTree tree = trees.get(key);
+        if (tree != null) tree.overlapping(Long.MIN_VALUE, ONGOING, to::add);
+    }
+
+    //An empty IN () is invalid, NULL matches nothing
+    private static String placeholders(int count) {
+        if (count == 0) return "NULL";
+        StringBuilder ret = new StringBuilder();
+        for (int i = 0; i < count; i++) ret.append(i == 0 ? "?" : ",?");
+        return ret.toString();
+    }
+
+    private void add(Span span) {
+        spans.put(span.expId, span);
+        all.insert(span.start, span.end, span.expId);
+        byUser.computeIfAbsent(span.userId, u -> new IntervalTree()).insert(span.start, span.end, span.expId);
+        if (span.projectId != null)
+            byProject.computeIfAbsent(span.projectId, p -> new IntervalTree()).insert(span.start, span.end, span.expId);
+    }
+
+    private void remove(Long expId) {
+        Span span = spans.remove(expId);
+        if (span == null) return;
+        all.remove(span.start, span.end, span.expId);
+        removeFrom(byUser, span.userId, span);
+        if (span.projectId != null) removeFrom(byProject, span.projectId, span);
+    }
+
+    private static void removeFrom(Map<Long, IntervalTree> trees, Long key, Span span) {
+        IntervalTree tree = trees.get(key);
+        if (tree == null) return;
+        tree.remove(span.start, span.end, span.expId);
+        if (tree.isEmpty()) trees.remove(key);
+    }
+
+    private static RowCallbackHandler collector(List<Span> to) {
+        return rs -> {
+            String customStart = rs.getString(4);
+            boolean custom = !StringUtils.isEmpty(customStart);
+            Long start = parseDay(custom ? customStart : rs.getString(6));
+            if (start == null) return;
+            Long end = parseDay(custom ? rs.getString(5) : rs.getString(7));
+            long projectId = rs.getLong(3);
+            to.add(new Span(rs.getLong(1), rs.getLong(2), rs.wasNull() ? null : projectId, start,
+                    end == null ? ONGOING : Math.max(start, end)));
+        };
+    }
+
+    private static Long parseDay(String date) {
+        if (StringUtils.isEmpty(date)) return null;
+        try {
+            return LocalDate.parse(date.trim()).toEpochDay();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.sixhands.service;
+
+import com.sixhands.controller.dtos.RecommendationDTO;
+import com.sixhands.domain.User;
+import com.sixhands.event.ProjectMembershipEvent;
+import com.sixhands.misc.MutualColleagueCounter;
+import com.sixhands.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * "People you may know": second-degree colleagues ranked by the number of colleagues they share with the user.
+ * <p>
+ * Rankings are precomputed into a top-{@code 6hands.pymk.size} list per user, so reading them is a map lookup.
+ * All users are ranked once the {@link ColleagueGraphService} graph is loaded, afterwards membership changes
+ * only mark the users they can affect, and the background refresh re-ranks those in batches.
+ */
+@Service
+public class RecommendationService {
+    @Autowired
+    private ColleagueGraphService colleagueGraphService;
+    @Autowired
+    private UserRepository userRepo;
+
+    @Value("${6hands.pymk.size:10}")
+    private int size;
+    @Value("${6hands.pymk.batch-size:2000}")
+    private int batchSize;
+    @Value("${6hands.pymk.max-project-size:500}")
+    private int maxProjectSize;
+
+    private final Map<Long, MutualColleagueCounter.Ranked> rankings = new ConcurrentHashMap<>();
+    private final Queue<ProjectMembershipEvent> changes = new ConcurrentLinkedQueue<>();
+    //Users to re-rank, in insertion order so a big initial load doesn't starve recent changes forever
+    private final Set<Long> dirty = Collections.synchronizedSet(new LinkedHashSet<>());
+    private volatile boolean seeded = false;
+    private MutualColleagueCounter counter;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMembershipChanged(ProjectMembershipEvent event) {
+        if (event.getUserUUID() == null || event.getProjectUUID() == null) return;
+        changes.add(event);
+    }
+
+    public List<RecommendationDTO> getRecommendations(User user) {
+        MutualColleagueCounter.Ranked ranked = rankings.get(user.getUuid());
+        if (ranked == null || ranked.getUserIds().length == 0) return Collections.emptyList();
+
+        List<Long> ids = new ArrayList<>(ranked.getUserIds().length);
+        for (long id : ranked.getUserIds()) ids.add(id);
+        Map<Long, User> users = new HashMap<>();
+        for (User candidate : userRepo.findAllById(ids)) users.put(candidate.getUuid(), candidate);
+        List<RecommendationDTO> ret = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            User candidate = users.get(ids.get(i));
+            if (candidate != null) ret.add(new RecommendationDTO(candidate, ranked.getMutual()[i]));
+        }
+        return ret;
+    }
+
+    @Scheduled(fixedDelayString = "${6hands.pymk.refresh-ms:10000}")
+    public void refresh() {
+        if (!colleagueGraphService.isLoaded()) return;
+        if (counter == null) counter = new MutualColleagueCounter(maxProjectSize);
+        if (!seeded) {
+            dirty.addAll(colleagueGraphService.read(graph -> {
+                List<Long> all = new ArrayList<>(graph.userCount());
+                for (int i = 0; i < graph.userCount(); i++) all.add(graph.userId(i));
+                return all;
+            }));
+            seeded = true;
+        }
+
+        ProjectMembershipEvent change;
+        while ((change = changes.poll()) != null) {
+            ProjectMembershipEvent finalChange = change;
+            List<Long> affected = colleagueGraphService.read(graph -> {
+                List<Long> ret = new ArrayList<>();
+                counter.forEachAffected(graph, finalChange.getUserUUID(), finalChange.getProjectUUID(),
+                        u -> ret.add(graph.userId(u)));
+                return ret;
+            });
+            dirty.addAll(affected);
+        }
+
+        List<Long> batch = new ArrayList<>(batchSize);
+        synchronized (dirty) {
+            Iterator<Long> it = dirty.iterator();
+            while (it.hasNext() && batch.size() < batchSize) {
+                batch.add(it.next());
+                it.remove();
+            }
+        }
+        for (Long user : batch) {
+            MutualColleagueCounter.Ranked ranked = colleagueGraphService.read(graph -> counter.top(graph, user, size));
+            if (ranked.getUserIds().length == 0) rankings.remove(user);
+            else rankings.put(user, ranked);
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.sixhands.service;
+
+import com.sixhands.domain.Notification;
+import com.sixhands.domain.SavedSearch;
+import com.sixhands.domain.User;
+import com.sixhands.event.UserTermsChangedEvent;
+import com.sixhands.event.UserUpdatedEvent;
+import com.sixhands.misc.Percolator;
+import com.sixhands.repository.SavedSearchRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * Saved user searches, their owners get a notification when a user starts to match one.
+ * <p>
+ * Filters are matched on the {@link UserTermIndex} terms (same normalization as the index, list values must all be
+ * present) and the name like {@code /search} does it. Searches are kept in a {@link Percolator}, so a changed user
+ * is only checked against the searches posted under one of its terms or name trigrams, plus the ones it matched
+ * before. The users matching each search are kept in memory; they are recomputed on startup without notifications,
+ * so only users that start to match while the application runs are reported.
+ */
+@Service
+public class SavedSearchService {
+    private static final String SELECT_NAMES = "SELECT uuid, first_name, last_name FROM `user`";
+
+    @Autowired
+    private SavedSearchRepository savedSearchRepo;
+    @Autowired
+    private UserTermIndex termIndex;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${6hands.saved-search.max-per-user:20}")
+    private int maxPerUser;
+
+    private final Object lock = new Object();
+    private final Percolator percolator = new Percolator();
+    private final Map<Long, SavedSearch> searches = new HashMap<>();
+    private final Map<Long, Set<Long>> matchesBySearch = new HashMap<>();
+    private final Map<Long, Set<Long>> matchesByUser = new HashMap<>();
+    //Lower case "first last" of users having both, what the name filter is matched against
+    private final Map<Long, String> names = new HashMap<>();
+    private boolean loaded = false;
+    private boolean baselined = false;
+    private TransactionTemplate alertTemplate;
+
+    private Logger logger = Logger.getLogger(SavedSearchService.class.getName());
+
+    @PostConstruct
+    public void initTemplate() {
+        //Changes arrive after their transaction committed, alerts are dispatched in a transaction of their own
+        alertTemplate = new TransactionTemplate(transactionManager);
+        alertTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        Map<Long, String> loadedNames = new HashMap<>();
+        jdbcTemplate.query(SELECT_NAMES, rs -> {
+            String name = fullName(rs.getString(2), rs.getString(3));
+            if (name != null) loadedNames.put(rs.getLong(1), name);
+        });
+        List<SavedSearch> saved = savedSearchRepo.findAll();
+        synchronized (lock) {
+            names.putAll(loadedNames);
+            for (SavedSearch search : saved) index(search);
+            loaded = true;
+            //Otherwise the term index isn't loaded yet and its first event triggers the baseline
+            if (termIndex.isLoaded()) baseline();
+        }
+        logger.info("Loaded " + saved.size() + " saved searches");
+    }
+
+    @EventListener
+    public void onTermsChanged(UserTermsChangedEvent event) {
+        List<Notification> alerts = new ArrayList<>();
+        synchronized (lock) {
+            if (!loaded) return;
+            if (!baselined) {
+                baseline();
+                return;
+            }
+            event.getTerms().forEach((user, terms) -> evaluate(user, terms, alerts));
+        }
+        send(alerts);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserUpdated(UserUpdatedEvent event) {
+        if (event.getUserUUID() == null) return;
+        String[] name = {null};
+        jdbcTemplate.query(SELECT_NAMES + " WHERE uuid = ?",
+                rs -> {
+                    name[0] = fullName(rs.getString(2), rs.getString(3));
+                }, event.getUserUUID());
+        List<Notification> alerts = new ArrayList<>();
+        synchronized (lock) {
+            if (Objects.equals(name[0], names.get(event.getUserUUID()))) return;
+            if (name[0] == null) names.remove(event.getUserUUID());
+            else names.put(event.getUserUUID(), name[0]);
+            if (baselined) evaluate(event.getUserUUID(), termIndex.getTerms(event.getUserUUID()), alerts);
+        }
+        send(alerts);
+    }
+
+    public SavedSearch save(User owner, String skill, String company, String industry, String tool, String role, String name) {
+        SavedSearch search = new SavedSearch(owner.getUuid(), clean(skill), clean(company), clean(industry),
+                clean(tool), clean(role), clean(name));
+        Set<String> terms = terms(search);
+        if (terms.isEmpty() && search.getName() == null)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Saved search needs at least one filter");
+        if (savedSearchRepo.countByOwnerUUID(owner.getUuid()) >= maxPerUser)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Only " + maxPerUser + " searches can be saved");
+        search = savedSearchRepo.save(search);
+        synchronized (lock) {
+            if (loaded) {
+                index(search);
+                if (baselined) baseline(search);
+            }
+        }
+        return search;
+    }
+
+    public void delete(User owner, Long id) {
+        SavedSearch search = savedSearchRepo.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Saved search " + id + " is not found"));
+        if (!search.getOwnerUUID().equals(owner.getUuid()))
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Saved search belongs to another user");
+        savedSearchRepo.delete(search);
+        synchronized (lock) {
+            searches.remove(id);
+            percolator.remove(id);
+            Set<Long> matched = matchesBySearch.remove(id);
+            if (matched != null) for (Long user : matched) unmatch(id, user);
+        }
+    }
+
+    public List<SavedSearch> getSearches(User owner) {
+        return savedSearchRepo.findByOwnerUUIDOrderByCreatedDesc(owner.getUuid());
+    }
+
+    //Amount of users matching the search now
+    public int getMatchCount(Long searchId) {
+        synchronized (lock) {
+            return matchesBySearch.getOrDefault(searchId, Collections.emptySet()).size();
+        }
+    }
+
+    private void index(SavedSearch search) {
+        searches.put(search.getUuid(), search);
+        percolator.put(search.getUuid(), terms(search), search.getName() == null ? null : search.getName().toLowerCase(Locale.ROOT));
+    }
+
+    private void baseline() {
+        long start = System.currentTimeMillis();
+        matchesBySearch.clear();
+        matchesByUser.clear();
+        for (SavedSearch search : searches.values()) baseline(search);
+        baselined = true;
+        logger.info("Matched " + searches.size() + " saved searches in " + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    //Current matches of a search, the users of its rarest term or everyone with a name are the candidates
+    private void baseline(SavedSearch search) {
+        Collection<Long> candidates = names.keySet();
+        for (String term : terms(search)) {
+            Set<Long> users = termIndex.getUsers(term);
+            if (candidates == names.keySet() || users.size() < candidates.size()) candidates = users;
+        }
+        for (Long user : new ArrayList<>(candidates))
+            if (percolator.matches(search.getUuid(), termIndex.getTerms(user), names.get(user))) match(search.getUuid(), user);
+    }
+
+    private void evaluate(Long user, Set<String> terms, List<Notification> alerts) {
+        String name = names.get(user);
+        Set<Long> candidates = new HashSet<>(matchesByUser.getOrDefault(user, Collections.emptySet()));
+        percolator.forTerms(terms, candidates::add);
+        percolator.forName(name, candidates::add);
+        for (Long id : candidates) {
+            boolean matches = percolator.matches(id, terms, name);
+            boolean matched = matchesBySearch.getOrDefault(id, Collections.emptySet()).contains(user);
+            if (matches && !matched) {
+                match(id, user);
+                Long owner = searches.get(id).getOwnerUUID();
+                if (!owner.equals(user)) alerts.add(new Notification.NotificationBuilder(owner).buildSavedSearchMatch(user));
+            } else if (!matches && matched) {
+                matchesBySearch.get(id).remove(user);
+                unmatch(id, user);
+            }
+        }
+    }
+
+    private void match(Long searchId, Long user) {
+        matchesBySearch.computeIfAbsent(searchId, s -> new HashSet<>()).add(user);
+        matchesByUser.computeIfAbsent(user, u -> new HashSet<>()).add(searchId);
+    }
+
+    private void unmatch(Long searchId, Long user) {
+        Set<Long> userMatches = matchesByUser.get(user);
+        if (userMatches == null) return;
+        userMatches.remove(searchId);
+        if (userMatches.isEmpty()) matchesByUser.remove(user);
+    }
+
+    private void send(List<Notification> alerts) {
+        if (alerts.isEmpty()) return;
+        alertTemplate.executeWithoutResult(status -> alerts.forEach(userService::sendUserNotification));
+    }
+
+    private static Set<String> terms(SavedSearch search) {
+        Set<String> ret = new HashSet<>();
+        ret.addAll(UserTermIndex.normalize(UserTermIndex.SKILL, search.getSkill()));
+        ret.addAll(UserTermIndex.normalize(UserTermIndex.COMPANY, search.getCompany()));
+        ret.addAll(UserTermIndex.normalize(UserTermIndex.INDUSTRY, search.getIndustry()));
+        ret.addAll(UserTermIndex.normalize(UserTermIndex.TOOL, search.getTool()));
+        ret.addAll(UserTermIndex.normalize(UserTermIndex.ROLE, search.getRole()));
+        return ret;
+    }
+
+    //The search page sends "none" when no industry is selected
+    private static String clean(String value) {
+        if (StringUtils.isEmpty(value) || value.trim().isEmpty() || value.trim().equalsIgnoreCase("none")) return null;
+        return value.trim();
+    }
+
+    private static String fullName(String first, String last) {
+        if (StringUtils.isEmpty(first) || StringUtils.isEmpty(last)) return null;
+        return (first + " " + last).toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,16 +1,24 @@
 package com.sixhands.service;
 
+import com.sixhands.controller.dtos.ImportIssueDTO;
 import com.sixhands.controller.dtos.ProjectDTO;
 import com.sixhands.controller.dtos.UserAndExpDTO;
 import com.sixhands.domain.Project;
 import com.sixhands.domain.User;
+import com.sixhands.domain.UserProjectExp;
+import com.sixhands.misc.CSVTokenizer;
 import com.sixhands.misc.GenericUtils;
+import com.sixhands.repository.ProjectRepository;
+import com.sixhands.repository.UserRepository;
 import org.apache.poi.ss.usermodel.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 @Service
@@ -18,16 +26,43 @@ public class SheetService {
 
     @Autowired
     private UserService userService;
+    @Autowired
+    private ProjectRepository projectRepo;
+    @Autowired
+    private UserRepository userRepo;
     private static DataFormatter dataFormatter = new DataFormatter();
     private int totalCells=-1;
     //Cell, where member first name is set
     private final int MEMBERS_CELL = 9;
+    //Last cell that is mapped onto the project/member
+    private static final int LAST_CELL = 22;
+    private static final String[] COLUMN_NAMES = {
+            "project_name", "project_description", "project_company", "project_industry",
+            "project_start_date", "project_end_date", "project_link", "project_import_id",
+            "member_name", "member_surname", "member_email", "member_role", "member_position",
+            "member_duties", "member_skills", "member_tools", "member_country", "member_city",
+            "member_date_of_birth", "member_sex", "member_phone_number", "member_about_me",
+            "member_social_networks"
+    };
+    private static final int EMAIL_CELL = 10;
     private int c;
     private Row row;
     public List<ProjectDTO> parseSheet(Sheet sheet){
         User curUser = userService.getCurUserOrThrow();
+        return parseSheet(sheet, null);
+    }
+
+    /**
+     * Dry run of {@link #parseSheet(Sheet)}, nothing is persisted.
+     * Every cell that would be dropped or would have a side effect on import is reported to {@code issues}.
+     */
+    public void validateSheet(Sheet sheet, Consumer<ImportIssueDTO> issues){
+        parseSheet(sheet, new ImportValidation(issues));
+    }
+
+    private List<ProjectDTO> parseSheet(Sheet sheet, ImportValidation validation){
         List<ProjectDTO> sheetProjectDTOs = new ArrayList<>();
-        ProjectDTOBuilder projectDTOBuilder = new ProjectDTOBuilder();
+        ProjectDTOBuilder projectDTOBuilder = new ProjectDTOBuilder(validation);
 
         int r = 0;
         Iterator<Row> rowIterator = sheet.iterator();
@@ -35,7 +70,7 @@ public class SheetService {
             row = rowIterator.next();
             if(r ==0){
                 r++;
-                projectDTOBuilder = new ProjectDTOBuilder();
+                projectDTOBuilder = new ProjectDTOBuilder(validation);
                 continue;
             }
             if (row != null) {
@@ -48,31 +83,7 @@ public class SheetService {
                         Supplier<String> cs = () -> dataFormatter.formatCellValue(cell);
                         if( !StringUtils.isEmpty( cs.get() ) ){
                             //System.out.printf("row: %d, col: %d, %s%n", r, c, cs.get());
-                            switch (c){
-                                case 0: projectDTOBuilder.setProjectName(cs.get()); break;
-                                case 1: projectDTOBuilder.setProjectDescription(cs.get()); break;
-                                case 2: projectDTOBuilder.setProjectCompany(cs.get()); break;
-                                case 3: projectDTOBuilder.setProjectIndustry(cs.get()); break;
-                                case 4: projectDTOBuilder.setProjectStartDate(cs.get()); break;
-                                case 5: projectDTOBuilder.setProjectEndDate(cs.get()); break;
-                                case 6: projectDTOBuilder.setProjectLink(cs.get()); break;
-                                case 7: projectDTOBuilder.setProjectImportID(cs.get()); break;
-                                case 8: projectDTOBuilder.setUserName(cs.get()); break;
-                                case 9: projectDTOBuilder.setUserSurname(cs.get()); break;
-                                case 10: projectDTOBuilder.setUserEmail(cs.get()); break;
-                                case 11: projectDTOBuilder.setMemberRole(cs.get()); break;
-                                case 12: projectDTOBuilder.setMemberPosition(cs.get());  break;
-                                case 13: projectDTOBuilder.setMemberDuties(cs.get());  break;
-                                case 14: projectDTOBuilder.setMemberSkills(cs.get());  break;
-                                case 15: projectDTOBuilder.setMemberTools(cs.get());  break;
-                                case 16: projectDTOBuilder.setUserCountry(cs.get());  break;
-                                case 17: projectDTOBuilder.setUserCity(cs.get());  break;
-                                case 18: projectDTOBuilder.setUserDateOfBirth(cs.get());  break;
-                                case 19: projectDTOBuilder.setUserSex(cs.get());  break;
-                                case 20: projectDTOBuilder.setUserPhoneNumber(cs.get()); break;
-                                case 21: projectDTOBuilder.setUserAboutMe(cs.get()); break;
-                                case 22: projectDTOBuilder.setUserSocialNetworks(cs.get()); break;
-                            }
+                            applyCell(projectDTOBuilder, r, c, cs.get());
                         }
                     }
                     c++;
@@ -89,17 +100,169 @@ public class SheetService {
             if( nextIsNewProject || r == sheet.getPhysicalNumberOfRows()-1 ){
                 ProjectDTO projectDTO = projectDTOBuilder.build();
                 r++;
-                projectDTOBuilder = new ProjectDTOBuilder();
-                sheetProjectDTOs.add(projectDTO);
+                projectDTOBuilder = new ProjectDTOBuilder(validation);
+                if(validation == null) sheetProjectDTOs.add(projectDTO);
             }else r++;
 
         }
 
         return sheetProjectDTOs;
     }
+
+    /**
+     * Streams projects out of a CSV/TSV export that uses the same column layout as the xlsx sheet.
+     * Every project is passed to {@code consumer} as soon as its last member row is read,
+     * so nothing but the project that is currently being read is kept in memory.
+     *
+     * @return amount of imported projects
+     */
+    public int parseDelimited(Reader reader, char delimiter, Consumer<ProjectDTO> consumer) throws IOException {
+        DelimitedRowHandler rowHandler = new DelimitedRowHandler(consumer, null);
+        new CSVTokenizer(reader, delimiter).tokenize(rowHandler);
+        return rowHandler.finish();
+    }
+
+    /**
+     * Dry run of {@link #parseDelimited(Reader, char, Consumer)}, see {@link #validateSheet(Sheet, Consumer)}
+     */
+    public void validateDelimited(Reader reader, char delimiter, Consumer<ImportIssueDTO> issues) throws IOException {
+        DelimitedRowHandler rowHandler = new DelimitedRowHandler((projectDTO) -> {}, new ImportValidation(issues));
+        new CSVTokenizer(reader, delimiter).tokenize(rowHandler);
+        rowHandler.finish();
+    }
+
+    private class DelimitedRowHandler implements CSVTokenizer.RowHandler {
+        private final Consumer<ProjectDTO> consumer;
+        private final ImportValidation validation;
+        //Non-empty cell values of the current row, reused between rows
+        private final String[] cells = new String[LAST_CELL + 1];
+        private ProjectDTOBuilder projectDTOBuilder = null;
+        private int projects = 0;
+
+        private DelimitedRowHandler(Consumer<ProjectDTO> consumer, ImportValidation validation) {
+            this.consumer = consumer;
+            this.validation = validation;
+        }
+
+        @Override
+        public void field(int row, int column, CharSequence value) {
+            //Header row
+            if (row == 0 || column > LAST_CELL || value.length() == 0) return;
+            cells[column] = value.toString();
+        }
+
+        @Override
+        public void endRow(int row, int columns) {
+            if (row == 0) return;
+            //Same rule as for xlsx: a row with both project name and member surname starts a new project
+            boolean isNewProject = cells[0] != null && cells[MEMBERS_CELL] != null;
+            if (isNewProject || projectDTOBuilder == null) {
+                finish();
+                projectDTOBuilder = new ProjectDTOBuilder(false, validation);
+            }
+            for (int i = 0; i < cells.length; i++) {
+                if (cells[i] != null) applyCell(projectDTOBuilder, row, i, cells[i]);
+                cells[i] = null;
+            }
+            if (validation != null) validation.at(row, EMAIL_CELL);
+            projectDTOBuilder.endRow();
+        }
+
+        private int finish() {
+            if (projectDTOBuilder != null) {
+                consumer.accept(projectDTOBuilder.build());
+                projectDTOBuilder = null;
+                projects++;
+            }
+            return projects;
+        }
+    }
+
+    private void applyCell(ProjectDTOBuilder projectDTOBuilder, int row, int column, String value) {
+        if (projectDTOBuilder.validation != null) projectDTOBuilder.validation.at(row, column);
+        switch (column){
+            case 0: projectDTOBuilder.setProjectName(value); break;
+            case 1: projectDTOBuilder.setProjectDescription(value); break;
+            case 2: projectDTOBuilder.setProjectCompany(value); break;
+            case 3: projectDTOBuilder.setProjectIndustry(value); break;
+            case 4: projectDTOBuilder.setProjectStartDate(value); break;
+            case 5: projectDTOBuilder.setProjectEndDate(value); break;
+            case 6: projectDTOBuilder.setProjectLink(value); break;
+            case 7: projectDTOBuilder.setProjectImportID(value); break;
+            case 8: projectDTOBuilder.setUserName(value); break;
+            case 9: projectDTOBuilder.setUserSurname(value); break;
+            case 10: projectDTOBuilder.setUserEmail(value); break;
+            case 11: projectDTOBuilder.setMemberRole(value); break;
+            case 12: projectDTOBuilder.setMemberPosition(value);  break;
+            case 13: projectDTOBuilder.setMemberDuties(value);  break;
+            case 14: projectDTOBuilder.setMemberSkills(value);  break;
+            case 15: projectDTOBuilder.setMemberTools(value);  break;
+            case 16: projectDTOBuilder.setUserCountry(value);  break;
+            case 17: projectDTOBuilder.setUserCity(value);  break;
+            case 18: projectDTOBuilder.setUserDateOfBirth(value);  break;
+            case 19: projectDTOBuilder.setUserSex(value);  break;
+            case 20: projectDTOBuilder.setUserPhoneNumber(value); break;
+            case 21: projectDTOBuilder.setUserAboutMe(value); break;
+            case 22: projectDTOBuilder.setUserSocialNetworks(value); break;
+        }
+    }
+    //Collects issues of a dry run, row/column point to the cell that is currently applied
+    private class ImportValidation {
+        private final Consumer<ImportIssueDTO> issues;
+        private final Set<String> importIDs = new HashSet<>();
+        private final Set<String> emails = new HashSet<>();
+        private int row, column;
+
+        private ImportValidation(Consumer<ImportIssueDTO> issues) {
+            this.issues = issues;
+        }
+
+        private void at(int row, int column) {
+            this.row = row;
+            this.column = column;
+        }
+
+        private void reject(String value, ImportIssueDTO.Issue issue) {
+            issues.accept(new ImportIssueDTO(row + 1, COLUMN_NAMES[column], value, issue));
+        }
+
+        private void checkImportID(String importID) {
+            if (!importIDs.add(importID)) reject(importID, ImportIssueDTO.Issue.duplicate_import_id);
+            else if (projectRepo.existsByImportID(importID)) reject(importID, ImportIssueDTO.Issue.existing_import_id);
+        }
+
+        private void checkEmail(String email) {
+            //Each new user is reported once, on the first row that mentions him
+            if (emails.add(email.toLowerCase()) && !userRepo.findByEmail(email).isPresent())
+                reject(email, ImportIssueDTO.Issue.new_user);
+        }
+
+        private void checkRole(String role) {
+            String enumName = role.trim().replace(' ', '_');
+            boolean known = Arrays.stream(UserProjectExp.Role.values())
+                    .anyMatch((r) -> r.name().equalsIgnoreCase(enumName));
+            if (!known) reject(role, ImportIssueDTO.Issue.unknown_role);
+        }
+    }
+
     //TODO: Refactor afterTempUserAndExpChange
     private class ProjectDTOBuilder {
         private UserAndExpDTO tempUserAndExpDTO = new UserAndExpDTO();
+        //xlsx rows are committed when the last cell is set, csv rows - explicitly on row end
+        private final boolean commitOnLastCell;
+        //null unless it is a dry run
+        private final ImportValidation validation;
+        private boolean hasMemberData = false;
+
+        private ProjectDTOBuilder(ImportValidation validation){ this(true, validation); }
+        private ProjectDTOBuilder(boolean commitOnLastCell, ImportValidation validation){
+            this.commitOnLastCell = commitOnLastCell;
+            this.validation = validation;
+        }
+        private ProjectDTOBuilder reject(String value, ImportIssueDTO.Issue issue){
+            if(validation != null) validation.reject(value, issue);
+            return this;
+        }
 
         private ProjectDTO projectDTO = new ProjectDTO(); private Project proj(){ return projectDTO.getProject(); }
 
@@ -108,14 +271,18 @@ public class SheetService {
         public ProjectDTOBuilder setProjectDescription(String description){ proj().setDescription(description); return this;}
         public ProjectDTOBuilder setProjectCompany(String company){ proj().setCompany(company); return this;}
         public ProjectDTOBuilder setProjectIndustry(String industry){ proj().setIndustry(industry); return this;}
-        public ProjectDTOBuilder setProjectImportID(String s) { proj().setImportID(s); return this; }
+        public ProjectDTOBuilder setProjectImportID(String s) {
+            if(validation != null) validation.checkImportID(s);
+            proj().setImportID(s);
+            return this;
+        }
         public ProjectDTOBuilder setProjectStartDate(String startDate){
-            if(!GenericUtils.isDateFormattedAsTHStr(startDate)) return this;
+            if(!GenericUtils.isDateFormattedAsTHStr(startDate)) return reject(startDate, ImportIssueDTO.Issue.invalid_date);
             proj().setStart_date(startDate);
             return this;
         }
         public ProjectDTOBuilder setProjectEndDate(String endDate){
-            if(!GenericUtils.isDateFormattedAsTHStr(endDate)) return this;
+            if(!GenericUtils.isDateFormattedAsTHStr(endDate)) return reject(endDate, ImportIssueDTO.Issue.invalid_date);
             proj().setEnd_date(endDate);
             return this;
         }
@@ -124,6 +291,7 @@ public class SheetService {
         //#endregion
         //#region UserExp
         public ProjectDTOBuilder setMemberRole(String role){
+            if(validation != null) validation.checkRole(role);
             tempUserAndExpDTO.getUserExp().setRole(role);
             return afterTempUserAndExpChange();
         }
@@ -146,7 +314,7 @@ public class SheetService {
         //#endregion
         //#region User
         public ProjectDTOBuilder setUserDateOfBirth(String dateOfBirth){
-            if(!GenericUtils.isDateFormattedAsTHStr(dateOfBirth)) return this;
+            if(!GenericUtils.isDateFormattedAsTHStr(dateOfBirth)) return reject(dateOfBirth, ImportIssueDTO.Issue.invalid_date);
             tempUserAndExpDTO.getUser().setDate_of_birth(dateOfBirth);
             return afterTempUserAndExpChange();
         }
@@ -161,7 +329,7 @@ public class SheetService {
         public ProjectDTOBuilder setUserSex(String strSex){
             if(StringUtils.isEmpty(strSex)) return this;
             char sex = strSex.toUpperCase().charAt(0);
-            if(sex!='M'&&sex!='F') return this;
+            if(sex!='M'&&sex!='F') return reject(strSex, ImportIssueDTO.Issue.invalid_sex);
             tempUserAndExpDTO.getUser().setSex(sex);
             return afterTempUserAndExpChange();
         }
@@ -186,6 +354,7 @@ public class SheetService {
             return afterTempUserAndExpChange();
         }
         public ProjectDTOBuilder setUserEmail(String email){
+            if(validation != null) validation.checkEmail(email);
             tempUserAndExpDTO.getUser().setEmail(email);
             return afterTempUserAndExpChange();
         }
@@ -194,8 +363,19 @@ public class SheetService {
         private ProjectDTOBuilder afterTempUserAndExpChange(){
             //System.out.printf("row: %d, prevRow: %d, user: %s\n", r, prevRow, (tempUserAndExpDTO.getUser().getFirst_name()+tempUserAndExpDTO.getUser().getLast_name()));
             //System.out.println(new JSONObject(projectDTO).toString(2));
-            if(c!=totalCells-1) return this;
-
+            hasMemberData = true;
+            if(!commitOnLastCell || c!=totalCells-1) return this;
+            return commitMember();
+        }
+        //Members without an email can't be invited, such csv rows are dropped
+        public ProjectDTOBuilder endRow(){
+            if(!StringUtils.isEmpty(tempUserAndExpDTO.getUser().getEmail())) commitMember();
+            else if(hasMemberData) reject("", ImportIssueDTO.Issue.member_without_email);
+            tempUserAndExpDTO = new UserAndExpDTO();
+            hasMemberData = false;
+            return this;
+        }
+        private ProjectDTOBuilder commitMember(){
             List<UserAndExpDTO> members = new ArrayList<>( Arrays.asList( projectDTO.getMembers() ) );
             int memI = (int) members.stream().filter(Objects::nonNull).count();
             if(memI >= projectDTO.getMembers().length-1) return this;
@@ -0,0 +1,75 @@
+package com.sixhands.service;
+
+import com.sixhands.controller.dtos.SimilarUserDTO;
+import com.sixhands.domain.User;
+import com.sixhands.event.UserTermsChangedEvent;
+import com.sixhands.misc.MinHashIndex;
+import com.sixhands.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * "People like this one": users with similar skills, tools, industries and roles.
+ * <p>
+ * Keeps a {@link MinHashIndex} over the {@link UserTermIndex} terms. The index follows the term index through
+ * {@link UserTermsChangedEvent}s, so only the users whose exps changed get new signatures.
+ */
+@Service
+public class SimilarityService {
+    @Autowired
+    private UserRepository userRepo;
+
+    @Value("${6hands.similar.bands:16}")
+    private int bands;
+    @Value("${6hands.similar.rows:4}")
+    private int rows;
+    @Value("${6hands.similar.max-candidates:5000}")
+    private int maxCandidates;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private MinHashIndex index;
+
+    @PostConstruct
+    public void init() {
+        index = new MinHashIndex(bands, rows);
+    }
+
+    @EventListener
+    public void onTermsChanged(UserTermsChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            event.getTerms().forEach(index::put);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<SimilarUserDTO> findSimilar(Long userUUID, int size) {
+        List<MinHashIndex.Scored> scored;
+        lock.readLock().lock();
+        try {
+            scored = index.similar(userUUID, size, maxCandidates);
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (scored.isEmpty()) return Collections.emptyList();
+
+        List<Long> ids = new ArrayList<>(scored.size());
+        for (MinHashIndex.Scored s : scored) ids.add(s.getId());
+        Map<Long, User> users = new HashMap<>();
+        for (User user : userRepo.findAllById(ids)) users.put(user.getUuid(), user);
+        List<SimilarUserDTO> ret = new ArrayList<>(scored.size());
+        for (MinHashIndex.Scored s : scored) {
+            User user = users.get(s.getId());
+            if (user != null) ret.add(new SimilarUserDTO(user, s.getSimilarity()));
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,150 @@
+package com.sixhands.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import javax.mail.MessagingException;
+import javax.mail.Session;
+import javax.mail.Transport;
+import javax.mail.internet.MimeMessage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Small pool of authenticated SMTP transports, so a batch of mail costs one connection and TLS handshake
+ * instead of one per message. A connection is closed after {@code max-messages-per-connection} messages
+ * (SMTP servers tend to drop long sessions) or after staying idle for {@code idle-timeout-ms}.
+ */
+@Service
+public class SmtpTransportPool {
+    @Autowired
+    private JavaMailSender mailSender;
+
+    @Value("${6hands.mail.pool.size:4}")
+    private int size;
+    @Value("${6hands.mail.pool.max-messages-per-connection:50}")
+    private int maxMessagesPerConnection;
+    @Value("${6hands.mail.pool.idle-timeout-ms:60000}")
+    private long idleTimeoutMs;
+
+    //Most recently used transports are at the head, so idle ones gather at the tail
+    private final LinkedBlockingDeque<PooledTransport> idle = new LinkedBlockingDeque<>();
+    private Semaphore permits;
+    private Logger logger = Logger.getLogger(SmtpTransportPool.class.getName());
+
+    private synchronized Semaphore permits() {
+        if (permits == null) permits = new Semaphore(size);
+        return permits;
+    }
+
+    /**
+     * Sends all messages over pooled connections, a message that fails does not stop the rest of the batch.
+     *
+     * @return exceptions by message index, null for messages that were sent
+     */
+    public List<Exception> sendBatch(List<MimeMessage> messages) throws InterruptedException {
+        List<Exception> errors = new ArrayList<>();
+        if (messages.isEmpty()) return errors;
+        permits().acquire();
+        PooledTransport transport = null;
+        try {
+            for (MimeMessage message : messages) {
+                try {
+                    if (transport == null) transport = borrow();
+                    message.saveChanges();
+                    transport.transport.sendMessage(message, message.getAllRecipients());
+                    transport.messagesSent++;
+                    errors.add(null);
+                } catch (MessagingException | IllegalStateException e) {
+                    errors.add(e);
+                    //Connection might be broken, next message gets a fresh one
+                    if (transport != null && !transport.transport.isConnected()) {
+                        close(transport);
+                        transport = null;
+                    }
+                }
+                if (transport != null && transport.messagesSent >= maxMessagesPerConnection) {
+                    close(transport);
+                    transport = null;
+                }
+            }
+        } finally {
+            if (transport != null) release(transport);
+            permits().release();
+        }
+        return errors;
+    }
+
+    @Scheduled(fixedDelay = 15000)
+    public void evictIdle() {
+        long now = System.currentTimeMillis();
+        PooledTransport transport;
+        while ((transport = idle.pollLast()) != null) {
+            if (now - transport.lastUsed < idleTimeoutMs && transport.transport.isConnected()) {
+                idle.offerLast(transport);
+                break;
+            }
+            close(transport);
+        }
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        PooledTransport transport;
+        while ((transport = idle.pollFirst()) != null) close(transport);
+    }
+
+    private PooledTransport borrow() throws MessagingException {
+        PooledTransport transport;
+        while ((transport = idle.pollFirst()) != null) {
+            if (transport.transport.isConnected()) return transport;
+            close(transport);
+        }
+        return connect();
+    }
+
+    private void release(PooledTransport transport) {
+        transport.lastUsed = System.currentTimeMillis();
+        if (transport.transport.isConnected()) idle.offerFirst(transport);
+        else close(transport);
+    }
+
+    private PooledTransport connect() throws MessagingException {
+        if (!(mailSender instanceof JavaMailSenderImpl))
+            throw new IllegalStateException("Transport pool requires JavaMailSenderImpl");
+        JavaMailSenderImpl impl = (JavaMailSenderImpl) mailSender;
+        Session session = impl.getSession();
+        String protocol = impl.getProtocol();
+        if (protocol == null) protocol = session.getProperty("mail.transport.protocol");
+        Transport transport = protocol == null ? session.getTransport() : session.getTransport(protocol);
+        transport.connect(impl.getHost(), impl.getPort(), impl.getUsername(), impl.getPassword());
+        return new PooledTransport(transport);
+    }
+
+    private void close(PooledTransport transport) {
+        try {
+            transport.transport.close();
+        } catch (MessagingException e) {
+            logger.log(Level.FINE, "Unable to close SMTP transport", e);
+        }
+    }
+
+    private static class PooledTransport {
+        private final Transport transport;
+        private int messagesSent = 0;
+        private long lastUsed = System.currentTimeMillis();
+
+        private PooledTransport(Transport transport) {
+            this.transport = transport;
+        }
+    }
+}
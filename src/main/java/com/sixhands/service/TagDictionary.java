@@ -0,0 +1,274 @@
+package com.sixhands.service;
+
+import com.sixhands.domain.ExpTag;
+import com.sixhands.domain.Tag;
+import com.sixhands.event.UserExpChangedEvent;
+import com.sixhands.repository.ExpTagRepository;
+import com.sixhands.repository.TagRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * Interned skill and tool tags.
+ * <p>
+ * The free text {@code skills}/{@code tools} of exps is split on commas and semicolons and every part is normalized
+ * (lower case, collapsed whitespace), so "Java", "java " and "JAVA" are one {@link Tag}. All tags are kept in memory,
+ * a lookup by text costs a map access and tags are compared by id. The {@link ExpTag} rows of a user are synced
+ * when a {@link UserExpChangedEvent} commits, and all exps are reconciled on startup. Only the sync creates tags,
+ * it runs before the other listeners of the same events so their lookups find the new ones.
+ */
+@Service
+public class TagDictionary {
+    private static final Pattern SEPARATORS = Pattern.compile("[,;]");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final String SELECT_EXPS = "SELECT uuid, user_uuid, skills, tools FROM user_project_exp WHERE user_uuid IS NOT NULL";
+
+    @Autowired
+    private TagRepository tagRepo;
+    @Autowired
+    private ExpTagRepository expTagRepo;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final Map<String, Tag> byName = new ConcurrentHashMap<>();
+    private final Map<Long, Tag> byId = new ConcurrentHashMap<>();
+    private TransactionTemplate writeTemplate;
+
+    private Logger logger = Logger.getLogger(TagDictionary.class.getName());
+
+    //Tags of one exp, as read from user_project_exp
+    private static class ExpTags {
+        final long expId;
+        final long userId;
+        final String skills;
+        final String tools;
+
+        ExpTags(long expId, long userId, String skills, String tools) {
+            this.expId = expId;
+            this.userId = userId;
+            this.skills = skills;
+            this.tools = tools;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        //New tags must be committed before they are handed out, whatever transaction the caller is in
+        writeTemplate = new TransactionTemplate(transactionManager);
+        writeTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        for (Tag tag : tagRepo.findAll()) put(tag);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void reconcile() {
+        long start = System.currentTimeMillis();
+        List<ExpTags> exps = new ArrayList<>();
+        jdbcTemplate.query(SELECT_EXPS, collector(exps));
+        List<ExpTag> existing = new ArrayList<>();
+        jdbcTemplate.query("SELECT uuid, exp_uuid, user_uuid, tag_uuid FROM user_project_exp_tag", (RowCallbackHandler) rs -> {
+            ExpTag expTag = new ExpTag(rs.getLong(2), rs.getLong(3), rs.getLong(4));
+            expTag.setUuid(rs.getLong(1));
+            existing.add(expTag);
+        });
+        int changed = sync(exps, existing);
+        logger.info("Tag dictionary: " + byId.size() + " tags, " + changed + " exp tags changed in "
+                + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onUserExpChanged(UserExpChangedEvent event) {
+        if (event.getUserUUID() == null) return;
+        List<ExpTags> exps = new ArrayList<>();
+        jdbcTemplate.query(SELECT_EXPS + " AND user_uuid = ?", collector(exps), event.getUserUUID());
+        try {
+            sync(exps, expTagRepo.findByUserUUID(event.getUserUUID()));
+        } catch (DataIntegrityViolationException e) {
+            //A concurrent sync of the same user won, the exp change itself is committed already
+            logger.log(Level.WARNING, "Unable to sync tags of user " + event.getUserUUID(), e);
+        }
+    }
+
+    /**
+     * @return existing tags of the free text value in order of appearance without duplicates, unknown parts are skipped
+     */
+    public List<Tag> lookup(Tag.Kind kind, String value) {
+        Map<String, String> parts = split(value);
+        List<Tag> ret = new ArrayList<>(parts.size());
+        for (String name : parts.keySet()) {
+            Tag tag = byName.get(key(kind, name));
+            if (tag != null) ret.add(tag);
+        }
+        return ret;
+    }
+
+    /**
+     * @return tags of the value, null if one of them doesn't exist, so nothing can have all of them
+     */
+    public List<Tag> find(Tag.Kind kind, String value) {
+        List<Tag> ret = new ArrayList<>();
+        for (String name : split(value).keySet()) {
+            Tag tag = byName.get(key(kind, name));
+            if (tag == null) return null;
+            ret.add(tag);
+        }
+        return ret;
+    }
+
+    /**
+     * @return users having all the tags on their exps
+     */
+    public Set<Long> findUserIds(List<Tag> tags) {
+        Set<Long> ret = null;
+        for (Tag tag : tags) {
+            List<Long> users = expTagRepo.findUserIds(tag.getUuid());
+            if (ret == null) ret = new HashSet<>(users);
+            else ret.retainAll(users);
+            if (ret.isEmpty()) break;
+        }
+        return ret == null ? Collections.emptySet() : ret;
+    }
+
+    public Tag get(Long id) {
+        return byId.get(id);
+    }
+
+    /**
+     * The one normalization of free text terms, shared by every index over skills, tools, companies and the like
+     *
+     * @return trimmed, whitespace collapsed, non-empty parts of the comma/semicolon separated value, case kept
+     */
+    public static List<String> labels(String value) {
+        if (value == null) return Collections.emptyList();
+        List<String> ret = new ArrayList<>(1);
+        for (String part : SEPARATORS.split(value)) {
+            String label = label(part);
+            if (!label.isEmpty()) ret.add(label);
+        }
+        return ret;
+    }
+
+    /**
+     * @return the value trimmed with whitespace collapsed to single spaces, case kept
+     */
+    public static String label(String value) {
+        return collapse(value.trim());
+    }
+
+    /**
+     * @return whitespace collapsed to single spaces, leading and trailing ones included
+     */
+    public static String collapse(String value) {
+        return WHITESPACE.matcher(value).replaceAll(" ");
+    }
+
+    /**
+     * @return the name a label is looked up by
+     */
+    public static String name(String label) {
+        return label.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Same rule as the profile page always had, single characters are noise
+     */
+    public static boolean isTerm(String name) {
+        return name != null && name.length() > 1;
+    }
+
+    //Normalized name -> label of every part
+    private static Map<String, String> split(String value) {
+        Map<String, String> ret = new LinkedHashMap<>();
+        for (String label : labels(value))
+            if (isTerm(label)) ret.putIfAbsent(name(label), label.substring(0, 1).toUpperCase() + label.substring(1));
+        return ret;
+    }
+
+    private synchronized void create(List<Tag> tags) {
+        List<Tag> missing = new ArrayList<>();
+        Set<String> keys = new HashSet<>();
+        for (Tag tag : tags)
+            if (!byName.containsKey(key(tag.getKind(), tag.getName())) && keys.add(key(tag.getKind(), tag.getName())))
+                missing.add(tag);
+        if (missing.isEmpty()) return;
+        try {
+            for (Tag tag : writeTemplate.execute(status -> tagRepo.saveAll(missing))) put(tag);
+        } catch (DataIntegrityViolationException e) {
+            //Another instance created some of them first
+            for (Tag tag : tagRepo.findAll()) put(tag);
+        }
+    }
+
+    //Rewrites the differences between the tags of the exps and their stored rows, returns the amount of rows changed
+    private int sync(List<ExpTags> exps, List<ExpTag> stored) {
+        List<Tag> toIntern = new ArrayList<>();
+        for (ExpTags exp : exps) {
+            collectMissing(Tag.Kind.SKILL, exp.skills, toIntern);
+            collectMissing(Tag.Kind.TOOL, exp.tools, toIntern);
+        }
+        if (!toIntern.isEmpty()) create(toIntern);
+
+        Map<String, ExpTag> wanted = new LinkedHashMap<>();
+        for (ExpTags exp : exps)
+            for (Tag.Kind kind : Tag.Kind.values())
+                for (String name : split(kind == Tag.Kind.SKILL ? exp.skills : exp.tools).keySet()) {
+                    Tag tag = byName.get(key(kind, name));
+                    if (tag != null) wanted.putIfAbsent(exp.expId + ":" + tag.getUuid(), new ExpTag(exp.expId, exp.userId, tag.getUuid()));
+                }
+        List<ExpTag> stale = new ArrayList<>();
+        for (ExpTag expTag : stored) {
+            ExpTag kept = wanted.remove(expTag.getExpUUID() + ":" + expTag.getTagUUID());
+            //A row that moved to another user is rewritten
+            if (kept == null || !kept.getUserUUID().equals(expTag.getUserUUID())) {
+                stale.add(expTag);
+                if (kept != null) wanted.put(expTag.getExpUUID() + ":" + expTag.getTagUUID(), kept);
+            }
+        }
+        if (stale.isEmpty() && wanted.isEmpty()) return 0;
+        writeTemplate.executeWithoutResult(status -> {
+            if (!stale.isEmpty()) expTagRepo.deleteInBatch(stale);
+            expTagRepo.saveAll(wanted.values());
+        });
+        return stale.size() + wanted.size();
+    }
+
+    private void collectMissing(Tag.Kind kind, String value, List<Tag> to) {
+        split(value).forEach((name, label) -> {
+            if (!byName.containsKey(key(kind, name))) to.add(new Tag(kind, name, label));
+        });
+    }
+
+    private void put(Tag tag) {
+        byName.put(key(tag.getKind(), tag.getName()), tag);
+        byId.put(tag.getUuid(), tag);
+    }
+
+    private static String key(Tag.Kind kind, String name) {
+        return kind.name() + ":" + name;
+    }
+
+    private static RowCallbackHandler collector(List<ExpTags> to) {
+        return rs -> to.add(new ExpTags(rs.getLong(1), rs.getLong(2), rs.getString(3), rs.getString(4)));
+    }
+}
@@ -0,0 +1,108 @@
+package com.sixhands.service;
+
+import com.sixhands.controller.dtos.TeamDTO;
+import com.sixhands.domain.User;
+import com.sixhands.misc.SetCover;
+import com.sixhands.repository.UserRepository;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Suggests a small team that together has all the required skills or tools.
+ * <p>
+ * Every candidate is encoded as a bitmask of the requirements they cover, built from the {@link UserTermIndex}
+ * inverted index, so only users with at least one requirement are looked at. Candidates with the same mask are
+ * interchangeable and collapsed into one, then {@link SetCover} picks the team greedily within the time budget.
+ */
+@Service
+public class TeamBuilderService {
+    public static final int MAX_REQUIREMENTS = 64;
+
+    @Autowired
+    private UserTermIndex userTermIndex;
+    @Autowired
+    private UserRepository userRepo;
+
+    @Value("${6hands.team.time-budget-ms:300}")
+    private long timeBudgetMs;
+
+    /**
+     * @param needs   skills or tools, a requirement is covered by a user having it as either
+     * @param maxSize upper bound of the team size
+     */
+    public TeamDTO buildTeam(Collection<String> needs, int maxSize) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeBudgetMs);
+        List<String> requirements = new ArrayList<>();
+        //Single characters are never indexed, nobody can cover them but the caller still has to see them
+        List<String> unindexed = new ArrayList<>();
+        for (String need : needs)
+            for (String term : UserTermIndex.split(need)) {
+                List<String> target = TagDictionary.isTerm(term) ? requirements : unindexed;
+                if (!target.contains(term)) target.add(term);
+            }
+        if (requirements.isEmpty() && unindexed.isEmpty())
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No skills or tools given");
+        if (requirements.isEmpty())
+            return new TeamDTO(new ArrayList<>(), unindexed, false);
+        if (requirements.size() > MAX_REQUIREMENTS)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + MAX_REQUIREMENTS + " skills or tools are supported");
+
+        Map<Long, Long> masks = new HashMap<>();
+        for (int i = 0; i < requirements.size(); i++) {
+            long bit = 1L << i;
+            for (String kind : new String[]{UserTermIndex.SKILL, UserTermIndex.TOOL})
+                for (Long user : userTermIndex.getUsers(kind + requirements.get(i)))
+                    masks.merge(user, bit, (a, b) -> a | b);
+        }
+
+        //One candidate per distinct coverage, the lowest id so answers are stable
+        Map<Long, Long> userByMask = new HashMap<>();
+        masks.forEach((user, mask) -> userByMask.merge(mask, user, Math::min));
+        long[] candidateMasks = new long[userByMask.size()];
+        long[] candidateUsers = new long[userByMask.size()];
+        int n = 0;
+        for (Map.Entry<Long, Long> entry : userByMask.entrySet()) {
+            candidateMasks[n] = entry.getKey();
+            candidateUsers[n++] = entry.getValue();
+        }
+
+        long required = requirements.size() == 64 ? -1L : (1L << requirements.size()) - 1;
+        int[] chosen = SetCover.cover(candidateMasks, required, maxSize, deadline);
+        boolean timedOut = System.nanoTime() - deadline > 0;
+
+        List<Long> ids = new ArrayList<>(chosen.length);
+        for (int i : chosen) ids.add(candidateUsers[i]);
+        Map<Long, User> users = new HashMap<>();
+        for (User user : userRepo.findAllById(ids)) users.put(user.getUuid(), user);
+
+        List<JSONObject> members = new ArrayList<>();
+        long covered = 0;
+        for (int i : chosen) {
+            User user = users.get(candidateUsers[i]);
+            long adds = candidateMasks[i] & ~covered;
+            covered |= candidateMasks[i];
+            members.add(new JSONObject()
+                    .put("uuid", candidateUsers[i])
+                    .put("name", user == null ? JSONObject.NULL : user.getFirst_name() + " " + user.getLast_name())
+                    .put("covers", new JSONArray(requirementsOf(adds, requirements))));
+        }
+        List<String> uncovered = requirementsOf(required & ~covered, requirements);
+        uncovered.addAll(unindexed);
+        return new TeamDTO(members, uncovered, timedOut);
+    }
+
+    private static List<String> requirementsOf(long mask, List<String> requirements) {
+        List<String> ret = new ArrayList<>();
+        for (int i = 0; i < requirements.size(); i++)
+            if ((mask & (1L << i)) != 0) ret.add(requirements.get(i));
+        return ret;
+    }
+}
@@ -0,0 +1,160 @@
+package com.sixhands.service;
+
+import com.sixhands.event.ProjectActivityEvent;
+import com.sixhands.misc.CountMinSketch;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+
+/**
+ * "Trending now": projects ranked by likes, with recent likes weighing much more than old ones.
+ * <p>
+ * Likes are counted in a ring of {@link CountMinSketch}es, one per {@code bucket-ms} time bucket. A project's
+ * score is the sum of its bucket counts, each weighted by {@code 2^(-age / half-life)}. Only the best
+ * {@code candidates} projects are tracked by id, so memory stays the same however many likes and projects
+ * there are. The ranking is recomputed every {@code refresh-ms} and served from memory.
+ * <p>
+ * Likes are a toggle, unlikes are counted in sketches of their own so the like sketches never go negative and keep
+ * their error bounds. A bucket adds {@code max(0, likes - unlikes)} of a project, so liking over and over counts once.
+ * Candidates are kept in a set ordered by score, the weakest one is replaced in O(log candidates).
+ */
+@Service
+public class TrendingService {
+    @Value("${6hands.trending.bucket-ms:3600000}")
+    private long bucketMs;
+    @Value("${6hands.trending.buckets:72}")
+    private int bucketCount;
+    @Value("${6hands.trending.half-life-ms:21600000}")
+    private long halfLifeMs;
+    @Value("${6hands.trending.candidates:200}")
+    private int candidateLimit;
+    @Value("${6hands.trending.sketch.depth:4}")
+    private int depth;
+    @Value("${6hands.trending.sketch.width:4096}")
+    private int width;
+
+    private CountMinSketch[] buckets;
+    private CountMinSketch[] unlikes;
+    //Bucket number (time / bucketMs) every slot of the ring currently counts
+    private long[] bucketNumbers;
+    //Projects that may be in the top as of the last computation, weakest first, and their entries by project
+    private final TreeSet<Trend> candidates = new TreeSet<>(Comparator.comparingDouble(Trend::getScore)
+            .thenComparingLong(Trend::getProjectUUID));
+    private final Map<Long, Trend> candidatesByProject = new HashMap<>();
+    private volatile List<Trend> trending = Collections.emptyList();
+
+    public static class Trend {
+        private final long projectUUID;
+        private final double score;
+
+        public Trend(long projectUUID, double score) {
+            this.projectUUID = projectUUID;
+            this.score = score;
+        }
+
+        public long getProjectUUID() {
+            return projectUUID;
+        }
+
+        public double getScore() {
+            return score;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        buckets = new CountMinSketch[bucketCount];
+        unlikes = new CountMinSketch[bucketCount];
+        bucketNumbers = new long[bucketCount];
+        Arrays.fill(bucketNumbers, -1);
+        for (int i = 0; i < bucketCount; i++) {
+            buckets[i] = new CountMinSketch(depth, width);
+            unlikes[i] = new CountMinSketch(depth, width);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProjectActivity(ProjectActivityEvent event) {
+        boolean liked = event.getType() == ProjectActivityEvent.Type.LIKED;
+        if (!liked && event.getType() != ProjectActivityEvent.Type.UNLIKED) return;
+        synchronized (this) {
+            long now = event.getTimestamp().getTime();
+            long number = now / bucketMs;
+            int slot = (int) (number % bucketCount);
+            if (bucketNumbers[slot] != number) {
+                buckets[slot].clear();
+                unlikes[slot].clear();
+                bucketNumbers[slot] = number;
+            }
+            (liked ? buckets : unlikes)[slot].add(event.getProjectUUID(), 1);
+            double score = score(event.getProjectUUID(), now);
+            if (score > 0) offer(event.getProjectUUID(), score);
+            else removeCandidate(event.getProjectUUID());
+        }
+    }
+
+    /**
+     * @return up to size projects, highest score first
+     */
+    public List<Trend> getTrending(int size) {
+        List<Trend> ret = trending;
+        return ret.size() <= size ? ret : ret.subList(0, size);
+    }
+
+    @Scheduled(fixedDelayString = "${6hands.trending.refresh-ms:30000}")
+    public synchronized void refresh() {
+        long now = System.currentTimeMillis();
+        List<Trend> ranked = new ArrayList<>(candidates.size());
+        for (Long project : candidatesByProject.keySet()) {
+            double score = score(project, now);
+            //Every like left the window or was taken back
+            if (score > 0) ranked.add(new Trend(project, score));
+        }
+        candidates.clear();
+        candidatesByProject.clear();
+        for (Trend trend : ranked) addCandidate(trend);
+        ranked.sort(Comparator.comparingDouble(Trend::getScore).reversed().thenComparingLong(Trend::getProjectUUID));
+        trending = Collections.unmodifiableList(ranked);
+    }
+
+    //Keeps the project if it beats the weakest candidate, scores of the others are refreshed in refresh()
+    private void offer(long project, double score) {
+        if (removeCandidate(project) || candidates.size() < candidateLimit) {
+            addCandidate(new Trend(project, score));
+            return;
+        }
+        Trend weakest = candidates.first();
+        if (weakest.getScore() < score) {
+            removeCandidate(weakest.getProjectUUID());
+            addCandidate(new Trend(project, score));
+        }
+    }
+
+    private void addCandidate(Trend trend) {
+        candidates.add(trend);
+        candidatesByProject.put(trend.getProjectUUID(), trend);
+    }
+
+    private boolean removeCandidate(long project) {
+        Trend trend = candidatesByProject.remove(project);
+        return trend != null && candidates.remove(trend);
+    }
+
+    private double score(long project, long now) {
+        long current = now / bucketMs;
+        double score = 0;
+        for (int slot = 0; slot < bucketCount; slot++) {
+            long number = bucketNumbers[slot];
+            if (number < 0 || current - number >= bucketCount) continue;
+            //Age of the middle of the bucket
+            double age = now - (number * bucketMs + bucketMs / 2.0);
+            int likes = Math.max(0, buckets[slot].estimate(project) - unlikes[slot].estimate(project));
+            score += likes * Math.pow(2, -Math.max(0, age) / halfLifeMs);
+        }
+        return score;
+    }
+}
@@ -5,16 +5,19 @@ import com.sixhands.controller.dtos.UserAndExpDTO;
 import com.sixhands.controller.dtos.UserProfileDTO;
 import com.sixhands.domain.Notification;
 import com.sixhands.domain.Project;
+import com.sixhands.domain.Tag;
 import com.sixhands.domain.User;
 import com.sixhands.domain.UserProjectExp;
+import com.sixhands.event.UserRegisteredEvent;
+import com.sixhands.event.UserUpdatedEvent;
 import com.sixhands.exception.UserAlreadyExistsException;
 import com.sixhands.misc.GenericUtils;
-import com.sixhands.repository.NotificationRepository;
 import com.sixhands.repository.ProjectRepository;
 import com.sixhands.repository.UserProjectExpRepository;
 import com.sixhands.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -23,6 +26,7 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 import org.springframework.web.server.ResponseStatusException;
 
@@ -40,6 +44,8 @@ public class UserService implements UserDetailsService {
     @Autowired
     private MailSender mailSender;
     @Autowired
+    private MailTemplateService mailTemplates;
+    @Autowired
     public UserProjectExpRepository userProjectExpRepo;
     @Autowired
     private UserRepository userRepo;
@@ -48,7 +54,13 @@ public class UserService implements UserDetailsService {
     @Autowired
     private ProjectService projectService;
     @Autowired
-    private NotificationRepository notificationRepo;
+    private NotificationDispatcher notificationDispatcher;
+    @Autowired
+    private NotificationService notificationService;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private TagDictionary tagDictionary;
 
     private BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
     private Logger logger = Logger.getLogger(UserService.class.getName());
@@ -76,18 +88,23 @@ public class UserService implements UserDetailsService {
         return userRepo.findFirstByResetToken(resetToken);
     }
 
+    @Transactional
     public User registerUser(String email, Locale locale) throws UserAlreadyExistsException {
         return registerUser(email, GenericUtils.randomAlphaNumString(8), locale);
     }
 
+    @Transactional
     public User registerUser(String email, boolean isProjectMember, Locale locale) throws UserAlreadyExistsException {
         return registerUser(email, GenericUtils.randomAlphaNumString(8), isProjectMember, locale);
     }
 
+    @Transactional
     public User registerUser(String email, String plainPassword, Locale locale) throws UserAlreadyExistsException {
         return registerUser(email, plainPassword, false, locale);
     }
 
+    //User row and its activation mail are committed together, so every overload is transactional
+    @Transactional
     public User registerUser(String email, @NotNull String plainPassword, boolean isProjectMember, Locale locale) throws UserAlreadyExistsException {
         if (plainPassword == null) return registerUser(email, isProjectMember, locale);
         User user = null;
@@ -103,6 +120,7 @@ public class UserService implements UserDetailsService {
         user.setPassword(passwordEncoder.encode(plainPassword));
         user.setEmail(email);
         user = userRepo.save(user);
+        eventPublisher.publishEvent(new UserRegisteredEvent(user.getUuid()));
 
         if (SixHandsApplication.isSendingMail()) {
             //обработка ошибки "User email is null or empty"
@@ -132,16 +150,11 @@ public class UserService implements UserDetailsService {
     }
 
     public void sendUserNotification(Notification notification) {
-        notificationRepo.save(notification);
+        notificationDispatcher.dispatch(notification);
     }
 
     public List<Notification> getUserNotifications(User user) {
-        return notificationRepo
-                .findAll()
-                .stream()
-                .filter((n) -> n.getUserUUID().equals(user.getUuid()))
-                .sorted(Comparator.comparingLong(a -> a.getTimestamp().getTime()))
-                .collect(Collectors.toList());
+        return notificationService.getUserNotifications(user.getUuid());
     }
 
     public static Optional<String> getCurrentUsername() {
@@ -189,8 +202,8 @@ public class UserService implements UserDetailsService {
         for (UserProjectExp projectExp : projectExps) {
             Project project = projectRepo.getOne(projectExp.getProject_uuid());
             profileDTO
-                    .addSkill(projectExp.getSkills(), projectExp, project)
-                    .addTool(projectExp.getTools(), projectExp, project)
+                    .addSkills(tagDictionary.lookup(Tag.Kind.SKILL, projectExp.getSkills()), projectExp, project)
+                    .addTools(tagDictionary.lookup(Tag.Kind.TOOL, projectExp.getTools()), projectExp, project)
                     .addIndustry(project.getIndustry(), projectExp, project)
                     .addCompany(project.getCompany(), projectExp, project)
                     .addRole(projectExp.getRole(), projectExp, project)
@@ -201,7 +214,9 @@ public class UserService implements UserDetailsService {
     }
 
     public User safeAssignPersist(User from, User to) {
-        return userRepo.save(to.safeAssignProperties(from));
+        User saved = userRepo.save(to.safeAssignProperties(from));
+        eventPublisher.publishEvent(new UserUpdatedEvent(saved.getUuid()));
+        return saved;
     }
 
     //#region user-search
@@ -217,18 +232,43 @@ public class UserService implements UserDetailsService {
     }
 
     public List<UserProfileDTO> searchUsersByProps(String skill, String company, String industry, String tool, String role) {
-        Stream<UserProfileDTO> stream = userRepo.findAll().stream().map(this::getProfileDtoForUser);
-        if (StringUtils.isEmpty(skill) && StringUtils.isEmpty(company) && StringUtils.isEmpty(industry) && StringUtils.isEmpty(tool) && StringUtils.isEmpty(role)) {
+        //Comma-separated skills and tools must all be present
+        List<Tag> skillTags = findTags(Tag.Kind.SKILL, skill);
+        List<Tag> toolTags = findTags(Tag.Kind.TOOL, tool);
+        if (skillTags == null || toolTags == null) return new ArrayList<>();
+        List<Tag> tags = new ArrayList<>(skillTags);
+        tags.addAll(toolTags);
+        //Tagged users are looked up in user_project_exp_tag instead of building the profile of everyone
+        List<User> users = tags.isEmpty() ? userRepo.findAll() : userRepo.findAllById(tagDictionary.findUserIds(tags));
+        Stream<UserProfileDTO> stream = users.stream().map(this::getProfileDtoForUser);
+        if (tags.isEmpty() && StringUtils.isEmpty(company) && StringUtils.isEmpty(industry) && StringUtils.isEmpty(role)) {
             return stream.collect(Collectors.toList());
         }
-        stream = filterProp(stream, UserProfileDTO::getSkills, skill);
+        stream = filterTags(stream, UserProfileDTO::getSkills, skillTags);
         stream = filterProp(stream, UserProfileDTO::getCompanies, company);
         stream = filterProp(stream, UserProfileDTO::getIndustries, industry);
-        stream = filterProp(stream, UserProfileDTO::getTools, tool);
+        stream = filterTags(stream, UserProfileDTO::getTools, toolTags);
         stream = filterProp(stream, UserProfileDTO::getRoles, role);
         return stream.collect(Collectors.toList());
     }
 
+    //Null if a tag of the filter doesn't exist, empty if there is no filter
+    private List<Tag> findTags(Tag.Kind kind, String filter) {
+        if (StringUtils.isEmpty(filter)) return Collections.emptyList();
+        List<Tag> ret = tagDictionary.find(kind, filter);
+        return ret == null || ret.isEmpty() ? null : ret;
+    }
+
+    private Stream<UserProfileDTO> filterTags(Stream<UserProfileDTO> init, Function<UserProfileDTO, List<UserProfileDTO.UserProfilePropertyDTO>> propSupplier, List<Tag> tags) {
+        if (tags.isEmpty()) return init;
+        return init.filter((profileDTO) -> {
+            Set<Long> tagIds = propSupplier.apply(profileDTO).stream()
+                    .map(UserProfileDTO.UserProfilePropertyDTO::getTagId)
+                    .collect(Collectors.toSet());
+            return tags.stream().allMatch((tag) -> tagIds.contains(tag.getUuid()));
+        });
+    }
+
     private Stream<UserProfileDTO> filterProp(Stream<UserProfileDTO> init, Function<UserProfileDTO, List<UserProfileDTO.UserProfilePropertyDTO>> propSupplier, String compareTo) {
         if (StringUtils.isEmpty(compareTo)) return init;
 
@@ -279,104 +319,48 @@ public class UserService implements UserDetailsService {
     private void sendMemberVerificationMail(User user, String plainPassword, Locale locale) {
         if (StringUtils.isEmpty(user.getEmail()))
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "User email is null or empty");
-        if (isEngLocale(locale)) {
-            String emailText = String.format(
-                    "Hello, %s! \n" +
-                            "You are invited as a member of a project. \n" +
-                            "To confirm, click on http://%s/activation/%s and get the unique features of the new social network right now!\n" +
-                            "Your username is %s, and your password is %s\n" +
-                            "Sincerely, the 6 hands team\n" +
-                            "http://%s",
-                    user.getEmail(),
-                    domain,
-                    user.getActivationCode(),
-                    user.getEmail(),
-                    plainPassword,
-                    domain
-            );
-            mailSender.sendEmail(user.getEmail(), "Join the 6 hands network! Confirm your participation in the project!", emailText);
-        } else {
-            String emailText = String.format(
-                    "Привет, %s ! \n" +
-                            "You are invited as a member of a project. \n" +
-                            "Для подтверждения нажмите на http://%s/activation/%s и получите уникальные возможности новой социальной сети уже сейчас!\n" +
-                            "Ваш логин - %s, ваш пароль - %s\n" +
-                            "С уважением, Команда 6 hands\n" +
-                            "http://%s",
-                    user.getEmail(),
-                    domain,
-                    user.getActivationCode(),
-                    user.getEmail(),
-                    plainPassword,
-                    domain
-            );
-            mailSender.sendEmail(user.getEmail(), "Присоединяйтесь к сети 6 hands! Подтвердите свое участие в проекте!", emailText);
-        }
+        Map<String, Object> params = new HashMap<>();
+        params.put("email", user.getEmail());
+        params.put("domain", domain);
+        params.put("activationCode", user.getActivationCode());
+        params.put("password", plainPassword);
+        mailSender.sendEmail("member-activation:" + user.getActivationCode(), user.getEmail(),
+                mailTemplates.render("member-invitation", locale, params));
     }
 
     private void sendVerificationMail(User user) {
         if (StringUtils.isEmpty(user.getEmail()))
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "User email is null or empty");
-        String emailText = String.format(
-                "Hello, %s! \n" +
-                        "Welcome to 6hands. Please, visit link: http://%s/activation/%s",
-                user.getEmail(),
-                domain,
-                user.getActivationCode()
-        );
-        mailSender.sendEmail(user.getEmail(), "Activate your profile", emailText);
+        Map<String, Object> params = new HashMap<>();
+        params.put("email", user.getEmail());
+        params.put("domain", domain);
+        params.put("activationCode", user.getActivationCode());
+        mailSender.sendEmail("activation:" + user.getActivationCode(), user.getEmail(),
+                mailTemplates.render("activation", Locale.ENGLISH, params));
     }
 
     public boolean sendRecoverMail(User user, Locale locale) {
-        if (isEngLocale(locale)) {
-            String emailText = String.format(
-                    "Hello, %s! \n" +
-                            "To reset your password, click the link http://%s/recovery-password?token=%s",
-                    user.getEmail(),
-                    domain,
-                    user.getResetToken());
-            mailSender.sendEmail(user.getEmail(), "Password Reset Request", emailText);
-        } else {
-            String emailText = String.format(
-                    "Привет, %s! \n" +
-                            "Для сброса пароля на сайте 6 hands нажмите на http://%s/recovery-password?token=%s",
-                    user.getEmail(),
-                    domain,
-                    user.getResetToken());
-            mailSender.sendEmail(user.getEmail(), "Сбросить пароль на сайте 6 hands", emailText);
-        }
+        Map<String, Object> params = new HashMap<>();
+        params.put("email", user.getEmail());
+        params.put("domain", domain);
+        params.put("token", user.getResetToken());
+        mailSender.sendEmail("recover:" + user.getResetToken(), user.getEmail(),
+                mailTemplates.render("recover", locale, params));
         return true;
     }
 
     public boolean sendUserContactsMail(User userTo, User userFrom, Locale locale) {
-        if (isEngLocale(locale)) {
-            String emailText = String.format(
-                    "Hello, %s %s! \n" +
-                            "User %s %s wants to contact with you. His mail: %s",
-                    userTo.getFirst_name(),
-                    userTo.getLast_name(),
-                    userFrom.getFirst_name(),
-                    userFrom.getLast_name(),
-                    userFrom.getEmail());
-            mailSender.sendEmail(userTo.getEmail(), "New contact request", emailText);
-        } else {
-            String emailText = String.format(
-                    "Привет, %s %s! \n" +
-                            "Пользователь %s %s хочет с вами связаться. Его почта: %s",
-                    userTo.getFirst_name(),
-                    userTo.getLast_name(),
-                    userFrom.getFirst_name(),
-                    userFrom.getLast_name(),
-                    userFrom.getEmail());
-            mailSender.sendEmail(userTo.getEmail(), "Новый запрос на обмен контактами", emailText);
-        }
+        Map<String, Object> params = new HashMap<>();
+        params.put("toFirstName", userTo.getFirst_name());
+        params.put("toLastName", userTo.getLast_name());
+        params.put("fromFirstName", userFrom.getFirst_name());
+        params.put("fromLastName", userFrom.getLast_name());
+        params.put("fromEmail", userFrom.getEmail());
+        mailSender.sendEmail(UUID.randomUUID().toString(), userTo.getEmail(),
+                mailTemplates.render("contact-request", locale, params));
         return true;
     }
 
-    private boolean isEngLocale(Locale locale) {
-        return locale.getDisplayLanguage().equals("английский");
-    }
-
     public void changeUserPassword(User user, String rawPassword) {
         user.setPassword(passwordEncoder.encode(rawPassword));
         userRepo.save(user);
@@ -0,0 +1,158 @@
+package com.sixhands.service;
+
+import com.sixhands.event.ProjectUpdatedEvent;
+import com.sixhands.event.UserExpChangedEvent;
+import com.sixhands.event.UserTermsChangedEvent;
+import com.sixhands.misc.ReloadQueue;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Normalized profile terms of every user: skills, tools and roles of their exps, industries and companies of their projects.
+ * <p>
+ * Terms are prefixed with their kind ({@code skill:java}, {@code tool:jira}), lower case, with collapsed whitespace,
+ * and comma/semicolon separated values are split. Users are also indexed by term. The index is loaded on startup, a user is reloaded when
+ * a {@link UserExpChangedEvent} commits and all members of a project when a {@link ProjectUpdatedEvent} does
+ * (industry and company are project fields). Reloads go through a {@link ReloadQueue}, so concurrent ones can't apply
+ * older rows over newer ones. Every update is published as a {@link UserTermsChangedEvent}
+ * for the indexes built on top of the terms.
+ */
+@Service
+public class UserTermIndex {
+    public static final String SKILL = "skill:";
+    public static final String TOOL = "tool:";
+    public static final String ROLE = "role:";
+    public static final String INDUSTRY = "industry:";
+    public static final String COMPANY = "company:";
+
+    private static final String SELECT = "SELECT e.user_uuid, e.skills, e.tools, e.role, p.industry, p.company " +
+            "FROM user_project_exp e LEFT JOIN project p ON p.uuid = e.project_uuid WHERE e.user_uuid IS NOT NULL";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final Map<Long, Set<String>> terms = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> usersByTerm = new ConcurrentHashMap<>();
+    private final ReloadQueue<Long> reloads = new ReloadQueue<>();
+    private volatile boolean loaded = false;
+
+    private Logger logger = Logger.getLogger(UserTermIndex.class.getName());
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        long start = System.currentTimeMillis();
+        Map<Long, Set<String>> all = new HashMap<>();
+        jdbcTemplate.query(SELECT, collector(all));
+        all.values().removeIf(Set::isEmpty);
+        all.forEach(this::put);
+        loaded = true;
+        logger.info("Loaded profile terms of " + all.size() + " users in " + (System.currentTimeMillis() - start) + "ms");
+        eventPublisher.publishEvent(new UserTermsChangedEvent(all));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserExpChanged(UserExpChangedEvent event) {
+        if (event.getUserUUID() == null || !loaded) return;
+        reloads.reload(Collections.singleton(event.getUserUUID()), this::reload);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProjectUpdated(ProjectUpdatedEvent event) {
+        if (event.getProjectUUID() == null || !loaded) return;
+        List<Long> members = jdbcTemplate.queryForList("SELECT DISTINCT user_uuid FROM user_project_exp " +
+                "WHERE project_uuid = ? AND user_uuid IS NOT NULL", Long.class, event.getProjectUUID());
+        if (!members.isEmpty()) reloads.reload(members, this::reload);
+    }
+
+    public Set<String> getTerms(Long userUUID) {
+        return terms.getOrDefault(userUUID, Collections.emptySet());
+    }
+
+    //Users having the normalized term
+    public Set<Long> getUsers(String term) {
+        return usersByTerm.getOrDefault(term, Collections.emptySet());
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * @param kind one of {@link #SKILL}, {@link #TOOL}, {@link #ROLE}, {@link #INDUSTRY}, {@link #COMPANY}
+     * @return normalized terms of the value, several if it is a list
+     */
+    public static List<String> normalize(String kind, String value) {
+        List<String> ret = new ArrayList<>(1);
+        for (String term : split(value))
+            if (TagDictionary.isTerm(term)) ret.add(kind + term);
+        return ret;
+    }
+
+    /**
+     * @return names of the value's parts as {@link TagDictionary} normalizes them, including the single characters
+     * {@link #normalize(String, String)} drops
+     */
+    public static List<String> split(String value) {
+        List<String> ret = new ArrayList<>(1);
+        for (String label : TagDictionary.labels(value)) ret.add(TagDictionary.name(label));
+        return ret;
+    }
+
+    //Reloads the users, only the ones whose terms changed are published
+    private void reload(Set<Long> userUUIDs) {
+        Map<Long, Set<String>> loadedTerms = new HashMap<>();
+        StringBuilder in = new StringBuilder();
+        for (int i = 0; i < userUUIDs.size(); i++) in.append(i == 0 ? "?" : ",?");
+        jdbcTemplate.query(SELECT + " AND e.user_uuid IN (" + in + ")", collector(loadedTerms), userUUIDs.toArray());
+        Map<Long, Set<String>> changed = new HashMap<>();
+        for (Long userUUID : userUUIDs) {
+            Set<String> userTerms = loadedTerms.getOrDefault(userUUID, Collections.emptySet());
+            if (userTerms.equals(terms.getOrDefault(userUUID, Collections.emptySet()))) continue;
+            put(userUUID, userTerms);
+            changed.put(userUUID, userTerms);
+        }
+        if (!changed.isEmpty()) eventPublisher.publishEvent(new UserTermsChangedEvent(changed));
+    }
+
+    private synchronized void put(Long userUUID, Set<String> userTerms) {
+        Set<String> old = userTerms.isEmpty() ? terms.remove(userUUID) : terms.put(userUUID, userTerms);
+        if (old != null)
+            for (String term : old)
+                if (!userTerms.contains(term))
+                    usersByTerm.computeIfPresent(term, (t, users) -> {
+                        users.remove(userUUID);
+                        return users.isEmpty() ? null : users;
+                    });
+        for (String term : userTerms)
+            usersByTerm.computeIfAbsent(term, t -> ConcurrentHashMap.newKeySet()).add(userUUID);
+    }
+
+    private static RowCallbackHandler collector(Map<Long, Set<String>> to) {
+        return (ResultSet rs) -> {
+            Set<String> userTerms = to.computeIfAbsent(rs.getLong(1), u -> new HashSet<>());
+            add(userTerms, SKILL, rs, 2);
+            add(userTerms, TOOL, rs, 3);
+            add(userTerms, ROLE, rs, 4);
+            add(userTerms, INDUSTRY, rs, 5);
+            add(userTerms, COMPANY, rs, 6);
+        };
+    }
+
+    private static void add(Set<String> to, String kind, ResultSet rs, int column) throws SQLException {
+        to.addAll(normalize(kind, rs.getString(column)));
+    }
+}
@@ -0,0 +1,99 @@
+package com.sixhands.misc;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link ColleagueGraph#shortestPath} against a plain BFS over a membership map, with overlay changes in between
+ */
+public class ColleagueGraphTest {
+    private static final int MAX_HOPS = 6;
+
+    @Test
+    public void shortestPathMatchesBfs() {
+        Random random = new Random(1);
+        for (int round = 0; round < 20; round++) {
+            int users = 50 + random.nextInt(150), projects = 20 + random.nextInt(80);
+            Set<List<Long>> memberships = new HashSet<>();
+            int count = users + random.nextInt(users);
+            for (int i = 0; i < count; i++) memberships.add(membership(random.nextInt(users), random.nextInt(projects)));
+            ColleagueGraph graph = build(memberships);
+
+            for (int change = 0; change < 30; change++) {
+                List<Long> membership = membership(random.nextInt(users + 5), random.nextInt(projects + 5));
+                if (random.nextBoolean()) {
+                    graph.add(membership.get(0), membership.get(1));
+                    memberships.add(membership);
+                } else {
+                    graph.remove(membership.get(0), membership.get(1));
+                    memberships.remove(membership);
+                }
+            }
+
+            for (int query = 0; query < 200; query++) {
+                long from = random.nextInt(users + 5), to = random.nextInt(users + 5);
+                ColleagueGraph.Path path = graph.shortestPath(from, to, MAX_HOPS);
+                int expected = bfs(memberships, from, to);
+                if (expected < 0 || expected > MAX_HOPS || graph.userIndex(from) < 0 || graph.userIndex(to) < 0) {
+                    if (path != null && from != to) assertEquals(expected, path.getHops());
+                    continue;
+                }
+                assertNotNull(from + " -> " + to, path);
+                assertEquals(from + " -> " + to, expected, path.getHops());
+                assertValid(memberships, path, from, to);
+            }
+        }
+    }
+
+    private static void assertValid(Set<List<Long>> memberships, ColleagueGraph.Path path, long from, long to) {
+        long[] users = path.getUsers();
+        assertEquals(from, users[0]);
+        assertEquals(to, users[users.length - 1]);
+        for (int i = 0; i < path.getProjects().length; i++) {
+            assertTrue(memberships.contains(membership(users[i], path.getProjects()[i])));
+            assertTrue(memberships.contains(membership(users[i + 1], path.getProjects()[i])));
+        }
+    }
+
+    //Hops between the users, -1 if they are not connected
+    private static int bfs(Set<List<Long>> memberships, long from, long to) {
+        Map<Long, List<Long>> projectsOf = new HashMap<>();
+        Map<Long, List<Long>> membersOf = new HashMap<>();
+        for (List<Long> membership : memberships) {
+            projectsOf.computeIfAbsent(membership.get(0), u -> new ArrayList<>()).add(membership.get(1));
+            membersOf.computeIfAbsent(membership.get(1), p -> new ArrayList<>()).add(membership.get(0));
+        }
+        if (from == to) return 0;
+        Map<Long, Integer> hops = new HashMap<>();
+        hops.put(from, 0);
+        Deque<Long> queue = new ArrayDeque<>(Collections.singleton(from));
+        while (!queue.isEmpty()) {
+            long user = queue.poll();
+            for (long project : projectsOf.getOrDefault(user, Collections.emptyList()))
+                for (long colleague : membersOf.get(project)) {
+                    if (hops.containsKey(colleague)) continue;
+                    hops.put(colleague, hops.get(user) + 1);
+                    if (colleague == to) return hops.get(colleague);
+                    queue.add(colleague);
+                }
+        }
+        return -1;
+    }
+
+    private static ColleagueGraph build(Set<List<Long>> memberships) {
+        long[] users = new long[memberships.size()], projects = new long[memberships.size()];
+        int i = 0;
+        for (List<Long> membership : memberships) {
+            users[i] = membership.get(0);
+            projects[i++] = membership.get(1);
+        }
+        return ColleagueGraph.build(users, projects, i);
+    }
+
+    private static List<Long> membership(long user, long project) {
+        return Arrays.asList(user, project);
+    }
+}
@@ -0,0 +1,53 @@
+package com.sixhands.misc;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link CountMinSketch} estimates against exact counts of skewed non-negative streams, at the width and depth
+ * trending runs with
+ */
+public class CountMinSketchTest {
+    private static final int DEPTH = 4;
+    private static final int WIDTH = 4096;
+
+    @Test
+    public void neverUndercountsAndStaysWithinBound() {
+        Random random = new Random(1);
+        for (int round = 0; round < 10; round++) {
+            CountMinSketch sketch = new CountMinSketch(DEPTH, WIDTH);
+            Map<Long, Integer> exact = new HashMap<>();
+            int keys = 100 + random.nextInt(20000);
+            long total = 0;
+            for (int i = 0; i < 50000; i++) {
+                //Few hot projects, a long tail of others
+                long key = random.nextInt(4) == 0 ? random.nextInt(10) : random.nextInt(keys);
+                int amount = 1 + random.nextInt(3);
+                sketch.add(key, amount);
+                exact.merge(key, amount, Integer::sum);
+                total += amount;
+            }
+            //e / width of the total, exceeded with probability e^-depth per key
+            double bound = Math.E / WIDTH * total;
+            int over = 0;
+            for (Map.Entry<Long, Integer> entry : exact.entrySet()) {
+                int estimate = sketch.estimate(entry.getKey());
+                assertTrue(entry.getKey() + ": " + estimate + " < " + entry.getValue(), estimate >= entry.getValue());
+                if (estimate - entry.getValue() > bound) over++;
+            }
+            assertTrue(over + " of " + exact.size(), over <= exact.size() * 3 * Math.exp(-DEPTH));
+            assertTrue(sketch.estimate(-1) >= 0);
+        }
+    }
+
+    @Test
+    public void clearForgetsEverything() {
+        CountMinSketch sketch = new CountMinSketch(DEPTH, WIDTH);
+        for (long key = 0; key < 1000; key++) sketch.add(key, 5);
+        sketch.clear();
+        for (long key = 0; key < 1000; key++) assertEquals(0, sketch.estimate(key));
+    }
+}
@@ -0,0 +1,67 @@
+package com.sixhands.misc;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link HyperLogLog} estimates against the exact distinct count of random, sequential and repeated values
+ */
+public class HyperLogLogTest {
+    //Four standard errors at the default precision
+    private static final double TOLERANCE = 4 * 1.04 / Math.sqrt(1 << HyperLogLog.DEFAULT_PRECISION);
+
+    @Test
+    public void estimatesWithinErrorBound() {
+        Random random = new Random(1);
+        for (int cardinality : new int[]{0, 1, 10, 100, 1000, 5000, 20000, 100000}) {
+            HyperLogLog randomValues = new HyperLogLog();
+            HyperLogLog sequential = new HyperLogLog();
+            Set<Long> values = new HashSet<>();
+            while (values.size() < cardinality) values.add(random.nextLong());
+            for (long value : values) {
+                randomValues.add(value);
+                //Views repeat, duplicates must not count
+                randomValues.add(value);
+            }
+            for (long id = 1; id <= cardinality; id++) sequential.add(id);
+            assertEstimate(cardinality, randomValues.estimate());
+            assertEstimate(cardinality, sequential.estimate());
+        }
+    }
+
+    @Test
+    public void mergeIsUnion() {
+        Random random = new Random(2);
+        for (int round = 0; round < 20; round++) {
+            HyperLogLog all = new HyperLogLog();
+            HyperLogLog merged = new HyperLogLog();
+            Set<Long> values = new HashSet<>();
+            for (int day = 0; day < 7; day++) {
+                HyperLogLog sketch = new HyperLogLog();
+                int views = random.nextInt(3000);
+                for (int i = 0; i < views; i++) {
+                    //Overlapping viewers between days
+                    long viewer = random.nextInt(5000);
+                    sketch.add(viewer);
+                    all.add(viewer);
+                    values.add(viewer);
+                }
+                merged.merge(HyperLogLog.fromBytes(sketch.toBytes()));
+            }
+            assertArrayEquals(all.toBytes(), merged.toBytes());
+            assertEstimate(values.size(), merged.estimate());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void mergeRejectsOtherPrecision() {
+        new HyperLogLog().merge(new HyperLogLog(HyperLogLog.DEFAULT_PRECISION + 1));
+    }
+
+    private static void assertEstimate(long expected, long actual) {
+        assertTrue(expected + " estimated as " + actual, Math.abs(actual - expected) <= Math.max(2, expected * TOLERANCE));
+    }
+}
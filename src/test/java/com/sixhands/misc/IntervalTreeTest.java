@@ -0,0 +1,46 @@
+package com.sixhands.misc;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link IntervalTree} against a scan over the stored intervals, including duplicates and single point intervals
+ */
+public class IntervalTreeTest {
+    @Test
+    public void overlapsMatchScan() {
+        Random random = new Random(1);
+        for (int round = 0; round < 20; round++) {
+            IntervalTree tree = new IntervalTree();
+            List<long[]> intervals = new ArrayList<>();
+            for (int op = 0; op < 1000; op++) {
+                if (!intervals.isEmpty() && random.nextInt(3) == 0) {
+                    long[] interval = intervals.remove(random.nextInt(intervals.size()));
+                    assertTrue(tree.remove(interval[0], interval[1], interval[2]));
+                } else {
+                    long start = random.nextInt(1000);
+                    long[] interval = {start, start + random.nextInt(random.nextBoolean() ? 10 : 200), random.nextInt(50)};
+                    tree.insert(interval[0], interval[1], interval[2]);
+                    intervals.add(interval);
+                }
+                assertFalse(tree.remove(-5, -1, 0));
+                assertEquals(intervals.size(), tree.size());
+                assertEquals(intervals.isEmpty(), tree.isEmpty());
+
+                long from = random.nextInt(1100) - 50, to = from + random.nextInt(random.nextBoolean() ? 5 : 100);
+                List<Long> expected = new ArrayList<>();
+                for (long[] interval : intervals)
+                    if (interval[0] <= to && interval[1] >= from) expected.add(interval[2]);
+                List<Long> actual = new ArrayList<>();
+                tree.overlapping(from, to, actual::add);
+                Collections.sort(expected);
+                Collections.sort(actual);
+                assertEquals(from + ".." + to, expected, actual);
+                assertEquals(from + ".." + to, !expected.isEmpty(), tree.anyOverlapping(from, to));
+            }
+        }
+    }
+}
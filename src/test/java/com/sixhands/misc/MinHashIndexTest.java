@@ -0,0 +1,90 @@
+package com.sixhands.misc;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link MinHashIndex} with near-duplicate term sets planted among random ones, at the bands and rows
+ * the similarity service runs with
+ */
+public class MinHashIndexTest {
+    private static final int BANDS = 16;
+    private static final int ROWS = 4;
+    private static final int TERMS = 2000;
+
+    @Test
+    public void findsPlantedNearDuplicates() {
+        Random random = new Random(1);
+        MinHashIndex index = new MinHashIndex(BANDS, ROWS);
+        Map<Long, Set<String>> sets = new HashMap<>();
+        for (long id = 0; id < 500; id++) sets.put(id, randomSet(random, 20 + random.nextInt(20)));
+        //Every tenth set gets two copies with a couple of terms swapped, Jaccard similarity of about 0.8 to 0.9
+        Map<Long, List<Long>> planted = new HashMap<>();
+        long next = 1000;
+        for (long id = 0; id < 500; id += 10)
+            for (int copy = 0; copy < 2; copy++) {
+                Set<String> duplicate = new HashSet<>(sets.get(id));
+                Iterator<String> it = duplicate.iterator();
+                for (int i = 0; i < 2; i++) {
+                    it.next();
+                    it.remove();
+                }
+                duplicate.add("term" + (TERMS + random.nextInt(TERMS)));
+                duplicate.add("term" + (TERMS + random.nextInt(TERMS)));
+                sets.put(next, duplicate);
+                planted.computeIfAbsent(id, i -> new ArrayList<>()).add(next++);
+            }
+        sets.forEach(index::put);
+        assertEquals(sets.size(), index.size());
+
+        planted.forEach((id, duplicates) -> {
+            List<MinHashIndex.Scored> similar = index.similar(id, 5, 5000);
+            Set<Long> found = new HashSet<>();
+            for (MinHashIndex.Scored scored : similar) {
+                assertNotEquals(id.longValue(), scored.getId());
+                found.add(scored.getId());
+                double exact = jaccard(sets.get(id), sets.get(scored.getId()));
+                assertEquals(id + " ~ " + scored.getId(), exact, scored.getSimilarity(), 0.2);
+            }
+            assertTrue(id + " " + found, found.containsAll(duplicates));
+            //The planted copies are by far the most similar, they come first
+            assertTrue(duplicates.contains(similar.get(0).getId()) && duplicates.contains(similar.get(1).getId()));
+            for (int i = 1; i < similar.size(); i++)
+                assertTrue(similar.get(i - 1).getSimilarity() >= similar.get(i).getSimilarity());
+        });
+    }
+
+    @Test
+    public void emptyPutRemoves() {
+        MinHashIndex index = new MinHashIndex(BANDS, ROWS);
+        Set<String> terms = new HashSet<>(Arrays.asList("skill:java", "skill:sql", "tool:git"));
+        index.put(1, terms);
+        index.put(2, terms);
+        assertEquals(2, index.similar(1, 5, 100).get(0).getId());
+
+        index.put(2, Collections.emptySet());
+        assertEquals(1, index.size());
+        assertTrue(index.similar(2, 5, 100).isEmpty());
+        assertTrue(index.similar(1, 5, 100).isEmpty());
+
+        index.put(2, terms);
+        index.remove(1);
+        assertEquals(1, index.size());
+        assertTrue(index.similar(2, 5, 100).isEmpty());
+    }
+
+    private static Set<String> randomSet(Random random, int size) {
+        Set<String> ret = new HashSet<>();
+        while (ret.size() < size) ret.add("term" + random.nextInt(TERMS));
+        return ret;
+    }
+
+    private static double jaccard(Set<String> a, Set<String> b) {
+        Set<String> intersection = new HashSet<>(a);
+        intersection.retainAll(b);
+        return (double) intersection.size() / (a.size() + b.size() - intersection.size());
+    }
+}
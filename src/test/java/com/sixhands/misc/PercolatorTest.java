@@ -0,0 +1,78 @@
+package com.sixhands.misc;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link Percolator} candidates checked with {@link Percolator#matches} against matching every stored query
+ * to the document, with queries replaced and removed in between
+ */
+public class PercolatorTest {
+    private static final String[] TERMS = {"skill:java", "skill:sql", "skill:go", "tool:git", "tool:idea", "role:dev", "company:acme"};
+
+    private static class Query {
+        final Set<String> terms;
+        final String fragment;
+
+        Query(Set<String> terms, String fragment) {
+            this.terms = terms;
+            this.fragment = fragment;
+        }
+    }
+
+    @Test
+    public void candidatesIncludeEveryMatch() {
+        Random random = new Random(1);
+        for (int round = 0; round < 20; round++) {
+            Percolator percolator = new Percolator();
+            Map<Long, Query> queries = new HashMap<>();
+            for (int op = 0; op < 1000; op++) {
+                long id = random.nextInt(200);
+                if (random.nextInt(4) == 0) {
+                    assertEquals(queries.remove(id) != null, percolator.remove(id));
+                } else {
+                    Set<String> terms = terms(random, random.nextInt(3));
+                    String fragment = random.nextBoolean() || terms.isEmpty() ? name(random, 1 + random.nextInt(5)) : null;
+                    percolator.put(id, terms, fragment);
+                    queries.put(id, new Query(terms, fragment));
+                }
+                assertEquals(queries.size(), percolator.size());
+
+                Set<String> terms = terms(random, random.nextInt(5));
+                String name = random.nextInt(5) == 0 ? null : name(random, random.nextInt(12));
+                Set<Long> expected = new TreeSet<>();
+                queries.forEach((queryId, query) -> {
+                    if (terms.containsAll(query.terms) && (query.fragment == null || (name != null && name.contains(query.fragment))))
+                        expected.add(queryId);
+                });
+                Set<Long> candidates = new HashSet<>();
+                percolator.forTerms(terms, candidates::add);
+                percolator.forName(name, candidates::add);
+                Set<Long> actual = new TreeSet<>();
+                for (long candidate : candidates) if (percolator.matches(candidate, terms, name)) actual.add(candidate);
+                assertEquals(terms + " " + name, expected, actual);
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void queryWithoutConditionsIsRejected() {
+        new Percolator().put(1, Collections.emptySet(), "");
+    }
+
+    private static Set<String> terms(Random random, int count) {
+        Set<String> ret = new HashSet<>();
+        for (int i = 0; i < count; i++) ret.add(TERMS[random.nextInt(TERMS.length)]);
+        return ret;
+    }
+
+    //Small alphabet so fragments of up to five letters do show up in names
+    private static String name(Random random, int length) {
+        StringBuilder ret = new StringBuilder(length);
+        for (int i = 0; i < length; i++) ret.append("ab c".charAt(random.nextInt(4)));
+        return ret.toString();
+    }
+}
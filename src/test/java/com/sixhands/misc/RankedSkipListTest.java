@@ -0,0 +1,56 @@
+package com.sixhands.misc;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link RankedSkipList} against a sorted list of the same entries, with scores changing like the rating board's do
+ */
+public class RankedSkipListTest {
+    private static final Comparator<long[]> ORDER = (a, b) -> a[1] != b[1] ? Long.compare(b[1], a[1]) : Long.compare(a[0], b[0]);
+
+    @Test
+    public void ranksMatchSortedList() {
+        Random random = new Random(1);
+        for (int round = 0; round < 20; round++) {
+            RankedSkipList list = new RankedSkipList();
+            Map<Long, Long> scores = new HashMap<>();
+            int ids = 20 + random.nextInt(300);
+            for (int op = 0; op < 3000; op++) {
+                long id = random.nextInt(ids);
+                Long old = scores.get(id);
+                if (old != null) assertTrue(list.remove(id, old));
+                if (old == null || random.nextInt(5) > 0) {
+                    //Few distinct scores, ties have to be ordered by id
+                    long score = random.nextInt(30);
+                    list.insert(id, score);
+                    scores.put(id, score);
+                } else {
+                    scores.remove(id);
+                }
+                assertFalse(list.remove(id, 1000));
+            }
+
+            List<long[]> sorted = new ArrayList<>();
+            scores.forEach((id, score) -> sorted.add(new long[]{id, score}));
+            sorted.sort(ORDER);
+            assertEquals(sorted.size(), list.size());
+            for (int i = 0; i < sorted.size(); i++)
+                assertEquals(i + 1, list.rank(sorted.get(i)[0], sorted.get(i)[1]));
+            assertEquals(0, list.rank(ids, 0));
+
+            for (int query = 0; query < 50; query++) {
+                int from = random.nextInt(sorted.size() + 2), count = random.nextInt(20);
+                List<long[]> actual = new ArrayList<>();
+                list.range(from, count, (id, score) -> actual.add(new long[]{id, score}));
+                List<long[]> expected = from < 1 || from > sorted.size() ? Collections.emptyList()
+                        : sorted.subList(from - 1, Math.min(sorted.size(), from - 1 + count));
+                assertEquals(expected.size(), actual.size());
+                for (int i = 0; i < expected.size(); i++) assertArrayEquals(expected.get(i), actual.get(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.sixhands.misc;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link SetCover} against the eager greedy rule, every pick has the best gain of all sets at that point,
+ * and against the smallest cover found by brute force on small instances
+ */
+public class SetCoverTest {
+    private static final long NO_DEADLINE = Long.MAX_VALUE / 2;
+
+    @Test
+    public void picksAreGreedy() {
+        Random random = new Random(1);
+        for (int round = 0; round < 500; round++) {
+            int elements = 1 + random.nextInt(64);
+            long required = mask(random, elements, 0.8);
+            long[] masks = new long[random.nextInt(40)];
+            for (int i = 0; i < masks.length; i++) masks[i] = mask(random, elements, random.nextDouble() * 0.3);
+            int maxSets = 1 + random.nextInt(20);
+
+            int[] chosen = SetCover.cover(masks, required, maxSets, System.nanoTime() + NO_DEADLINE);
+            assertTrue(chosen.length <= maxSets);
+            long uncovered = required;
+            for (int pick : chosen) {
+                int best = 0;
+                for (long mask : masks) best = Math.max(best, Long.bitCount(mask & uncovered));
+                assertEquals(best, Long.bitCount(masks[pick] & uncovered));
+                assertTrue(best > 0);
+                uncovered &= ~masks[pick];
+            }
+            //It only stops early at maxSets
+            long coverable = 0;
+            for (long mask : masks) coverable |= mask;
+            if (chosen.length < maxSets) assertEquals(required & ~coverable, uncovered);
+        }
+    }
+
+    @Test
+    public void withinLogFactorOfOptimum() {
+        Random random = new Random(2);
+        for (int round = 0; round < 200; round++) {
+            int elements = 1 + random.nextInt(12);
+            long required = (1L << elements) - 1;
+            long[] masks = new long[1 + random.nextInt(12)];
+            for (int i = 0; i < masks.length; i++) masks[i] = mask(random, elements, 0.3);
+            masks[0] |= required & ~union(masks);
+
+            int[] chosen = SetCover.cover(masks, required, 64, System.nanoTime() + NO_DEADLINE);
+            long covered = 0;
+            for (int pick : chosen) covered |= masks[pick];
+            assertEquals(required, covered & required);
+            double harmonic = 0;
+            for (int i = 1; i <= elements; i++) harmonic += 1.0 / i;
+            assertTrue(chosen.length <= optimum(masks, required) * harmonic);
+        }
+    }
+
+    @Test
+    public void passedDeadlineChoosesNothing() {
+        assertEquals(0, SetCover.cover(new long[]{1, 2}, 3, 10, System.nanoTime() - 1).length);
+    }
+
+    private static int optimum(long[] masks, long required) {
+        int best = Integer.MAX_VALUE;
+        for (int subset = 0; subset < 1 << masks.length; subset++) {
+            long covered = 0;
+            for (int i = 0; i < masks.length; i++) if ((subset & (1 << i)) != 0) covered |= masks[i];
+            if ((covered & required) == required) best = Math.min(best, Integer.bitCount(subset));
+        }
+        return best;
+    }
+
+    private static long union(long[] masks) {
+        long ret = 0;
+        for (long mask : masks) ret |= mask;
+        return ret;
+    }
+
+    private static long mask(Random random, int elements, double density) {
+        long ret = 0;
+        for (int i = 0; i < elements; i++) if (random.nextDouble() < density) ret |= 1L << i;
+        return ret;
+    }
+}
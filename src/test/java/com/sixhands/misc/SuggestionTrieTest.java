@@ -0,0 +1,64 @@
+package com.sixhands.misc;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link SuggestionTrie} against a count map sorted on every query, keys from a small alphabet so edges split and merge
+ */
+public class SuggestionTrieTest {
+    private static final int K = 5;
+
+    @Test
+    public void suggestMatchesSortedCounts() {
+        Random random = new Random(1);
+        for (int round = 0; round < 20; round++) {
+            SuggestionTrie trie = new SuggestionTrie(K);
+            Map<String, Long> counts = new HashMap<>();
+            Map<String, String> labels = new HashMap<>();
+            for (int op = 0; op < 2000; op++) {
+                String key = key(random, 1 + random.nextInt(6));
+                long delta = random.nextInt(4) == 0 ? -1 - random.nextInt(3) : 1 + random.nextInt(3);
+                String label = key.toUpperCase() + op;
+                trie.add(key, label, delta);
+                long count = Math.max(0, counts.getOrDefault(key, 0L) + delta);
+                if (count > 0) {
+                    counts.put(key, count);
+                    labels.putIfAbsent(key, label);
+                } else {
+                    counts.remove(key);
+                    labels.remove(key);
+                }
+
+                assertEquals(counts.size(), trie.size());
+                assertEquals(counts.getOrDefault(key, 0L).longValue(), trie.count(key));
+                String prefix = key(random, random.nextInt(4));
+                int limit = 1 + random.nextInt(K + 2);
+                assertSuggestions(counts, labels, prefix, limit, trie.suggest(prefix, limit));
+            }
+        }
+    }
+
+    private static void assertSuggestions(Map<String, Long> counts, Map<String, String> labels, String prefix, int limit,
+                                          List<SuggestionTrie.Suggestion> actual) {
+        List<String> expected = new ArrayList<>();
+        for (String key : counts.keySet()) if (key.startsWith(prefix)) expected.add(key);
+        expected.sort(Comparator.comparing((String key) -> -counts.get(key)).thenComparing(key -> key));
+        assertEquals(prefix, Math.min(Math.min(limit, K), expected.size()), actual.size());
+        for (int i = 0; i < actual.size(); i++) {
+            String key = expected.get(i);
+            assertEquals(prefix, key, actual.get(i).getKey());
+            assertEquals(prefix, counts.get(key).longValue(), actual.get(i).getCount());
+            assertEquals(prefix, labels.get(key), actual.get(i).getLabel());
+        }
+    }
+
+    private static String key(Random random, int length) {
+        StringBuilder ret = new StringBuilder(length);
+        for (int i = 0; i < length; i++) ret.append((char) ('a' + random.nextInt(3)));
+        return ret.toString();
+    }
+}
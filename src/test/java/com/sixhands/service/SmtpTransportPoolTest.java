@@ -0,0 +1,143 @@
+package com.sixhands.service;
+
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetup;
+import com.sun.mail.smtp.SMTPTransport;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.mail.*;
+import javax.mail.internet.MimeMessage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link SmtpTransportPool} against an embedded GreenMail SMTP server, connections are counted by a transport
+ * that wraps the JavaMail SMTP one.
+ */
+public class SmtpTransportPoolTest {
+    private static final AtomicInteger connections = new AtomicInteger();
+
+    private GreenMail greenMail;
+    private SmtpTransportPool pool;
+    private JavaMailSenderImpl mailSender;
+
+    public static class CountingTransport extends SMTPTransport {
+        public CountingTransport(Session session, URLName urlname) {
+            super(session, urlname);
+        }
+
+        @Override
+        protected synchronized boolean protocolConnect(String host, int port, String user, String password) throws MessagingException {
+            connections.incrementAndGet();
+            return super.protocolConnect(host, port, user, password);
+        }
+    }
+
+    @Before
+    public void setUp() throws NoSuchProviderException {
+        startServer(0);
+        connections.set(0);
+
+        Session session = Session.getInstance(new Properties());
+        session.setProvider(new Provider(Provider.Type.TRANSPORT, "smtp", CountingTransport.class.getName(), "test", "1"));
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setSession(session);
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(greenMail.getSmtp().getPort());
+
+        pool = new SmtpTransportPool();
+        ReflectionTestUtils.setField(pool, "mailSender", mailSender);
+        ReflectionTestUtils.setField(pool, "size", 2);
+        ReflectionTestUtils.setField(pool, "maxMessagesPerConnection", 50);
+        ReflectionTestUtils.setField(pool, "idleTimeoutMs", 60000L);
+    }
+
+    @After
+    public void tearDown() {
+        pool.closeAll();
+        greenMail.stop();
+    }
+
+    @Test
+    public void reusesConnectionBetweenBatches() throws Exception {
+        assertSent(pool.sendBatch(messages(5)));
+        assertSent(pool.sendBatch(messages(5)));
+        assertEquals(1, connections.get());
+        assertEquals(10, greenMail.getReceivedMessages().length);
+    }
+
+    @Test
+    public void recyclesConnectionAfterMaxMessages() throws Exception {
+        ReflectionTestUtils.setField(pool, "maxMessagesPerConnection", 2);
+        assertSent(pool.sendBatch(messages(5)));
+        assertEquals(3, connections.get());
+        assertEquals(5, greenMail.getReceivedMessages().length);
+    }
+
+    @Test
+    public void evictsIdleConnections() throws Exception {
+        assertSent(pool.sendBatch(messages(1)));
+        ReflectionTestUtils.setField(pool, "idleTimeoutMs", 0L);
+        pool.evictIdle();
+        assertSent(pool.sendBatch(messages(1)));
+        assertEquals(2, connections.get());
+    }
+
+    @Test
+    public void reconnectsAfterServerRestart() throws Exception {
+        assertSent(pool.sendBatch(messages(2)));
+        //The pooled connection is dropped by the server, the next batch has to notice and reconnect
+        greenMail.stop();
+        startServer(mailSender.getPort());
+
+        assertSent(pool.sendBatch(messages(3)));
+        assertEquals(2, connections.get());
+        assertEquals(3, greenMail.getReceivedMessages().length);
+    }
+
+    @Test
+    public void reportsFailuresPerMessage() throws Exception {
+        greenMail.stop();
+        List<Exception> errors = pool.sendBatch(messages(2));
+        assertEquals(2, errors.size());
+        assertNotNull(errors.get(0));
+        assertNotNull(errors.get(1));
+
+        startServer(mailSender.getPort());
+        assertSent(pool.sendBatch(messages(1)));
+        assertEquals(1, greenMail.getReceivedMessages().length);
+    }
+
+    //0 picks a free port
+    private void startServer(int port) {
+        greenMail = new GreenMail(new ServerSetup(port, "127.0.0.1", ServerSetup.PROTOCOL_SMTP));
+        greenMail.start();
+    }
+
+    private List<MimeMessage> messages(int count) throws MessagingException {
+        List<MimeMessage> ret = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            MimeMessage message = mailSender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(message, false, "UTF-8");
+            helper.setFrom("noreply@6hands.test");
+            helper.setTo("user" + i + "@6hands.test");
+            helper.setSubject("Message " + i);
+            helper.setText("Text " + i);
+            ret.add(message);
+        }
+        return ret;
+    }
+
+    private static void assertSent(List<Exception> errors) {
+        for (Exception error : errors) assertNull(error);
+    }
+}